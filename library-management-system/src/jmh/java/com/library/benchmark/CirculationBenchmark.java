@@ -0,0 +1,78 @@
+package com.library.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.library.core.LibraryBranch;
+import com.library.core.LibrarySystem;
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.transaction.Transaction;
+
+/**
+ * A checkoutBook followed by returnBook of the same copy, which leaves the
+ * inventory as it found it. Each invocation moves to the next book and
+ * patron, cycling over a fixed set of pairs. Every iteration rebuilds the
+ * branch with fresh patrons and walks the whole cycle once before measuring,
+ * so the system-wide circulation listeners, which outlive the branch, and
+ * each patron's borrowed titles are already at their final size; measured
+ * calls only repeat pairs and append to the transaction log and archived
+ * history
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CirculationBenchmark {
+
+	@Param({ "10000" })
+	public int bookCount;
+
+	@Param({ "1000" })
+	public int patronCount;
+
+	private LibraryBranch branch;
+	private List<Book> books;
+	private List<Patron> patrons;
+	private int cycle;
+	private int next;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		// Circulation listeners are registered when the system starts
+		LibrarySystem.getInstance();
+		branch = new LibraryDatasetGenerator(1, bookCount, patronCount, 0).generate().get(0);
+		books = branch.getAllBooks();
+		patrons = branch.getAllPatrons();
+		cycle = Math.max(books.size(), patrons.size());
+		next = 0;
+		for (int i = 0; i < cycle; i++) {
+			checkoutAndReturn();
+		}
+	}
+
+	@Benchmark
+	public Transaction checkoutAndReturn() {
+		int i = next;
+		next = (next + 1) % cycle;
+		String isbn = books.get(i % books.size()).getIsbn();
+		String patronId = patrons.get(i % patrons.size()).getPatronId();
+		branch.checkoutBook(isbn, patronId);
+		return branch.returnBook(isbn, patronId);
+	}
+}
@@ -0,0 +1,172 @@
+package com.library.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.library.catalog.Isbn13;
+import com.library.core.CopyInventory;
+import com.library.core.LibraryBranch;
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * Deterministic synthetic consortium for benchmarks. The same seed and scale
+ * always produce the same branches, titles, copies, patrons and circulation
+ * history, so results are comparable across runs and commits.
+ *
+ * Titles are drawn from a shared catalog about half the size of all branch
+ * holdings combined, so most titles are held by more than one branch
+ */
+public class LibraryDatasetGenerator {
+	public static final long DEFAULT_SEED = 20240501L;
+
+	private static final String[] ADJECTIVES = { "Silent", "Hidden", "Broken", "Golden", "Distant", "Crimson",
+			"Forgotten", "Endless", "Quiet", "Burning", "Frozen", "Hollow", "Wandering", "Secret", "Last",
+			"Bright" };
+	private static final String[] NOUNS = { "River", "Kingdom", "Garden", "Machine", "Empire", "Harbor", "Forest",
+			"Algorithm", "Mirror", "Voyage", "Winter", "Library", "Signal", "Orchard", "Compass", "Tower" };
+	private static final String[] FIRST_NAMES = { "Ada", "Alan", "Grace", "Edsger", "Barbara", "Donald", "Frances",
+			"Ken", "Margaret", "Niklaus", "Radia", "Tony", "Shafi", "John", "Leslie", "Mary" };
+	private static final String[] LAST_NAMES = { "Lovelace", "Turing", "Hopper", "Dijkstra", "Liskov", "Knuth",
+			"Allen", "Thompson", "Hamilton", "Wirth", "Perlman", "Hoare", "Goldwasser", "McCarthy", "Lamport",
+			"Shelley", "Austen", "Tolstoy", "Morrison", "Borges" };
+	private static final String[] SUBJECTS = { "fiction", "history", "science", "computing", "poetry", "biography",
+			"travel", "philosophy", "mathematics", "art", "mystery", "fantasy" };
+
+	private final long seed;
+	private final int branchCount;
+	private final int booksPerBranch;
+	private final int patronsPerBranch;
+	private final int loansPerBranch;
+
+	public LibraryDatasetGenerator(int branchCount, int booksPerBranch, int patronsPerBranch, int loansPerBranch) {
+		this(DEFAULT_SEED, branchCount, booksPerBranch, patronsPerBranch, loansPerBranch);
+	}
+
+	public LibraryDatasetGenerator(long seed, int branchCount, int booksPerBranch, int patronsPerBranch,
+			int loansPerBranch) {
+		if (branchCount < 1 || booksPerBranch < 1 || patronsPerBranch < 1 || loansPerBranch < 0) {
+			throw new IllegalArgumentException("Dataset needs at least one branch, book and patron");
+		}
+		this.seed = seed;
+		this.branchCount = branchCount;
+		this.booksPerBranch = booksPerBranch;
+		this.patronsPerBranch = patronsPerBranch;
+		this.loansPerBranch = loansPerBranch;
+	}
+
+	/**
+	 * Build the branches, not yet registered with LibrarySystem. Branch IDs
+	 * are BR0000, BR0001, ...
+	 */
+	public List<LibraryBranch> generate() {
+		int catalogSize = Math.max(booksPerBranch, booksPerBranch * branchCount / 2);
+		List<LibraryBranch> branches = new ArrayList<>(branchCount);
+		for (int b = 0; b < branchCount; b++) {
+			branches.add(generateBranch(b, catalogSize));
+		}
+		return branches;
+	}
+
+	/**
+	 * ISBN of the i-th title of the shared catalog
+	 */
+	public static String isbn(int catalogIndex) {
+		long key = 978_000_000_000L + catalogIndex;
+		long sum = 0;
+		long digits = key;
+		for (int position = 12; position > 0; position--) {
+			int digit = (int) (digits % 10);
+			sum += position % 2 == 0 ? 3 * digit : digit;
+			digits /= 10;
+		}
+		return Isbn13.format(key * 10 + (10 - sum % 10) % 10);
+	}
+
+	/**
+	 * Title of the i-th catalog entry; every title contains one adjective and
+	 * one noun from fixed word lists
+	 */
+	public static String title(int catalogIndex) {
+		return "The " + ADJECTIVES[catalogIndex % ADJECTIVES.length] + " "
+				+ NOUNS[(catalogIndex / ADJECTIVES.length) % NOUNS.length] + " " + (catalogIndex + 1);
+	}
+
+	private LibraryBranch generateBranch(int index, int catalogSize) {
+		Random random = new Random(seed * 31 + index);
+		String branchId = String.format("BR%04d", index);
+		LibraryBranch branch = new LibraryBranch(branchId, "Branch " + index, index + " Main St");
+
+		// Distinct titles from the shared catalog: partial Fisher-Yates
+		int[] catalog = new int[catalogSize];
+		for (int i = 0; i < catalogSize; i++) {
+			catalog[i] = i;
+		}
+		List<Book> books = new ArrayList<>(booksPerBranch);
+		for (int i = 0; i < booksPerBranch; i++) {
+			int pick = i + random.nextInt(catalogSize - i);
+			int entry = catalog[pick];
+			catalog[pick] = catalog[i];
+			catalog[i] = entry;
+			books.add(newBook(entry));
+		}
+		branch.addBooks(books);
+		for (Book book : books) {
+			if (random.nextInt(4) == 0) {
+				branch.addCopy(book.getIsbn(), CopyInventory.nextBarcode());
+			}
+		}
+
+		List<Patron> patrons = new ArrayList<>(patronsPerBranch);
+		for (int i = 0; i < patronsPerBranch; i++) {
+			String patronId = String.format("P%04d-%06d", index, i);
+			Patron patron = new Patron(patronId, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+					+ LAST_NAMES[random.nextInt(LAST_NAMES.length)], patronId.toLowerCase() + "@example.org");
+			patron.setPhoneNumber(String.format("555-%04d-%06d", index, i));
+			branch.addPatron(patron);
+			patrons.add(patron);
+		}
+
+		// Circulation history: most loans come back, a few stay out
+		for (int i = 0; i < loansPerBranch; i++) {
+			Patron patron = patrons.get(random.nextInt(patrons.size()));
+			if (!patron.canCheckoutMoreBooks()) {
+				branch.returnBook(patron.getCurrentCheckouts().iterator().next(), patron.getPatronId());
+			}
+			Book book = books.get(random.nextInt(books.size()));
+			if (!book.isAvailable() || patron.getCurrentCheckouts().contains(book.getIsbn())) {
+				continue;
+			}
+			branch.checkoutBook(book.getIsbn(), patron.getPatronId());
+			if (random.nextInt(10) < 8) {
+				branch.returnBook(book.getIsbn(), patron.getPatronId());
+			}
+		}
+		return branch;
+	}
+
+	private Book newBook(int catalogIndex) {
+		// Titles of one catalog entry agree across branches regardless of seed
+		Random random = new Random(catalogIndex);
+		List<String> subjects = new ArrayList<>();
+		int subjectCount = 1 + random.nextInt(3);
+		for (int s = 0; s < subjectCount; s++) {
+			String subject = SUBJECTS[random.nextInt(SUBJECTS.length)];
+			if (!subjects.contains(subject)) {
+				subjects.add(subject);
+			}
+		}
+		return new Book(isbn(catalogIndex), title(catalogIndex), author(catalogIndex), 1950 + random.nextInt(75),
+				subjects);
+	}
+
+	/**
+	 * Author of the i-th catalog entry; each author has about eight titles
+	 */
+	public static String author(int catalogIndex) {
+		int author = catalogIndex / 8;
+		return FIRST_NAMES[author % FIRST_NAMES.length] + " "
+				+ LAST_NAMES[(author / FIRST_NAMES.length) % LAST_NAMES.length] + " " + (author / 320 + 1);
+	}
+}
@@ -0,0 +1,67 @@
+package com.library.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.library.core.LibraryBranch;
+import com.library.core.LibrarySystem;
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.recommendation.RecommendationEngine;
+import com.library.recommendation.RecommendationEngineFactory;
+import com.library.recommendation.RecommendationType;
+
+/**
+ * Ten recommendations from each engine for patrons with generated borrowing
+ * history, cycling through the branch's patrons. The branch is registered
+ * with LibrarySystem so the catalog, popularity and co-borrowing models the
+ * engines read are populated from the same history
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecommendationBenchmark {
+
+	@Param({ "CONTENT_BASED", "POPULARITY_BASED", "COLLABORATIVE", "HYBRID" })
+	public RecommendationType type;
+
+	@Param({ "10000" })
+	public int bookCount;
+
+	private RecommendationEngine engine;
+	private List<Patron> patrons;
+	private List<Book> availableBooks;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		// Start the system first so its circulation listeners see the history
+		LibrarySystem system = LibrarySystem.getInstance();
+		LibraryBranch branch = new LibraryDatasetGenerator(1, bookCount, 1000, bookCount * 5).generate().get(0);
+		system.addBranch(branch);
+		engine = RecommendationEngineFactory.createEngine(type);
+		patrons = branch.getAllPatrons();
+		availableBooks = branch.getAvailableBookPool();
+	}
+
+	@Benchmark
+	public List<Book> getRecommendations() {
+		Patron patron = patrons.get(next++ % patrons.size());
+		return engine.getRecommendations(patron, availableBooks, 10);
+	}
+}
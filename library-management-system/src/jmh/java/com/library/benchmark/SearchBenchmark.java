@@ -0,0 +1,70 @@
+package com.library.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.library.core.LibraryBranch;
+import com.library.model.Book;
+import com.library.search.SearchType;
+
+/**
+ * LibraryBranch.searchBooks for each search type. Queries come from a title
+ * in the middle of the generated inventory: a title word shared by about
+ * one title in sixteen, a full author name, an exact ISBN and a year
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int bookCount;
+
+	@Param({ "TITLE", "AUTHOR", "ISBN", "YEAR" })
+	public SearchType searchType;
+
+	private LibraryBranch branch;
+	private String query;
+
+	@Setup
+	public void setUp() {
+		branch = new LibraryDatasetGenerator(1, bookCount, 100, 0).generate().get(0);
+		Book sample = branch.getAllBooks().get(bookCount / 2);
+		switch (searchType) {
+		case TITLE:
+			query = sample.getTitle().split(" ")[2];
+			break;
+		case AUTHOR:
+			query = sample.getAuthor();
+			break;
+		case ISBN:
+			query = sample.getIsbn();
+			break;
+		case YEAR:
+			query = Integer.toString(sample.getPublicationYear());
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown search type: " + searchType);
+		}
+	}
+
+	@Benchmark
+	public List<Book> searchBooks() {
+		return branch.searchBooks(searchType, query);
+	}
+}
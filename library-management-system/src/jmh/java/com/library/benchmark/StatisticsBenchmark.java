@@ -0,0 +1,54 @@
+package com.library.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.library.core.LibraryBranch;
+import com.library.core.LibrarySystem;
+import com.library.core.SystemStatistics;
+
+/**
+ * LibrarySystem.getStatistics over a generated consortium. LibrarySystem is
+ * a singleton, so each parameter combination needs its own fork; do not run
+ * with -f 0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsBenchmark {
+
+	@Param({ "4", "16" })
+	public int branchCount;
+
+	@Param({ "10000" })
+	public int booksPerBranch;
+
+	private LibrarySystem system;
+
+	@Setup
+	public void setUp() {
+		system = LibrarySystem.getInstance();
+		for (LibraryBranch branch : new LibraryDatasetGenerator(branchCount, booksPerBranch, 500, 5000).generate()) {
+			system.addBranch(branch);
+		}
+	}
+
+	@Benchmark
+	public SystemStatistics getStatistics() {
+		return system.getStatistics();
+	}
+}
@@ -224,7 +224,7 @@ public class LibraryManagementSystemApplication {
 		RecommendationEngine engine = RecommendationEngineFactory
 				.createEngine(RecommendationType.CONTENT_BASED);
 
-		List<Book> recommendations = engine.getRecommendations(patron1, centralBranch.getAvailableBooks(), 3);
+		List<Book> recommendations = engine.getRecommendations(patron1, centralBranch.getAvailableBookPool(), 3);
 
 		logger.info("Generated " + recommendations.size() + " recommendations for patron P001");
 		for (Book book : recommendations) {
@@ -0,0 +1,115 @@
+package com.library.audit;
+
+/**
+ * Immutable audit record; fields that do not apply are null. The detail is
+ * kept as the caller's parts and only turned into text when the event is
+ * written
+ */
+public final class AuditEvent {
+	private final long timestampMillis;
+	private final AuditEventType type;
+	private final String branchId;
+	private final String isbn;
+	private final String patronId;
+	private final Object detail;
+	private final Object detailTo;
+
+	public AuditEvent(long timestampMillis, AuditEventType type, String branchId, String isbn, String patronId,
+			String detail) {
+		this(timestampMillis, type, branchId, isbn, patronId, detail, null);
+	}
+
+	/**
+	 * @param detailTo new value when the detail is a change from detail, or
+	 *                 null
+	 */
+	AuditEvent(long timestampMillis, AuditEventType type, String branchId, String isbn, String patronId,
+			Object detail, Object detailTo) {
+		this.timestampMillis = timestampMillis;
+		this.type = type;
+		this.branchId = branchId;
+		this.isbn = isbn;
+		this.patronId = patronId;
+		this.detail = detail;
+		this.detailTo = detailTo;
+	}
+
+	public long getTimestampMillis() {
+		return timestampMillis;
+	}
+
+	public AuditEventType getType() {
+		return type;
+	}
+
+	public String getBranchId() {
+		return branchId;
+	}
+
+	public String getIsbn() {
+		return isbn;
+	}
+
+	public String getPatronId() {
+		return patronId;
+	}
+
+	public String getDetail() {
+		if (detailTo != null) {
+			return detail + "->" + detailTo;
+		}
+		return detail != null ? detail.toString() : null;
+	}
+
+	/**
+	 * One-line JSON object, omitting null fields
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder(96);
+		json.append("{\"ts\":").append(timestampMillis).append(",\"type\":\"").append(type.name()).append('"');
+		appendField(json, "branch", branchId);
+		appendField(json, "isbn", isbn);
+		appendField(json, "patron", patronId);
+		appendField(json, "detail", getDetail());
+		return json.append('}').toString();
+	}
+
+	private static void appendField(StringBuilder json, String name, String value) {
+		if (value == null) {
+			return;
+		}
+		json.append(",\"").append(name).append("\":\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+		json.append('"');
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+}
@@ -0,0 +1,10 @@
+package com.library.audit;
+
+/**
+ * Kinds of audited library operations
+ */
+public enum AuditEventType {
+	BOOK_STATUS_CHANGED, BOOK_ADDED, BOOKS_BULK_LOADED, BOOK_UPDATED, BOOK_REMOVED, COPY_ADDED, COPY_REMOVED, PATRON_ADDED,
+	PATRON_UPDATED, CHECKOUT, CHECKOUT_UNDONE, RETURN, RETURN_UNDONE, RESERVATION_PLACED, RESERVATION_CANCELLED,
+	HELD_FOR_PICKUP
+}
@@ -0,0 +1,234 @@
+package com.library.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Structured audit channel for hot-path operations. Recording allocates one
+ * event and claims a ring slot with a CAS; it never blocks or formats text.
+ * A background thread drains the ring and appends JSON lines to the audit
+ * file, or to this class's logger at INFO when no file is given. When the
+ * ring is full events are dropped and counted. The shared instance writes
+ * to the file named by -Dlibrary.audit.file, to the application log when
+ * the property is unset, and is disabled by -Dlibrary.audit.file=off
+ */
+public class AuditLog {
+	private static final Logger logger = Logger.getLogger(AuditLog.class.getName());
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+	private static final Duration DRAIN_INTERVAL = Duration.ofMillis(20);
+	private static final String OFF = "off";
+
+	private final AuditRingBuffer ring;
+	private final Writer writer; // null when writing to the logger
+	private final ScheduledExecutorService worker;
+	private volatile boolean enabled;
+
+	// Metrics
+	private final LongAdder recorded = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder written = new LongAdder();
+
+	private AuditLog() {
+		this.ring = null;
+		this.writer = null;
+		this.worker = null;
+		this.enabled = false;
+	}
+
+	public AuditLog(Path file) {
+		this(file, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity ring size, a power of two
+	 */
+	public AuditLog(Path file, int capacity) {
+		this(openFile(file), capacity);
+		logger.info("Audit log writing to " + file);
+	}
+
+	/**
+	 * Audit log writing each event to this class's logger at INFO
+	 *
+	 * @param capacity ring size, a power of two
+	 */
+	public AuditLog(int capacity) {
+		this((Writer) null, capacity);
+	}
+
+	private AuditLog(Writer writer, int capacity) {
+		this.ring = new AuditRingBuffer(capacity);
+		this.writer = writer;
+		this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "audit-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		worker.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL.toMillis(), DRAIN_INTERVAL.toMillis(),
+				TimeUnit.MILLISECONDS);
+		this.enabled = true;
+	}
+
+	/**
+	 * Audit log that discards every event
+	 */
+	public static AuditLog disabled() {
+		return new AuditLog();
+	}
+
+	public static AuditLog getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Record an event without blocking; pass null for fields that do not apply
+	 */
+	public void record(AuditEventType type, String branchId, String isbn, String patronId, String detail) {
+		if (enabled) {
+			offer(new AuditEvent(System.currentTimeMillis(), type, branchId, isbn, patronId, detail, null));
+		}
+	}
+
+	/**
+	 * Record an event with a numeric detail, boxed only when audit is on
+	 */
+	public void record(AuditEventType type, String branchId, String isbn, String patronId, long detail) {
+		if (enabled) {
+			offer(new AuditEvent(System.currentTimeMillis(), type, branchId, isbn, patronId, detail, null));
+		}
+	}
+
+	/**
+	 * Record a change; the detail "from->to" is formatted by the writer
+	 * thread
+	 */
+	public void recordChange(AuditEventType type, String branchId, String isbn, String patronId, Object from,
+			Object to) {
+		if (enabled) {
+			offer(new AuditEvent(System.currentTimeMillis(), type, branchId, isbn, patronId, from, to));
+		}
+	}
+
+	/**
+	 * Write everything recorded so far and wait for it
+	 */
+	public void flush() {
+		if (worker == null) {
+			return;
+		}
+		try {
+			worker.submit(this::drain).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.warning("Audit flush failed: " + e.getCause());
+		}
+	}
+
+	public void shutdown() {
+		if (worker == null) {
+			return;
+		}
+		enabled = false;
+		flush();
+		worker.shutdown();
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.close();
+		} catch (IOException e) {
+			logger.warning("Closing audit file failed: " + e);
+		}
+	}
+
+	public long getRecordedCount() {
+		return recorded.sum();
+	}
+
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	public long getWrittenCount() {
+		return written.sum();
+	}
+
+	public int getCapacity() {
+		return ring != null ? ring.capacity() : 0;
+	}
+
+	private void offer(AuditEvent event) {
+		if (ring.offer(event)) {
+			recorded.increment();
+		} else {
+			dropped.increment();
+		}
+	}
+
+	private void drain() {
+		try {
+			int count = 0;
+			AuditEvent event;
+			while ((event = ring.poll()) != null) {
+				if (writer != null) {
+					writer.write(event.toJson());
+					writer.write('\n');
+				} else {
+					logger.info(event.toJson());
+				}
+				count++;
+			}
+			if (count > 0) {
+				if (writer != null) {
+					writer.flush();
+				}
+				written.add(count);
+			}
+		} catch (IOException e) {
+			logger.warning("Writing audit events failed: " + e);
+		}
+	}
+
+	private static Writer openFile(Path file) {
+		try {
+			return new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot open audit file " + file, e);
+		}
+	}
+
+	/**
+	 * Created on first use without locking the callers that follow
+	 */
+	private static final class Holder {
+		static final AuditLog INSTANCE = create();
+
+		private static AuditLog create() {
+			String file = System.getProperty("library.audit.file");
+			if (OFF.equalsIgnoreCase(file)) {
+				return disabled();
+			}
+			return file != null && !file.isEmpty() ? new AuditLog(Paths.get(file)) : new AuditLog(DEFAULT_CAPACITY);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.library.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer ring. Each slot carries a
+ * sequence number: producers claim a position with one CAS and publish by
+ * advancing the slot's sequence, so offer never blocks and fails fast when
+ * the ring is full
+ */
+final class AuditRingBuffer {
+	private final AtomicReferenceArray<AuditEvent> slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail; // next position to claim
+	private final int mask;
+	private long head; // consumer only
+
+	AuditRingBuffer(int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of two");
+		}
+		this.slots = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+		this.tail = new AtomicLong();
+		this.mask = capacity - 1;
+	}
+
+	boolean offer(AuditEvent event) {
+		long position;
+		int slot;
+		while (true) {
+			position = tail.get();
+			slot = (int) position & mask;
+			long lag = sequences.get(slot) - position;
+			if (lag == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+			} else if (lag < 0) {
+				return false; // the consumer has not freed this slot yet
+			}
+		}
+		slots.set(slot, event);
+		sequences.set(slot, position + 1);
+		return true;
+	}
+
+	/**
+	 * Next published event, or null if none is ready
+	 */
+	AuditEvent poll() {
+		int slot = (int) head & mask;
+		if (sequences.get(slot) != head + 1) {
+			return null;
+		}
+		AuditEvent event = slots.get(slot);
+		slots.set(slot, null);
+		sequences.set(slot, head + mask + 1);
+		head++;
+		return event;
+	}
+
+	int capacity() {
+		return mask + 1;
+	}
+}
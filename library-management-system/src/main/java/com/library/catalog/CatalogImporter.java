@@ -0,0 +1,428 @@
+package com.library.catalog;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import com.library.core.LibraryBranch;
+import com.library.model.Book;
+
+/**
+ * Bulk catalog importer. The file is split at record boundaries into chunks
+ * that are memory-mapped and parsed in parallel, with at most two chunks per
+ * thread in flight. Parsed chunks are consumed in file order, ISBNs are
+ * deduplicated (first record wins, with ISBN-10 and ISBN-13 spellings
+ * treated as one, also against the ISBNs the branch already holds), and each
+ * chunk's survivors are bulk-loaded into the branch before the next is
+ * taken, so memory is bounded by the chunks in flight plus the ISBN keys
+ * seen. A failure partway leaves the earlier chunks loaded.
+ *
+ * CSV records are one per line: isbn,title,author,year,subjects with
+ * subjects separated by ';'. Fields may be double-quoted, but not span
+ * lines. An optional header line starting with "isbn" is skipped. MARC21
+ * files are ISO 2709 transmission format, reading 020$a, 245$a, 100$a,
+ * 264$c or 260$c (falling back to 008) and 650$a
+ */
+public class CatalogImporter {
+	private static final Logger logger = Logger.getLogger(CatalogImporter.class.getName());
+	private static final long MIN_CHUNK_SIZE = 1L << 20;
+	private static final long MAX_CHUNK_SIZE = 1L << 28;
+	private static final byte MARC_RECORD_TERMINATOR = 0x1D;
+	private static final byte MARC_FIELD_TERMINATOR = 0x1E;
+	private static final byte MARC_SUBFIELD_DELIMITER = 0x1F;
+
+	public enum Format {
+		CSV, MARC21
+	}
+
+	private final int parallelism;
+	private volatile ImportProgress progress;
+
+	public CatalogImporter() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public CatalogImporter(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+		this.progress = new ImportProgress();
+	}
+
+	/**
+	 * Counters of the current or last import
+	 */
+	public ImportProgress getProgress() {
+		return progress;
+	}
+
+	/**
+	 * Parse a file and load every new title into the branch, skipping ISBNs the
+	 * branch already holds
+	 */
+	public ImportProgress importInto(Path file, Format format, LibraryBranch branch) throws IOException {
+		ImportProgress current = new ImportProgress();
+		this.progress = current;
+		Set<Object> seen = new HashSet<>();
+		for (Book book : branch.getAllBooks()) {
+			seen.add(isbnKey(book.getIsbn()));
+		}
+		parse(file, format, current, seen, fresh -> {
+			if (!fresh.isEmpty()) {
+				branch.addBooks(fresh);
+				current.loaded(fresh.size());
+			}
+		});
+		current.finish();
+		logger.info("Imported " + file + " into branch " + branch.getBranchId() + ": " + current);
+		return current;
+	}
+
+	/**
+	 * Parse and deduplicate a file without loading it
+	 */
+	public List<Book> parse(Path file, Format format) throws IOException {
+		ImportProgress current = new ImportProgress();
+		this.progress = current;
+		List<Book> books = new ArrayList<>();
+		parse(file, format, current, new HashSet<>(), books::addAll);
+		current.finish();
+		return books;
+	}
+
+	/**
+	 * Parse the file and hand each chunk's new titles to the sink in file
+	 * order
+	 *
+	 * @param seen ISBN keys already taken; titles with these are duplicates
+	 */
+	private void parse(Path file, Format format, ImportProgress current, Set<Object> seen, Consumer<List<Book>> sink)
+			throws IOException {
+		byte terminator = format == Format.CSV ? (byte) '\n' : MARC_RECORD_TERMINATOR;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			current.start(size);
+			long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4L) + 1));
+
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				Deque<Future<List<Book>>> inFlight = new ArrayDeque<>();
+				long start = 0;
+				while (start < size) {
+					if (inFlight.size() >= parallelism * 2) {
+						sink.accept(deduplicate(inFlight.removeFirst().get(), seen, current));
+					}
+					long end = chunkEnd(channel, start, chunkSize, size, terminator);
+					MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+					boolean first = start == 0;
+					inFlight.addLast(pool.submit(() -> format == Format.CSV ? parseCsv(chunk, first, current)
+							: parseMarc(chunk, current)));
+					start = end;
+				}
+				while (!inFlight.isEmpty()) {
+					sink.accept(deduplicate(inFlight.removeFirst().get(), seen, current));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Catalog import interrupted", e);
+			} catch (ExecutionException e) {
+				throw new IOException("Catalog import failed", e.getCause());
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Titles of a chunk whose ISBN has not been seen; chunks must arrive in
+	 * file order so the first occurrence wins
+	 */
+	private static List<Book> deduplicate(List<Book> chunk, Set<Object> seen, ImportProgress current) {
+		List<Book> fresh = new ArrayList<>(chunk.size());
+		for (Book book : chunk) {
+			if (seen.add(isbnKey(book.getIsbn()))) {
+				fresh.add(book);
+			} else {
+				current.duplicate();
+			}
+		}
+		return fresh;
+	}
+
+	/**
+	 * ISBN-13 long for a valid ISBN in either spelling, else the string itself
+	 */
+	private static Object isbnKey(String isbn) {
+		long key = Isbn13.tryParse(isbn);
+		return key >= 0 ? (Object) key : isbn;
+	}
+
+	/**
+	 * End of the chunk starting at start: just past the first record
+	 * terminator at or after start + chunkSize, or the end of the file
+	 */
+	private static long chunkEnd(FileChannel channel, long start, long chunkSize, long size, byte terminator)
+			throws IOException {
+		long position = start + chunkSize;
+		if (position >= size) {
+			return size;
+		}
+		MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+				Math.min(MIN_CHUNK_SIZE, size - position));
+		while (window.hasRemaining()) {
+			if (window.get() == terminator) {
+				return position + window.position();
+			}
+		}
+		long next = position + window.limit();
+		return next >= size ? size : chunkEnd(channel, next, 0, size, terminator);
+	}
+
+	// CSV
+
+	private static List<Book> parseCsv(MappedByteBuffer chunk, boolean firstChunk, ImportProgress progress) {
+		List<Book> books = new ArrayList<>();
+		int limit = chunk.limit();
+		int lineStart = 0;
+		boolean headerChecked = !firstChunk;
+		for (int i = 0; i <= limit; i++) {
+			if (i < limit && chunk.get(i) != '\n') {
+				continue;
+			}
+			int lineEnd = i > lineStart && chunk.get(i - 1) == '\r' ? i - 1 : i;
+			if (lineEnd > lineStart) {
+				String line = decode(chunk, lineStart, lineEnd);
+				if (!headerChecked && line.regionMatches(true, 0, "isbn", 0, 4)) {
+					headerChecked = true;
+				} else {
+					headerChecked = true;
+					addCsvRecord(books, line, progress);
+				}
+			}
+			lineStart = i + 1;
+		}
+		progress.chunkParsed(limit);
+		return books;
+	}
+
+	private static void addCsvRecord(List<Book> books, String line, ImportProgress progress) {
+		progress.recordParsed();
+		List<String> fields = splitCsv(line);
+		try {
+			if (fields.size() < 2) {
+				throw new IllegalArgumentException("Expected at least isbn and title");
+			}
+			String author = field(fields, 2);
+			String year = field(fields, 3);
+			String subjects = field(fields, 4);
+			books.add(new Book(fields.get(0).trim(), fields.get(1).trim(), author,
+					year == null ? 0 : Integer.parseInt(year), subjects == null ? List.of() : splitSubjects(subjects)));
+		} catch (IllegalArgumentException e) {
+			progress.recordRejected();
+			logger.fine(() -> "Rejected catalog record '" + line + "': " + e.getMessage());
+		}
+	}
+
+	private static List<String> splitCsv(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private static String field(List<String> fields, int index) {
+		if (index >= fields.size()) {
+			return null;
+		}
+		String value = fields.get(index).trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	private static List<String> splitSubjects(String subjects) {
+		List<String> result = new ArrayList<>();
+		for (String subject : subjects.split(";")) {
+			if (!subject.trim().isEmpty()) {
+				result.add(subject.trim());
+			}
+		}
+		return result;
+	}
+
+	// MARC21
+
+	private static List<Book> parseMarc(MappedByteBuffer chunk, ImportProgress progress) {
+		List<Book> books = new ArrayList<>();
+		int limit = chunk.limit();
+		int recordStart = 0;
+		for (int i = 0; i < limit; i++) {
+			if (chunk.get(i) == MARC_RECORD_TERMINATOR) {
+				addMarcRecord(books, chunk, recordStart, i, progress);
+				recordStart = i + 1;
+			}
+		}
+		progress.chunkParsed(limit);
+		return books;
+	}
+
+	private static void addMarcRecord(List<Book> books, MappedByteBuffer chunk, int recordStart, int end,
+			ImportProgress progress) {
+		// Skip stray line breaks some exporters put between records
+		int skipped = recordStart;
+		while (skipped < end && (chunk.get(skipped) == '\n' || chunk.get(skipped) == '\r')) {
+			skipped++;
+		}
+		int start = skipped;
+		if (start == end) {
+			return;
+		}
+		progress.recordParsed();
+		try {
+			if (end - start < 24) {
+				throw new IllegalArgumentException("Record shorter than its leader");
+			}
+			int baseAddress = Integer.parseInt(decode(chunk, start + 12, start + 17));
+			String isbn = null;
+			String title = null;
+			String author = null;
+			String year = null;
+			String fixedYear = null;
+			List<String> subjects = new ArrayList<>();
+
+			for (int entry = start + 24; entry + 12 <= end && chunk.get(entry) != MARC_FIELD_TERMINATOR; entry += 12) {
+				String tag = decode(chunk, entry, entry + 3);
+				int length = Integer.parseInt(decode(chunk, entry + 3, entry + 7));
+				int fieldStart = start + baseAddress + Integer.parseInt(decode(chunk, entry + 7, entry + 12));
+				int fieldEnd = Math.min(fieldStart + length, end);
+				if (fieldEnd > fieldStart && chunk.get(fieldEnd - 1) == MARC_FIELD_TERMINATOR) {
+					fieldEnd--;
+				}
+				switch (tag) {
+				case "008":
+					if (fieldEnd - fieldStart >= 11) {
+						fixedYear = decode(chunk, fieldStart + 7, fieldStart + 11);
+					}
+					break;
+				case "020":
+					if (isbn == null) {
+						isbn = firstToken(subfield(chunk, fieldStart, fieldEnd, 'a'));
+					}
+					break;
+				case "100":
+					author = trimPunctuation(subfield(chunk, fieldStart, fieldEnd, 'a'));
+					break;
+				case "245":
+					title = trimPunctuation(subfield(chunk, fieldStart, fieldEnd, 'a'));
+					break;
+				case "260":
+				case "264":
+					if (year == null) {
+						year = firstYear(subfield(chunk, fieldStart, fieldEnd, 'c'));
+					}
+					break;
+				case "650":
+					String subject = trimPunctuation(subfield(chunk, fieldStart, fieldEnd, 'a'));
+					if (subject != null) {
+						subjects.add(subject);
+					}
+					break;
+				default:
+					break;
+				}
+			}
+
+			String publicationYear = year != null ? year : firstYear(fixedYear);
+			books.add(new Book(isbn, title, author, publicationYear == null ? 0 : Integer.parseInt(publicationYear),
+					subjects));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			progress.recordRejected();
+			logger.fine(() -> "Rejected MARC record at offset " + start + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * First subfield with the code in a data field (after its two indicators)
+	 */
+	private static String subfield(MappedByteBuffer chunk, int fieldStart, int fieldEnd, char code) {
+		for (int i = fieldStart + 2; i < fieldEnd - 1; i++) {
+			if (chunk.get(i) == MARC_SUBFIELD_DELIMITER && chunk.get(i + 1) == code) {
+				int valueEnd = i + 2;
+				while (valueEnd < fieldEnd && chunk.get(valueEnd) != MARC_SUBFIELD_DELIMITER) {
+					valueEnd++;
+				}
+				return decode(chunk, i + 2, valueEnd);
+			}
+		}
+		return null;
+	}
+
+	private static String firstToken(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return null;
+		}
+		return value.trim().split("\\s+")[0];
+	}
+
+	private static String trimPunctuation(String value) {
+		if (value == null) {
+			return null;
+		}
+		String trimmed = value.trim().replaceAll("[\\s/:;,.]+$", "");
+		return trimmed.isEmpty() ? null : trimmed;
+	}
+
+	private static String firstYear(String value) {
+		if (value == null) {
+			return null;
+		}
+		for (int i = 0; i + 4 <= value.length(); i++) {
+			if (Character.isDigit(value.charAt(i)) && Character.isDigit(value.charAt(i + 1))
+					&& Character.isDigit(value.charAt(i + 2)) && Character.isDigit(value.charAt(i + 3))) {
+				return value.substring(i, i + 4);
+			}
+		}
+		return null;
+	}
+
+	private static String decode(MappedByteBuffer chunk, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		chunk.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,262 @@
+package com.library.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.library.index.LongHashMap;
+import com.library.model.Book;
+import com.library.search.SearchStrategyFactory;
+import com.library.search.SearchType;
+
+/**
+ * System-wide bibliographic index: ISBN to book metadata, plus author and
+ * subject postings listing the ISBNs for each. Records outlive branch
+ * inventory changes so borrowing history can always be resolved. In compact
+ * mode valid ISBNs are keyed by their ISBN-13 long; ISBNs that do not parse
+ * fall back to the string-keyed map. The long-keyed records are split
+ * across lock stripes by key, so concurrent lookups of different ISBNs
+ * rarely contend. Start the shared instance in compact mode with
+ * -Dlibrary.catalog.compact=true, and back it with an off-heap store file
+ * with -Dlibrary.catalog.store=/path/to/catalog.lmsc
+ */
+public class CatalogIndex {
+	private static final int STRIPE_BITS = 4;
+	private static final int STRIPES = 1 << STRIPE_BITS;
+	private static CatalogIndex instance;
+
+	private final boolean compact;
+	private final Map<String, Book> booksByIsbn;
+	private final List<LongHashMap<Book>> booksByIsbnKey; // compact mode, each stripe guarded by itself
+	private final Map<String, Set<String>> isbnsByAuthor; // normalized author -> ISBNs
+	private final Map<String, Set<String>> isbnsBySubject; // normalized subject -> ISBNs
+	private volatile MappedCatalogStore store; // off-heap records consulted on a miss
+
+	public CatalogIndex() {
+		this(false);
+	}
+
+	private CatalogIndex(boolean compact) {
+		this.compact = compact;
+		this.booksByIsbn = new ConcurrentHashMap<>();
+		this.booksByIsbnKey = new ArrayList<>(compact ? STRIPES : 0);
+		for (int i = 0; compact && i < STRIPES; i++) {
+			booksByIsbnKey.add(new LongHashMap<>());
+		}
+		this.isbnsByAuthor = new ConcurrentHashMap<>();
+		this.isbnsBySubject = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Index keyed by primitive ISBN-13 longs
+	 */
+	public static CatalogIndex compact() {
+		return new CatalogIndex(true);
+	}
+
+	public static synchronized CatalogIndex getInstance() {
+		if (instance == null) {
+			instance = configured();
+		}
+		return instance;
+	}
+
+	/**
+	 * New index set up from the library.catalog.compact and
+	 * library.catalog.store system properties. The store stays open for the
+	 * life of the index
+	 */
+	static CatalogIndex configured() {
+		CatalogIndex index = new CatalogIndex(Boolean.getBoolean("library.catalog.compact"));
+		String storePath = System.getProperty("library.catalog.store");
+		if (storePath != null && !storePath.isBlank()) {
+			try {
+				index.attachStore(MappedCatalogStore.open(Path.of(storePath)));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to open catalog store " + storePath, e);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Add or replace the record for a book and refresh its postings
+	 */
+	public void register(Book book) {
+		Book previous = put(book);
+		if (previous != null) {
+			removePostings(previous);
+		}
+		addPosting(isbnsByAuthor, book.getAuthor(), book.getIsbn());
+		for (String subject : book.getSubjects()) {
+			addPosting(isbnsBySubject, subject, book.getIsbn());
+		}
+	}
+
+	public Book getBook(String isbn) {
+		Book book = getRegisteredBook(isbn);
+		MappedCatalogStore backing = store;
+		return book == null && backing != null ? backing.getBook(isbn) : book;
+	}
+
+	/**
+	 * Serve titles that were never registered on the heap from an off-heap
+	 * store, such as a union catalog too large to load
+	 */
+	public void attachStore(MappedCatalogStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Search the whole catalog, registered titles first and then attached
+	 * store records that were never registered on the heap
+	 */
+	public List<Book> search(SearchType searchType, String query) {
+		if (searchType == SearchType.ISBN) {
+			Book book = getBook(query);
+			return book != null ? List.of(book) : List.of();
+		}
+		List<Book> results = new ArrayList<>(
+				SearchStrategyFactory.createStrategy(searchType).search(getRegisteredBooks(), query));
+		MappedCatalogStore backing = store;
+		if (backing != null) {
+			for (Book book : SearchStrategyFactory.createStrategy(searchType).search(backing.books(), query)) {
+				if (getRegisteredBook(book.getIsbn()) == null) {
+					results.add(book);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Every title in the catalog, registered books followed by attached store
+	 * records as flyweight views, e.g. as the candidate pool for a
+	 * recommendation engine. Store records also registered on the heap
+	 * appear twice
+	 */
+	public List<Book> getBooks() {
+		List<Book> registered = getRegisteredBooks();
+		MappedCatalogStore backing = store;
+		List<Book> stored = backing != null ? backing.books() : List.of();
+		return new AbstractList<Book>() {
+			@Override
+			public Book get(int i) {
+				return i < registered.size() ? registered.get(i) : stored.get(i - registered.size());
+			}
+
+			@Override
+			public int size() {
+				return registered.size() + stored.size();
+			}
+		};
+	}
+
+	public boolean isCompact() {
+		return compact;
+	}
+
+	public Set<String> getIsbnsByAuthor(String author) {
+		return postings(isbnsByAuthor, author);
+	}
+
+	public Set<String> getIsbnsBySubject(String subject) {
+		return postings(isbnsBySubject, subject);
+	}
+
+	public int size() {
+		int size = booksByIsbn.size();
+		for (LongHashMap<Book> stripe : booksByIsbnKey) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	private List<Book> getRegisteredBooks() {
+		List<Book> books = new ArrayList<>(booksByIsbn.values());
+		for (LongHashMap<Book> stripe : booksByIsbnKey) {
+			synchronized (stripe) {
+				books.addAll(stripe.values());
+			}
+		}
+		return books;
+	}
+
+	private Book getRegisteredBook(String isbn) {
+		long key = compact ? Isbn13.tryParse(isbn) : -1;
+		if (key < 0) {
+			return booksByIsbn.get(isbn);
+		}
+		LongHashMap<Book> stripe = stripeOf(key);
+		synchronized (stripe) {
+			return stripe.get(key);
+		}
+	}
+
+	private Book put(Book book) {
+		long key = compact ? Isbn13.tryParse(book.getIsbn()) : -1;
+		if (key < 0) {
+			return booksByIsbn.put(book.getIsbn(), book);
+		}
+		LongHashMap<Book> stripe = stripeOf(key);
+		synchronized (stripe) {
+			return stripe.put(key, book);
+		}
+	}
+
+	/**
+	 * Stripe chosen by the top bits of a mixed key; LongHashMap probes by the
+	 * low bits, so keys sharing a stripe still spread across its slots
+	 */
+	private LongHashMap<Book> stripeOf(long key) {
+		return booksByIsbnKey.get((int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - STRIPE_BITS)));
+	}
+
+	private void removePostings(Book book) {
+		removePosting(isbnsByAuthor, book.getAuthor(), book.getIsbn());
+		List<String> subjects = book.getSubjects();
+		for (String subject : subjects) {
+			removePosting(isbnsBySubject, subject, book.getIsbn());
+		}
+	}
+
+	private static void addPosting(Map<String, Set<String>> index, String term, String isbn) {
+		String key = normalize(term);
+		if (key != null) {
+			index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(isbn);
+		}
+	}
+
+	private static void removePosting(Map<String, Set<String>> index, String term, String isbn) {
+		String key = normalize(term);
+		if (key != null) {
+			index.computeIfPresent(key, (k, isbns) -> {
+				isbns.remove(isbn);
+				return isbns.isEmpty() ? null : isbns;
+			});
+		}
+	}
+
+	private static Set<String> postings(Map<String, Set<String>> index, String term) {
+		String key = normalize(term);
+		Set<String> isbns = key != null ? index.get(key) : null;
+		return isbns != null ? Collections.unmodifiableSet(isbns) : Collections.emptySet();
+	}
+
+	static String normalize(String term) {
+		if (term == null || term.trim().isEmpty()) {
+			return null;
+		}
+		return term.trim().toLowerCase(Locale.ROOT);
+	}
+}
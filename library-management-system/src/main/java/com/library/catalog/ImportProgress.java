@@ -0,0 +1,88 @@
+package com.library.catalog;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters for a catalog import; safe to read from another thread while
+ * the import runs
+ */
+public class ImportProgress {
+	private final AtomicLong bytesTotal = new AtomicLong();
+	private final AtomicLong bytesParsed = new AtomicLong();
+	private final AtomicLong recordsParsed = new AtomicLong();
+	private final AtomicLong recordsRejected = new AtomicLong();
+	private final AtomicLong duplicates = new AtomicLong();
+	private final AtomicLong booksLoaded = new AtomicLong();
+	private volatile boolean finished;
+
+	void start(long totalBytes) {
+		bytesTotal.set(totalBytes);
+	}
+
+	void chunkParsed(long bytes) {
+		bytesParsed.addAndGet(bytes);
+	}
+
+	void recordParsed() {
+		recordsParsed.incrementAndGet();
+	}
+
+	void recordRejected() {
+		recordsRejected.incrementAndGet();
+	}
+
+	void duplicate() {
+		duplicates.incrementAndGet();
+	}
+
+	void loaded(int count) {
+		booksLoaded.addAndGet(count);
+	}
+
+	void finish() {
+		finished = true;
+	}
+
+	public long getBytesTotal() {
+		return bytesTotal.get();
+	}
+
+	public long getBytesParsed() {
+		return bytesParsed.get();
+	}
+
+	/**
+	 * Share of the file parsed so far, from 0 to 1
+	 */
+	public double getFractionParsed() {
+		long total = bytesTotal.get();
+		return total == 0 ? (finished ? 1.0 : 0.0) : (double) bytesParsed.get() / total;
+	}
+
+	public long getRecordsParsed() {
+		return recordsParsed.get();
+	}
+
+	public long getRecordsRejected() {
+		return recordsRejected.get();
+	}
+
+	public long getDuplicates() {
+		return duplicates.get();
+	}
+
+	public long getBooksLoaded() {
+		return booksLoaded.get();
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public String toString() {
+		return "ImportProgress [bytesParsed=" + getBytesParsed() + "/" + getBytesTotal() + ", recordsParsed="
+				+ getRecordsParsed() + ", recordsRejected=" + getRecordsRejected() + ", duplicates=" + getDuplicates()
+				+ ", booksLoaded=" + getBooksLoaded() + ", finished=" + finished + "]";
+	}
+}
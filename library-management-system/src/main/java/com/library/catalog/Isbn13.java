@@ -0,0 +1,119 @@
+package com.library.catalog;
+
+/**
+ * ISBN-13 encoded as a long. Hyphens and spaces are ignored, check digits are
+ * validated, and ISBN-10s are converted to their 978-prefixed ISBN-13, so
+ * every spelling of the same book maps to one 8-byte key
+ */
+public final class Isbn13 {
+
+	private Isbn13() {
+	}
+
+	/**
+	 * Parse and validate an ISBN-10 or ISBN-13
+	 *
+	 * @throws IllegalArgumentException if the ISBN is malformed or its check
+	 *                                  digit is wrong
+	 */
+	public static long parse(String isbn) {
+		long key = tryParse(isbn);
+		if (key < 0) {
+			throw new IllegalArgumentException("Invalid ISBN: " + isbn);
+		}
+		return key;
+	}
+
+	/**
+	 * Parse and validate an ISBN-10 or ISBN-13, or return -1 if it is not one.
+	 * Reads the string in place without allocating, since compact-mode
+	 * lookups call it on every ISBN
+	 */
+	public static long tryParse(String isbn) {
+		if (isbn == null) {
+			return -1;
+		}
+		int length = 0;
+		for (int i = 0; i < isbn.length(); i++) {
+			if (!isSeparator(isbn.charAt(i)) && ++length > 13) {
+				return -1;
+			}
+		}
+		if (length == 10) {
+			return fromIsbn10(isbn);
+		}
+		if (length != 13) {
+			return -1;
+		}
+
+		long key = 0;
+		int sum = 0;
+		int position = 0;
+		for (int i = 0; i < isbn.length(); i++) {
+			char c = isbn.charAt(i);
+			if (isSeparator(c)) {
+				continue;
+			}
+			int digit = c - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			key = key * 10 + digit;
+			sum += position++ % 2 == 0 ? digit : 3 * digit;
+		}
+		return sum % 10 == 0 ? key : -1;
+	}
+
+	public static boolean isValid(String isbn) {
+		return tryParse(isbn) >= 0;
+	}
+
+	/**
+	 * Unhyphenated 13-digit form of a key
+	 */
+	public static String format(long key) {
+		if (key < 0 || key > 9_999_999_999_999L) {
+			throw new IllegalArgumentException("Not an ISBN-13 key: " + key);
+		}
+		return String.format("%013d", key);
+	}
+
+	/**
+	 * Convert an ISBN-10 known to have ten non-separator characters
+	 */
+	private static long fromIsbn10(String isbn) {
+		// 978 prefix plus the first nine digits, with a recomputed check digit
+		long key = 978;
+		int sum = 0;
+		int sum13 = 9 + 3 * 7 + 8;
+		int position = 0;
+		for (int i = 0; i < isbn.length(); i++) {
+			char c = isbn.charAt(i);
+			if (isSeparator(c)) {
+				continue;
+			}
+			int digit;
+			if (c >= '0' && c <= '9') {
+				digit = c - '0';
+			} else if (position == 9 && (c == 'X' || c == 'x')) {
+				digit = 10;
+			} else {
+				return -1;
+			}
+			sum += (10 - position) * digit;
+			if (position < 9) {
+				key = key * 10 + digit;
+				sum13 += (position + 3) % 2 == 0 ? digit : 3 * digit;
+			}
+			position++;
+		}
+		if (sum % 11 != 0) {
+			return -1;
+		}
+		return key * 10 + (10 - sum13 % 10) % 10;
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == '-' || c == ' ';
+	}
+}
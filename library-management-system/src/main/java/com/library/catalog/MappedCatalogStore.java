@@ -0,0 +1,361 @@
+package com.library.catalog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+import com.library.model.Book;
+
+/**
+ * Off-heap catalog backend: book records live in a memory-mapped file, so the
+ * catalog can outgrow the heap and reopens without a load step. Layout
+ * (big-endian):
+ *
+ * <pre>
+ * header: int magic, int version, int capacity, int count, int slotCount
+ * index:  slotCount x int (record number + 1, 0 = empty), linear probing on the ISBN hash
+ * data:   capacity x 512-byte records with fixed-offset fields
+ *         (isbn 32, title 256, author 128, int year, subjects 88, int seq; strings as short length + UTF-8)
+ * </pre>
+ *
+ * Records are mapped in 512 MB segments. Lookups return flyweight Book views
+ * that decode fields on access; their status and branch are not stored.
+ * Writes are serialized; reads are lock-free and only see fully written
+ * records. Each record carries a sequence that is odd while put rewrites
+ * it, and a read retries until it decodes a field under one even sequence,
+ * so an overwrite in place is never seen half done
+ */
+public class MappedCatalogStore implements Closeable {
+	private static final Logger logger = Logger.getLogger(MappedCatalogStore.class.getName());
+	private static final int MAGIC = 0x4C4D5343; // "LMSC"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 32;
+	private static final int COUNT_OFFSET = 12;
+	private static final int RECORD_SIZE = 512;
+	private static final int RECORDS_PER_SEGMENT = 1 << 20;
+
+	// Field offsets and sizes within a record
+	private static final int ISBN_FIELD = 0;
+	private static final int ISBN_SIZE = 32;
+	private static final int TITLE_FIELD = 32;
+	private static final int TITLE_SIZE = 256;
+	private static final int AUTHOR_FIELD = 288;
+	private static final int AUTHOR_SIZE = 128;
+	private static final int YEAR_FIELD = 416;
+	private static final int SUBJECTS_FIELD = 420;
+	private static final int SUBJECTS_SIZE = 88;
+	private static final int SEQ_FIELD = 508;
+	private static final String SUBJECT_SEPARATOR = "\n";
+	private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	private final Path file;
+	private final MappedByteBuffer index; // header and hash index
+	private final MappedByteBuffer[] segments;
+	private final int capacity;
+	private final int slotMask;
+	private volatile int count;
+
+	private MappedCatalogStore(Path file, FileChannel channel, int capacity, int slotCount, boolean create)
+			throws IOException {
+		this.file = file;
+		this.capacity = capacity;
+		this.slotMask = slotCount - 1;
+		long indexSize = HEADER_SIZE + 4L * slotCount;
+		this.index = channel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+		this.segments = new MappedByteBuffer[(capacity + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT];
+		for (int i = 0; i < segments.length; i++) {
+			int records = Math.min(RECORDS_PER_SEGMENT, capacity - i * RECORDS_PER_SEGMENT);
+			long offset = indexSize + (long) i * RECORDS_PER_SEGMENT * RECORD_SIZE;
+			segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) records * RECORD_SIZE);
+		}
+		if (create) {
+			index.putInt(0, MAGIC);
+			index.putInt(4, VERSION);
+			index.putInt(8, capacity);
+			index.putInt(COUNT_OFFSET, 0);
+			index.putInt(16, slotCount);
+		}
+		this.count = index.getInt(COUNT_OFFSET);
+	}
+
+	/**
+	 * Create an empty store with room for capacity records, replacing any
+	 * existing file
+	 */
+	public static MappedCatalogStore create(Path file, int capacity) throws IOException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		int slotCount = Integer.highestOneBit(Math.max(capacity, 8) - 1) << 2; // load factor at most 1/2
+		if (slotCount <= 0 || slotCount > (Integer.MAX_VALUE - HEADER_SIZE) / 4) {
+			throw new IllegalArgumentException("Capacity too large: " + capacity);
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedCatalogStore store = new MappedCatalogStore(file, channel, capacity, slotCount, true);
+			logger.info("Created catalog store " + file + " with capacity " + capacity);
+			return store;
+		}
+	}
+
+	public static MappedCatalogStore open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt(0) != MAGIC) {
+				throw new IllegalArgumentException("Not a catalog store file: " + file);
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new IllegalArgumentException(
+						"Unsupported catalog store version " + header.getInt(4) + ": " + file);
+			}
+			MappedCatalogStore store = new MappedCatalogStore(file, channel, header.getInt(8), header.getInt(16),
+					false);
+			logger.info("Opened catalog store " + file + " with " + store.count + " records");
+			return store;
+		}
+	}
+
+	/**
+	 * Add a record, or overwrite the record with the same ISBN
+	 */
+	public synchronized void put(Book book) {
+		byte[] isbn = book.getIsbn().getBytes(StandardCharsets.UTF_8);
+		int slot = findSlot(isbn, count);
+		int existing = index.getInt(slotOffset(slot)) - 1;
+		int record = existing >= 0 ? existing : count;
+		if (record >= capacity) {
+			throw new IllegalStateException("Catalog store is full: " + capacity + " records");
+		}
+
+		byte[] title = checkLength(bytes(book.getTitle()), TITLE_SIZE, "Title");
+		byte[] author = checkLength(bytes(book.getAuthor()), AUTHOR_SIZE, "Author");
+		byte[] subjects = checkLength(bytes(String.join(SUBJECT_SEPARATOR, book.getSubjects())), SUBJECTS_SIZE,
+				"Subjects");
+		checkLength(isbn, ISBN_SIZE, "ISBN");
+
+		MappedByteBuffer segment = segment(record);
+		int seqOffset = recordOffset(record) + SEQ_FIELD;
+		int seq = (int) INTS.getVolatile(segment, seqOffset);
+		INTS.setVolatile(segment, seqOffset, seq + 1); // odd: readers retry
+		VarHandle.storeStoreFence();
+		writeString(record, ISBN_FIELD, isbn);
+		writeString(record, TITLE_FIELD, title);
+		writeString(record, AUTHOR_FIELD, author);
+		segment.putInt(recordOffset(record) + YEAR_FIELD, book.getPublicationYear());
+		writeString(record, SUBJECTS_FIELD, subjects);
+		INTS.setRelease(segment, seqOffset, seq + 2);
+
+		if (existing < 0) {
+			index.putInt(slotOffset(slot), record + 1);
+			index.putInt(COUNT_OFFSET, record + 1);
+			count = record + 1; // publishes the record to readers
+		}
+	}
+
+	/**
+	 * Flyweight view of the record for an ISBN, or null
+	 */
+	public Book getBook(String isbn) {
+		int published = count;
+		int record = index.getInt(slotOffset(findSlot(isbn.getBytes(StandardCharsets.UTF_8), published))) - 1;
+		return record >= 0 && record < published ? new BookView(this, record) : null;
+	}
+
+	public boolean contains(String isbn) {
+		return getBook(isbn) != null;
+	}
+
+	/**
+	 * Every record as a list of flyweight views; views are created on access,
+	 * so the list can be handed to search and recommendation code whatever
+	 * the catalog size
+	 */
+	public List<Book> books() {
+		int published = count;
+		return new AbstractList<Book>() {
+			@Override
+			public Book get(int i) {
+				if (i < 0 || i >= published) {
+					throw new IndexOutOfBoundsException("Record " + i + " of " + published);
+				}
+				return new BookView(MappedCatalogStore.this, i);
+			}
+
+			@Override
+			public int size() {
+				return published;
+			}
+		};
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Flush written records to the file
+	 */
+	@Override
+	public synchronized void close() {
+		for (MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+		index.force();
+		logger.info("Closed catalog store " + file + " with " + count + " records");
+	}
+
+	/**
+	 * Slot holding the ISBN, or the empty slot where it would go. Slots
+	 * pointing at unpublished records are treated as empty
+	 */
+	private int findSlot(byte[] isbn, int published) {
+		int slot = hash(isbn) & slotMask;
+		while (true) {
+			int record = index.getInt(slotOffset(slot)) - 1;
+			if (record < 0 || record >= published) {
+				return slot;
+			}
+			if (Arrays.equals(readConsistent(record, offset -> readBytes(record, ISBN_FIELD)), isbn)) {
+				return slot;
+			}
+			slot = (slot + 1) & slotMask;
+		}
+	}
+
+	private static int slotOffset(int slot) {
+		return HEADER_SIZE + 4 * slot;
+	}
+
+	private MappedByteBuffer segment(int record) {
+		return segments[record / RECORDS_PER_SEGMENT];
+	}
+
+	private static int recordOffset(int record) {
+		return (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+	}
+
+	private static byte[] checkLength(byte[] value, int size, String name) {
+		if (value.length > size - 2) {
+			throw new IllegalArgumentException(name + " too long for catalog record (" + value.length + " bytes)");
+		}
+		return value;
+	}
+
+	private void writeString(int record, int field, byte[] value) {
+		MappedByteBuffer segment = segment(record);
+		int offset = recordOffset(record) + field;
+		segment.putShort(offset, (short) value.length);
+		segment.put(offset + 2, value);
+	}
+
+	private byte[] readBytes(int record, int field) {
+		MappedByteBuffer segment = segment(record);
+		int offset = recordOffset(record) + field;
+		byte[] value = new byte[segment.getShort(offset)];
+		segment.get(offset + 2, value);
+		return value;
+	}
+
+	private String readString(int record, int field) {
+		return new String(readConsistent(record, offset -> readBytes(record, field)), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Read part of a record under the record's sequence, retrying while a put
+	 * rewrites it. A read racing a put may decode a torn length and fail;
+	 * that failure is only thrown if the record did not change meanwhile
+	 */
+	private <T> T readConsistent(int record, IntFunction<T> reader) {
+		MappedByteBuffer segment = segment(record);
+		int offset = recordOffset(record);
+		while (true) {
+			int before = (int) INTS.getAcquire(segment, offset + SEQ_FIELD);
+			if ((before & 1) == 0) {
+				T value;
+				try {
+					value = reader.apply(offset);
+				} catch (RuntimeException e) {
+					VarHandle.loadLoadFence();
+					if ((int) INTS.getVolatile(segment, offset + SEQ_FIELD) == before) {
+						throw e;
+					}
+					continue;
+				}
+				VarHandle.loadLoadFence();
+				if ((int) INTS.getVolatile(segment, offset + SEQ_FIELD) == before) {
+					return value;
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int hash(byte[] bytes) {
+		int hash = 0x811C9DC5; // FNV-1a
+		for (byte b : bytes) {
+			hash = (hash ^ (b & 0xFF)) * 0x01000193;
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Book backed by a store record; metadata is decoded on each access and
+	 * nothing but the record number is kept on the heap
+	 */
+	private static final class BookView extends Book {
+		private final MappedCatalogStore store;
+		private final int record;
+
+		BookView(MappedCatalogStore store, int record) {
+			this.store = store;
+			this.record = record;
+		}
+
+		@Override
+		public String getIsbn() {
+			return store.readString(record, ISBN_FIELD);
+		}
+
+		@Override
+		public String getTitle() {
+			return store.readString(record, TITLE_FIELD);
+		}
+
+		@Override
+		public String getAuthor() {
+			String author = store.readString(record, AUTHOR_FIELD);
+			return author.isEmpty() ? null : author;
+		}
+
+		@Override
+		public int getPublicationYear() {
+			return store.readConsistent(record, offset -> store.segment(record).getInt(offset + YEAR_FIELD));
+		}
+
+		@Override
+		public List<String> getSubjects() {
+			String subjects = store.readString(record, SUBJECTS_FIELD);
+			return subjects.isEmpty() ? List.of() : List.of(subjects.split(SUBJECT_SEPARATOR));
+		}
+	}
+}
@@ -0,0 +1,404 @@
+package com.library.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import com.library.core.CopyInventory;
+import com.library.core.LibraryBranch;
+import com.library.core.LibrarySystem;
+import com.library.core.SystemStatistics;
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * One JVM of a branch-partitioned cluster. The node owns a subset of the
+ * consortium's branches in its local LibrarySystem and serves branch-scoped
+ * operations to ClusterRouters over TCP, one thread per connection. Each
+ * operation locks only the branches it touches, always in branch ID order.
+ *
+ * Cross-node transfers are two-phase. DISPATCH takes a copy off the shelf
+ * and keeps it in transit under the router's transfer ID until COMMIT
+ * drops it or ABORT shelves it again. RECEIVE on the destination is
+ * idempotent per transfer ID, so a router may retry it after a lost
+ * response, and RECEIVED tells it whether an earlier attempt took effect.
+ *
+ * Like the branches themselves, in-transit copies and transfer fences are
+ * held in memory, so these guarantees hold only while the nodes involved
+ * stay up. A restarted node comes back with empty branches and no record
+ * of the transfers it took part in; its holdings have to be loaded again.
+ *
+ * Run several on one machine with, for example:
+ *
+ * <pre>
+ * java com.library.cluster.ClusterNode 7001 B1:Downtown B2:Uptown
+ * java com.library.cluster.ClusterNode 7002 B3:Harbor
+ * </pre>
+ */
+public class ClusterNode {
+	private static final Logger logger = Logger.getLogger(ClusterNode.class.getName());
+	private static final int RECEIVED_TRANSFERS_REMEMBERED = 100_000;
+
+	private final LibrarySystem system;
+	private final ServerSocket serverSocket;
+	private final ExecutorService connections;
+	private final Map<String, InTransit> inTransit; // TransferId -> copy dispatched from here
+	private final Map<String, Settlement> settledTransfers; // TransferId -> outcome here, oldest first
+	private volatile boolean running;
+
+	/**
+	 * @param port TCP port, or 0 for any free port
+	 */
+	public ClusterNode(int port, List<LibraryBranch> branches) throws IOException {
+		this.system = LibrarySystem.getInstance();
+		this.inTransit = new ConcurrentHashMap<>();
+		this.settledTransfers = new LinkedHashMap<>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Settlement> eldest) {
+				return size() > RECEIVED_TRANSFERS_REMEMBERED;
+			}
+		};
+		for (LibraryBranch branch : branches) {
+			system.addBranch(branch);
+		}
+		this.serverSocket = new ServerSocket();
+		serverSocket.bind(new InetSocketAddress(port));
+		this.connections = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "cluster-connection");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: ClusterNode <port> <branchId>[:<name>]...");
+			System.exit(1);
+		}
+		List<LibraryBranch> branches = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			String[] parts = args[i].split(":", 2);
+			branches.add(new LibraryBranch(parts[0], parts.length > 1 ? parts[1] : parts[0], ""));
+		}
+		ClusterNode node = new ClusterNode(Integer.parseInt(args[0]), branches);
+		Runtime.getRuntime().addShutdownHook(new Thread(node::stop));
+		node.serve();
+	}
+
+	/**
+	 * Accept connections on a background thread
+	 */
+	public void start() {
+		Thread acceptor = new Thread(this::serve, "cluster-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Accept connections on the calling thread until stopped
+	 */
+	public void serve() {
+		running = true;
+		logger.info("Cluster node listening on port " + getPort() + " with branches " + branchIds());
+		while (running) {
+			try {
+				Socket socket = serverSocket.accept();
+				connections.execute(() -> handle(socket));
+			} catch (IOException e) {
+				if (running) {
+					logger.warning("Accept failed: " + e);
+				}
+			}
+		}
+	}
+
+	public void stop() {
+		running = false;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			logger.warning("Closing cluster node failed: " + e);
+		}
+		connections.shutdownNow();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	private void handle(Socket socket) {
+		try (socket;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+			while (true) {
+				String op = in.readUTF();
+				List<String> args = ClusterProtocol.readStrings(in);
+				List<String> result;
+				try {
+					result = dispatch(op, args);
+				} catch (RuntimeException e) {
+					ClusterProtocol.writeError(out, e);
+					continue;
+				}
+				ClusterProtocol.writeResult(out, result);
+			}
+		} catch (EOFException | SocketException e) {
+			// Router disconnected
+		} catch (IOException e) {
+			logger.warning("Cluster connection failed: " + e);
+		}
+	}
+
+	private List<String> dispatch(String op, List<String> args) {
+		switch (op) {
+		case ClusterProtocol.BRANCHES:
+			return branchIds();
+		case ClusterProtocol.ADD_BOOK:
+			return withBranch(args.get(0), branch -> {
+				branch.addBook(ClusterProtocol.newBook(args, 1));
+				return List.of();
+			});
+		case ClusterProtocol.ADD_COPY:
+			return withBranch(args.get(0), branch -> {
+				branch.addCopy(args.get(1), Long.parseLong(args.get(2)));
+				return List.of();
+			});
+		case ClusterProtocol.ADD_PATRON:
+			return withBranch(args.get(0), branch -> {
+				branch.addPatron(new Patron(args.get(1), args.get(2), args.get(3)));
+				return List.of();
+			});
+		case ClusterProtocol.GET_BOOK:
+			return withBranch(args.get(0), branch -> {
+				Book book = branch.getBook(args.get(1));
+				return book != null ? ClusterProtocol.encodeBook(book) : List.of();
+			});
+		case ClusterProtocol.CHECKOUT:
+			return withBranch(args.get(0),
+					branch -> List.of(branch.checkoutBook(args.get(1), args.get(2)).getTransactionId()));
+		case ClusterProtocol.RETURN: {
+			// A return may be routed to a consortium hold at another branch
+			List<String> branchIds = system.hasHolds(args.get(1)) ? branchIds() : List.of(args.get(0));
+			return withBranches(branchIds,
+					() -> List.of(system.getBranch(args.get(0)).returnBook(args.get(1), args.get(2))
+							.getTransactionId()));
+		}
+		case ClusterProtocol.RESERVE:
+			return withBranch(args.get(0), branch -> {
+				branch.reserveBook(args.get(1), args.get(2));
+				return List.of();
+			});
+		case ClusterProtocol.TRANSFER:
+			return withBranches(List.of(args.get(1), args.get(2)), () -> {
+				system.transferBook(args.get(0), args.get(1), args.get(2));
+				return List.of();
+			});
+		case ClusterProtocol.DISPATCH:
+			return dispatchCopy(args.get(0), args.get(1), args.get(2));
+		case ClusterProtocol.RECEIVE:
+			return receiveCopy(args);
+		case ClusterProtocol.RECEIVED:
+			return List.of(Boolean.toString(settlementOf(args.get(0)) == Settlement.RECEIVED));
+		case ClusterProtocol.COMMIT:
+			synchronized (settledTransfers) {
+				if (inTransit.remove(args.get(0)) != null) {
+					settledTransfers.put(args.get(0), Settlement.COMMITTED);
+				}
+			}
+			return List.of();
+		case ClusterProtocol.ABORT:
+			return abortTransfer(args.get(0));
+		case ClusterProtocol.FIND: {
+			List<String> result = new ArrayList<>();
+			for (String branchId : system.getLocationIndex().getBranchIds(args.get(0))) {
+				result.addAll(withBranch(branchId, branch -> {
+					Book book = branch.getBook(args.get(0));
+					return book != null ? ClusterProtocol.encodeBook(book) : List.<String>of();
+				}));
+			}
+			return result;
+		}
+		case ClusterProtocol.STATS: {
+			int[] totals = new int[5];
+			for (LibraryBranch branch : system.getAllBranches()) {
+				synchronized (branch) {
+					totals[0]++;
+					totals[1] += branch.getAllBooks().size();
+					totals[2] += branch.getAvailableBooks().size();
+					totals[3] += branch.getAllPatrons().size();
+					totals[4] += branch.getTransactions().size();
+				}
+			}
+			SystemStatistics stats = new SystemStatistics(totals[0], totals[1], totals[2], totals[3], totals[4]);
+			return List.of(Integer.toString(stats.getTotalBranches()), Integer.toString(stats.getTotalBooks()),
+					Integer.toString(stats.getAvailableBooks()), Integer.toString(stats.getTotalPatrons()),
+					Integer.toString(stats.getTotalTransactions()));
+		}
+		default:
+			throw new IllegalArgumentException("Unknown cluster operation: " + op);
+		}
+	}
+
+	/**
+	 * Take a copy off the shelf into transit; repeating a transfer ID returns
+	 * the copy already dispatched for it, and an aborted ID is refused
+	 */
+	private List<String> dispatchCopy(String isbn, String fromBranchId, String transferId) {
+		return withBranch(fromBranchId, branch -> {
+			synchronized (settledTransfers) {
+				InTransit existing = inTransit.get(transferId);
+				if (existing != null) {
+					return existing.encode();
+				}
+				if (settledTransfers.containsKey(transferId)) {
+					throw new IllegalStateException("Transfer " + transferId + " was already settled");
+				}
+				Book book = branch.getBook(isbn); // Gone from the branch once its last copy leaves
+				CopyInventory.CopyInfo copy = system.dispatchCopy(isbn, fromBranchId);
+				InTransit dispatched = new InTransit(fromBranchId, ClusterProtocol.encodeBook(book), copy);
+				inTransit.put(transferId, dispatched);
+				return dispatched.encode();
+			}
+		});
+	}
+
+	/**
+	 * Shelve a transferred copy once per transfer ID. The settlement lock is
+	 * held while shelving so an ABORT fencing the same ID either sees the
+	 * copy received or stops it
+	 */
+	private List<String> receiveCopy(List<String> args) {
+		String toBranchId = args.get(0);
+		String transferId = args.get(1);
+		return withBranch(toBranchId, branch -> {
+			synchronized (settledTransfers) {
+				Settlement settlement = settledTransfers.get(transferId);
+				if (settlement == Settlement.RECEIVED) {
+					return List.of();
+				}
+				if (settlement != null) {
+					throw new IllegalStateException("Transfer " + transferId + " was already settled");
+				}
+				system.receiveCopy(ClusterProtocol.newBook(args, 4), Long.parseLong(args.get(2)), args.get(3),
+						toBranchId);
+				settledTransfers.put(transferId, Settlement.RECEIVED);
+			}
+			return List.of();
+		});
+	}
+
+	/**
+	 * Shelve an in-transit copy back at its source. Aborting an ID this node
+	 * has not dispatched or received fences it, so a DISPATCH or RECEIVE
+	 * arriving late is refused; a received copy stays where it is
+	 */
+	private List<String> abortTransfer(String transferId) {
+		InTransit copy;
+		synchronized (settledTransfers) {
+			copy = inTransit.get(transferId);
+			if (copy == null) {
+				settledTransfers.putIfAbsent(transferId, Settlement.ABORTED);
+				return List.of();
+			}
+		}
+		return withBranch(copy.fromBranchId, branch -> {
+			synchronized (settledTransfers) {
+				if (inTransit.remove(transferId) != null) {
+					system.receiveCopy(ClusterProtocol.newBook(copy.book, 0), copy.copy.getBarcode(),
+							copy.copy.getHomeBranchId(), copy.fromBranchId);
+					settledTransfers.put(transferId, Settlement.ABORTED);
+				}
+			}
+			return List.of();
+		});
+	}
+
+	private Settlement settlementOf(String transferId) {
+		synchronized (settledTransfers) {
+			return settledTransfers.get(transferId);
+		}
+	}
+
+	private <T> T withBranch(String branchId, Function<LibraryBranch, T> operation) {
+		LibraryBranch branch = system.getBranch(branchId);
+		synchronized (branch) {
+			return operation.apply(branch);
+		}
+	}
+
+	/**
+	 * Run with several branches locked, taking the locks in branch ID order
+	 */
+	private <T> T withBranches(List<String> branchIds, Supplier<T> operation) {
+		List<LibraryBranch> branches = new ArrayList<>();
+		for (String branchId : branchIds) {
+			LibraryBranch branch = system.getBranch(branchId);
+			if (!branches.contains(branch)) {
+				branches.add(branch);
+			}
+		}
+		branches.sort(Comparator.comparing(LibraryBranch::getBranchId));
+		return lockAll(branches, 0, operation);
+	}
+
+	private static <T> T lockAll(List<LibraryBranch> branches, int index, Supplier<T> operation) {
+		if (index == branches.size()) {
+			return operation.get();
+		}
+		synchronized (branches.get(index)) {
+			return lockAll(branches, index + 1, operation);
+		}
+	}
+
+	private List<String> branchIds() {
+		List<String> ids = new ArrayList<>();
+		for (LibraryBranch branch : system.getAllBranches()) {
+			ids.add(branch.getBranchId());
+		}
+		return ids;
+	}
+
+	private enum Settlement {
+		RECEIVED, COMMITTED, ABORTED
+	}
+
+	/**
+	 * A copy dispatched from this node whose transfer is not yet settled
+	 */
+	private static final class InTransit {
+		private final String fromBranchId;
+		private final List<String> book;
+		private final CopyInventory.CopyInfo copy;
+
+		InTransit(String fromBranchId, List<String> book, CopyInventory.CopyInfo copy) {
+			this.fromBranchId = fromBranchId;
+			this.book = book;
+			this.copy = copy;
+		}
+
+		List<String> encode() {
+			List<String> result = new ArrayList<>(book);
+			result.add(Long.toString(copy.getBarcode()));
+			result.add(copy.getHomeBranchId());
+			return result;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.library.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.library.model.Book;
+import com.library.model.BookSnapshot;
+import com.library.model.BookStatus;
+
+/**
+ * Wire format shared by nodes and routers. A request is an operation name
+ * and a list of nullable strings; a response is a status byte followed by
+ * either a string list or an exception type and message. Books travel as
+ * seven fields: isbn, title, author, year, subjects (newline-joined), status
+ * and branch
+ */
+final class ClusterProtocol {
+	static final String BRANCHES = "BRANCHES";
+	static final String ADD_BOOK = "ADD_BOOK";
+	static final String ADD_COPY = "ADD_COPY";
+	static final String ADD_PATRON = "ADD_PATRON";
+	static final String GET_BOOK = "GET_BOOK";
+	static final String CHECKOUT = "CHECKOUT";
+	static final String RETURN = "RETURN";
+	static final String RESERVE = "RESERVE";
+	static final String TRANSFER = "TRANSFER";
+	static final String DISPATCH = "DISPATCH";
+	static final String RECEIVE = "RECEIVE";
+	static final String RECEIVED = "RECEIVED";
+	static final String COMMIT = "COMMIT";
+	static final String ABORT = "ABORT";
+	static final String FIND = "FIND";
+	static final String STATS = "STATS";
+
+	static final int BOOK_FIELDS = 7;
+
+	private static final byte OK = 0;
+	private static final byte ERROR = 1;
+	private static final String SUBJECT_SEPARATOR = "\n";
+
+	private ClusterProtocol() {
+	}
+
+	static void writeRequest(DataOutputStream out, String op, List<String> args) throws IOException {
+		out.writeUTF(op);
+		writeStrings(out, args);
+		out.flush();
+	}
+
+	static void writeResult(DataOutputStream out, List<String> result) throws IOException {
+		out.writeByte(OK);
+		writeStrings(out, result);
+		out.flush();
+	}
+
+	static void writeError(DataOutputStream out, RuntimeException error) throws IOException {
+		out.writeByte(ERROR);
+		out.writeUTF(error.getClass().getSimpleName());
+		out.writeUTF(String.valueOf(error.getMessage()));
+		out.flush();
+	}
+
+	/**
+	 * Read a response, rethrowing a remote failure as the closest local
+	 * exception type
+	 */
+	static List<String> readResponse(DataInputStream in) throws IOException {
+		if (in.readByte() == OK) {
+			return readStrings(in);
+		}
+		String type = in.readUTF();
+		String message = in.readUTF();
+		switch (type) {
+		case "NoSuchElementException":
+			throw new NoSuchElementException(message);
+		case "IllegalArgumentException":
+			throw new IllegalArgumentException(message);
+		default:
+			throw new IllegalStateException(message);
+		}
+	}
+
+	static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+		out.writeInt(values.size());
+		for (String value : values) {
+			out.writeBoolean(value != null);
+			if (value != null) {
+				out.writeUTF(value);
+			}
+		}
+	}
+
+	static List<String> readStrings(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		List<String> values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(in.readBoolean() ? in.readUTF() : null);
+		}
+		return values;
+	}
+
+	static List<String> encodeBook(Book book) {
+		return Arrays.asList(book.getIsbn(), book.getTitle(), book.getAuthor(),
+				Integer.toString(book.getPublicationYear()), String.join(SUBJECT_SEPARATOR, book.getSubjects()),
+				book.getStatus().name(), book.getCurrentBranchId());
+	}
+
+	/**
+	 * Detached copy of a remote book's metadata and state at the time of the
+	 * call
+	 */
+	static Book decodeBook(List<String> fields, int offset) {
+		return new BookSnapshot(fields.get(offset), fields.get(offset + 1), fields.get(offset + 2),
+				Integer.parseInt(fields.get(offset + 3)), subjects(fields.get(offset + 4)),
+				BookStatus.valueOf(fields.get(offset + 5)), fields.get(offset + 6));
+	}
+
+	/**
+	 * New local Book with a remote book's metadata, for shelving a transferred
+	 * copy
+	 */
+	static Book newBook(List<String> fields, int offset) {
+		return new Book(fields.get(offset), fields.get(offset + 1), fields.get(offset + 2),
+				Integer.parseInt(fields.get(offset + 3)), subjects(fields.get(offset + 4)));
+	}
+
+	private static List<String> subjects(String joined) {
+		return joined == null || joined.isEmpty() ? List.of() : List.of(joined.split(SUBJECT_SEPARATOR));
+	}
+}
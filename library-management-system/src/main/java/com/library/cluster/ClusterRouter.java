@@ -0,0 +1,465 @@
+package com.library.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import com.library.core.SystemStatistics;
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * Routing layer for a branch-partitioned cluster. Discovers which node owns
+ * each branch, forwards branch-scoped calls to that node, and runs transfers,
+ * cross-branch searches and statistics across nodes. Every call has a
+ * connect and read timeout, so a hung node fails its callers instead of
+ * blocking them.
+ *
+ * A transfer between nodes runs under a transfer ID: the source dispatches
+ * the copy into transit, the destination receives it idempotently, and the
+ * source then commits. Lost responses are retried. When the outcome is
+ * unclear the router fences the ID on the destination, asks whether it was
+ * received and commits or aborts at the source accordingly, so a copy is
+ * never shelved twice or lost while both nodes keep their state. A transfer
+ * whose nodes cannot be reached stays in transit at the source until
+ * resolveTransfers settles it. Unresolved transfers are tracked in this
+ * router's memory only; if the router exits first, their copies remain in
+ * transit at the source
+ */
+public class ClusterRouter implements Closeable {
+	private static final Logger logger = Logger.getLogger(ClusterRouter.class.getName());
+	private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 2000;
+	private static final int DEFAULT_READ_TIMEOUT_MILLIS = 10_000;
+	private static final int TRANSFER_ATTEMPTS = 3;
+
+	private final List<NodeConnection> nodes;
+	private final Map<String, NodeConnection> nodesByBranch;
+	private final Map<String, PendingTransfer> unresolvedTransfers; // TransferId -> transfer
+	private final ExecutorService fanOut;
+	private final long callTimeoutMillis;
+
+	public ClusterRouter(List<InetSocketAddress> addresses) {
+		this(addresses, DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * @param connectTimeoutMillis how long to wait for a node to accept a
+	 *                             connection
+	 * @param readTimeoutMillis    how long to wait for a node to answer a call
+	 */
+	public ClusterRouter(List<InetSocketAddress> addresses, int connectTimeoutMillis, int readTimeoutMillis) {
+		if (connectTimeoutMillis <= 0 || readTimeoutMillis <= 0) {
+			throw new IllegalArgumentException("Timeouts must be positive");
+		}
+		this.nodes = new ArrayList<>();
+		this.nodesByBranch = new HashMap<>();
+		this.unresolvedTransfers = new ConcurrentHashMap<>();
+		this.callTimeoutMillis = (long) connectTimeoutMillis + readTimeoutMillis;
+		for (InetSocketAddress address : addresses) {
+			NodeConnection node = new NodeConnection(address, connectTimeoutMillis, readTimeoutMillis);
+			nodes.add(node);
+			for (String branchId : node.call(ClusterProtocol.BRANCHES)) {
+				NodeConnection previous = nodesByBranch.putIfAbsent(branchId, node);
+				if (previous != null) {
+					throw new IllegalStateException(
+							"Branch " + branchId + " is served by both " + previous.address + " and " + address);
+				}
+			}
+		}
+		this.fanOut = Executors.newFixedThreadPool(Math.max(1, nodes.size()), runnable -> {
+			Thread thread = new Thread(runnable, "cluster-router");
+			thread.setDaemon(true);
+			return thread;
+		});
+		logger.info("Cluster router connected to " + nodes.size() + " nodes serving " + nodesByBranch.keySet());
+	}
+
+	public Set<String> getBranchIds() {
+		return Collections.unmodifiableSet(nodesByBranch.keySet());
+	}
+
+	/**
+	 * Address of the node owning a branch
+	 */
+	public InetSocketAddress getNodeAddress(String branchId) {
+		return nodeFor(branchId).address;
+	}
+
+	// Branch-scoped operations
+
+	public void addBook(String branchId, Book book) {
+		List<String> args = new ArrayList<>();
+		args.add(branchId);
+		args.addAll(ClusterProtocol.encodeBook(book));
+		nodeFor(branchId).call(ClusterProtocol.ADD_BOOK, args);
+	}
+
+	public void addCopy(String branchId, String isbn, long barcode) {
+		nodeFor(branchId).call(ClusterProtocol.ADD_COPY, branchId, isbn, Long.toString(barcode));
+	}
+
+	public void addPatron(String branchId, Patron patron) {
+		nodeFor(branchId).call(ClusterProtocol.ADD_PATRON, branchId, patron.getPatronId(), patron.getName(),
+				patron.getEmail());
+	}
+
+	/**
+	 * Snapshot of a book at a branch, or null
+	 */
+	public Book getBook(String branchId, String isbn) {
+		List<String> fields = nodeFor(branchId).call(ClusterProtocol.GET_BOOK, branchId, isbn);
+		return fields.isEmpty() ? null : ClusterProtocol.decodeBook(fields, 0);
+	}
+
+	/**
+	 * @return the transaction ID
+	 */
+	public String checkoutBook(String branchId, String isbn, String patronId) {
+		return nodeFor(branchId).call(ClusterProtocol.CHECKOUT, branchId, isbn, patronId).get(0);
+	}
+
+	/**
+	 * @return the transaction ID
+	 */
+	public String returnBook(String branchId, String isbn, String patronId) {
+		return nodeFor(branchId).call(ClusterProtocol.RETURN, branchId, isbn, patronId).get(0);
+	}
+
+	public void reserveBook(String branchId, String isbn, String patronId) {
+		nodeFor(branchId).call(ClusterProtocol.RESERVE, branchId, isbn, patronId);
+	}
+
+	// Cross-node operations
+
+	/**
+	 * Transfer one available copy between branches, wherever they are hosted
+	 *
+	 * @throws IllegalStateException if the nodes could not settle a
+	 *                               cross-node transfer; the copy is then
+	 *                               held in transit at the source
+	 */
+	public void transferBook(String isbn, String fromBranchId, String toBranchId) {
+		NodeConnection source = nodeFor(fromBranchId);
+		NodeConnection destination = nodeFor(toBranchId);
+		if (source == destination) {
+			source.call(ClusterProtocol.TRANSFER, isbn, fromBranchId, toBranchId);
+			return;
+		}
+
+		PendingTransfer transfer = new PendingTransfer(UUID.randomUUID().toString(), isbn, source, destination);
+		List<String> dispatched;
+		try {
+			dispatched = retrying(() -> source.call(ClusterProtocol.DISPATCH, isbn, fromBranchId, transfer.id));
+		} catch (UncheckedIOException e) {
+			// The copy may or may not have left the shelf
+			settleOrDefer(transfer);
+			throw e;
+		}
+
+		// Dispatch returns the book fields followed by barcode and home branch
+		List<String> args = new ArrayList<>(Arrays.asList(toBranchId, transfer.id,
+				dispatched.get(ClusterProtocol.BOOK_FIELDS), dispatched.get(ClusterProtocol.BOOK_FIELDS + 1)));
+		args.addAll(dispatched.subList(0, ClusterProtocol.BOOK_FIELDS));
+		try {
+			retrying(() -> destination.call(ClusterProtocol.RECEIVE, args));
+		} catch (RuntimeException e) {
+			logger.warning("Transfer of " + isbn + " to " + toBranchId + " failed: " + e.getMessage());
+			if (settleOrDefer(transfer)) {
+				// Received after all; only the response was lost
+				return;
+			}
+			throw e;
+		}
+		try {
+			retrying(() -> source.call(ClusterProtocol.COMMIT, transfer.id));
+		} catch (RuntimeException e) {
+			// The copy is on the destination shelf; only the source's record is left to drop
+			logger.warning("Committing transfer " + transfer.id + " failed: " + e.getMessage());
+			unresolvedTransfers.put(transfer.id, transfer);
+		}
+		logger.info("Book " + isbn + " transferred from " + fromBranchId + " to " + toBranchId + " across nodes");
+	}
+
+	/**
+	 * Settle cross-node transfers left in transit by unreachable nodes
+	 *
+	 * @return number still unresolved
+	 */
+	public int resolveTransfers() {
+		for (PendingTransfer transfer : new ArrayList<>(unresolvedTransfers.values())) {
+			try {
+				settle(transfer);
+				unresolvedTransfers.remove(transfer.id);
+			} catch (UncheckedIOException e) {
+				logger.fine(() -> "Transfer " + transfer.id + " still unresolved: " + e.getMessage());
+			}
+		}
+		return unresolvedTransfers.size();
+	}
+
+	public int getUnresolvedTransferCount() {
+		return unresolvedTransfers.size();
+	}
+
+	/**
+	 * Snapshots of a book at every branch holding it, from all nodes in
+	 * parallel
+	 */
+	public Map<String, Book> findBookAcrossBranches(String isbn) {
+		Map<String, Book> results = new HashMap<>();
+		for (List<String> fields : onAllNodes(node -> node.call(ClusterProtocol.FIND, isbn))) {
+			for (int offset = 0; offset < fields.size(); offset += ClusterProtocol.BOOK_FIELDS) {
+				Book book = ClusterProtocol.decodeBook(fields, offset);
+				results.put(book.getCurrentBranchId(), book);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Consortium-wide statistics summed over all nodes
+	 */
+	public SystemStatistics getStatistics() {
+		int[] totals = new int[5];
+		for (List<String> stats : onAllNodes(node -> node.call(ClusterProtocol.STATS))) {
+			for (int i = 0; i < totals.length; i++) {
+				totals[i] += Integer.parseInt(stats.get(i));
+			}
+		}
+		return new SystemStatistics(totals[0], totals[1], totals[2], totals[3], totals[4]);
+	}
+
+	@Override
+	public void close() {
+		fanOut.shutdown();
+		for (NodeConnection node : nodes) {
+			node.close();
+		}
+	}
+
+	private NodeConnection nodeFor(String branchId) {
+		NodeConnection node = nodesByBranch.get(branchId);
+		if (node == null) {
+			throw new NoSuchElementException("Branch not found: " + branchId);
+		}
+		return node;
+	}
+
+	private <T> List<T> onAllNodes(Function<NodeConnection, T> call) {
+		List<CompletableFuture<T>> futures = new ArrayList<>();
+		for (NodeConnection node : nodes) {
+			futures.add(CompletableFuture.supplyAsync(() -> call.apply(node), fanOut)
+					.orTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS));
+		}
+		List<T> results = new ArrayList<>();
+		for (CompletableFuture<T> future : futures) {
+			try {
+				results.add(future.join());
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof TimeoutException) {
+					throw new IllegalStateException("Cluster nodes did not answer within " + callTimeoutMillis + "ms");
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Settle a transfer now, or keep it for resolveTransfers if a node is
+	 * unreachable
+	 *
+	 * @return whether the destination received the copy
+	 */
+	private boolean settleOrDefer(PendingTransfer transfer) {
+		try {
+			return settle(transfer);
+		} catch (UncheckedIOException e) {
+			unresolvedTransfers.put(transfer.id, transfer);
+			throw new IllegalStateException("Transfer " + transfer.id + " of " + transfer.isbn
+					+ " is unresolved; the copy is held in transit at the source", e);
+		}
+	}
+
+	/**
+	 * Fence the transfer on the destination so a delayed RECEIVE can no
+	 * longer land, then commit or abort at the source by what it received
+	 *
+	 * @return whether the destination received the copy
+	 */
+	private boolean settle(PendingTransfer transfer) {
+		retrying(() -> transfer.destination.call(ClusterProtocol.ABORT, transfer.id));
+		boolean received = Boolean.parseBoolean(
+				retrying(() -> transfer.destination.call(ClusterProtocol.RECEIVED, transfer.id)).get(0));
+		retrying(() -> transfer.source.call(received ? ClusterProtocol.COMMIT : ClusterProtocol.ABORT, transfer.id));
+		return received;
+	}
+
+	/**
+	 * Run an idempotent call, retrying after I/O failures
+	 */
+	private static <T> T retrying(Supplier<T> call) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return call.get();
+			} catch (UncheckedIOException e) {
+				if (attempt == TRANSFER_ATTEMPTS) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A cross-node transfer the router has not yet settled
+	 */
+	private static final class PendingTransfer {
+		private final String id;
+		private final String isbn;
+		private final NodeConnection source;
+		private final NodeConnection destination;
+
+		PendingTransfer(String id, String isbn, NodeConnection source, NodeConnection destination) {
+			this.id = id;
+			this.isbn = isbn;
+			this.source = source;
+			this.destination = destination;
+		}
+	}
+
+	/**
+	 * Pool of connections to a node, so one slow call does not hold up
+	 * others. A connection is discarded after any I/O failure, including a
+	 * timeout, since a late response would otherwise be read by the next
+	 * call
+	 */
+	private static final class NodeConnection {
+		private final InetSocketAddress address;
+		private final int connectTimeoutMillis;
+		private final int readTimeoutMillis;
+		private final Deque<Channel> idle;
+		private volatile boolean closed;
+
+		NodeConnection(InetSocketAddress address, int connectTimeoutMillis, int readTimeoutMillis) {
+			this.address = address;
+			this.connectTimeoutMillis = connectTimeoutMillis;
+			this.readTimeoutMillis = readTimeoutMillis;
+			this.idle = new ArrayDeque<>();
+		}
+
+		List<String> call(String op, String... args) {
+			return call(op, Arrays.asList(args));
+		}
+
+		List<String> call(String op, List<String> args) {
+			Channel channel;
+			try {
+				channel = acquire();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cluster node " + address + " unreachable", e);
+			}
+			try {
+				ClusterProtocol.writeRequest(channel.out, op, args);
+				List<String> result = ClusterProtocol.readResponse(channel.in);
+				release(channel);
+				return result;
+			} catch (IOException e) {
+				channel.close();
+				throw new UncheckedIOException("Cluster node " + address + " unreachable", e);
+			} catch (RuntimeException e) {
+				// A remote failure leaves the connection at a message boundary
+				release(channel);
+				throw e;
+			}
+		}
+
+		void close() {
+			closed = true;
+			synchronized (idle) {
+				for (Channel channel : idle) {
+					channel.close();
+				}
+				idle.clear();
+			}
+		}
+
+		private Channel acquire() throws IOException {
+			synchronized (idle) {
+				Channel channel = idle.pollFirst();
+				if (channel != null) {
+					return channel;
+				}
+			}
+			Socket socket = new Socket();
+			try {
+				socket.connect(address, connectTimeoutMillis);
+				socket.setSoTimeout(readTimeoutMillis);
+				socket.setTcpNoDelay(true);
+				return new Channel(socket);
+			} catch (IOException e) {
+				socket.close();
+				throw e;
+			}
+		}
+
+		private void release(Channel channel) {
+			synchronized (idle) {
+				if (!closed) {
+					idle.addFirst(channel);
+					return;
+				}
+			}
+			channel.close();
+		}
+	}
+
+	private static final class Channel {
+		private final Socket socket;
+		private final DataInputStream in;
+		private final DataOutputStream out;
+
+		Channel(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				logger.fine(() -> "Closing connection to " + socket.getRemoteSocketAddress() + " failed: " + e);
+			}
+		}
+	}
+}
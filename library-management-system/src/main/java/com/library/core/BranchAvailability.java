@@ -0,0 +1,46 @@
+package com.library.core;
+
+import com.library.model.BookStatus;
+
+/**
+ * Availability of one title at one branch
+ */
+public class BranchAvailability {
+	private final String branchId;
+	private final BookStatus status;
+	private final int availableCopies;
+	private final int totalCopies;
+
+	public BranchAvailability(String branchId, BookStatus status, int availableCopies, int totalCopies) {
+		this.branchId = branchId;
+		this.status = status;
+		this.availableCopies = availableCopies;
+		this.totalCopies = totalCopies;
+	}
+
+	public String getBranchId() {
+		return branchId;
+	}
+
+	public BookStatus getStatus() {
+		return status;
+	}
+
+	public int getAvailableCopies() {
+		return availableCopies;
+	}
+
+	public int getTotalCopies() {
+		return totalCopies;
+	}
+
+	public boolean isAvailable() {
+		return availableCopies > 0;
+	}
+
+	@Override
+	public String toString() {
+		return "BranchAvailability [branchId=" + branchId + ", status=" + status + ", availableCopies="
+				+ availableCopies + ", totalCopies=" + totalCopies + "]";
+	}
+}
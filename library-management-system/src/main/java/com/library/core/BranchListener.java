@@ -0,0 +1,59 @@
+package com.library.core;
+
+import java.util.List;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * Listener for changes made through a library branch Lets system-level
+ * indexes stay in sync without the branch knowing about them
+ */
+public interface BranchListener {
+
+	default void bookAdded(LibraryBranch branch, Book book) {
+	}
+
+	/**
+	 * Called once for a bulk load; defaults to bookAdded per book
+	 */
+	default void booksAdded(LibraryBranch branch, List<Book> books) {
+		for (Book book : books) {
+			bookAdded(branch, book);
+		}
+	}
+
+	default void bookUpdated(LibraryBranch branch, Book book) {
+	}
+
+	/**
+	 * Called when a title leaves the branch, with its last state
+	 */
+	default void bookRemoved(LibraryBranch branch, Book book) {
+	}
+
+	/**
+	 * Called after an operation changed a title's status
+	 */
+	default void bookStatusChanged(LibraryBranch branch, Book book) {
+	}
+
+	/**
+	 * Called when a copy goes back on the shelf after a return or a cancelled
+	 * reservation, once local reservations have had first claim on it
+	 */
+	default void bookReturned(LibraryBranch branch, Book book) {
+	}
+
+	/**
+	 * Called before a patron is added or replaced; throw to reject it
+	 */
+	default void validatePatron(LibraryBranch branch, Patron patron) {
+	}
+
+	default void patronAdded(LibraryBranch branch, Patron patron) {
+	}
+
+	default void patronUpdated(LibraryBranch branch, Patron patron) {
+	}
+}
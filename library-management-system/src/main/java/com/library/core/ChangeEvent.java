@@ -0,0 +1,61 @@
+package com.library.core;
+
+import com.library.model.BookSnapshot;
+
+/**
+ * One entry of the branch change feed. Every event carries the full state of
+ * the title after the change, so consumers apply events without reading the
+ * branch
+ */
+public final class ChangeEvent {
+	public enum Type {
+		BOOK_ADDED, BOOK_UPDATED, BOOK_REMOVED, STATUS_CHANGED
+	}
+
+	private final long sequence;
+	private final long timestampMillis;
+	private final Type type;
+	private final String branchId;
+	private final BookSnapshot book;
+
+	ChangeEvent(long sequence, long timestampMillis, Type type, String branchId, BookSnapshot book) {
+		this.sequence = sequence;
+		this.timestampMillis = timestampMillis;
+		this.type = type;
+		this.branchId = branchId;
+		this.book = book;
+	}
+
+	/**
+	 * Position in the feed; strictly increasing from 1
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public long getTimestampMillis() {
+		return timestampMillis;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getBranchId() {
+		return branchId;
+	}
+
+	public String getIsbn() {
+		return book.getIsbn();
+	}
+
+	public BookSnapshot getBook() {
+		return book;
+	}
+
+	@Override
+	public String toString() {
+		return "ChangeEvent [sequence=" + sequence + ", type=" + type + ", branchId=" + branchId + ", isbn="
+				+ getIsbn() + ", status=" + book.getStatus() + "]";
+	}
+}
@@ -0,0 +1,202 @@
+package com.library.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.library.model.Book;
+import com.library.model.BookSnapshot;
+
+/**
+ * Ordered change stream of catalog and status mutations across branches.
+ * Events are numbered in the order branches applied them and kept in a
+ * bounded ring; alongside it the feed keeps the latest event per title per
+ * branch, so a consumer that falls behind the ring, or starts late, can
+ * bootstrap from a compacted snapshot and continue from its sequence.
+ *
+ * Appends take no lock: a producer claims its sequence with one atomic
+ * increment, fills its ring slot and then publishes in sequence order, so
+ * branches appending concurrently only wait on each other for the moment
+ * between a claim and its slot write. Readers never lock; waiting
+ * consumers are woken only when one is actually waiting
+ */
+public class ChangeFeed implements BranchListener {
+	private static final int DEFAULT_RETENTION = 1 << 20;
+
+	private final AtomicReferenceArray<ChangeEvent> ring;
+	private final Map<String, ChangeEvent> latest; // "branchId/isbn" -> last event, removals dropped
+	private final AtomicLong claimed; // last sequence handed to a producer
+	private volatile long sequence; // last published sequence; every event up to it is in the ring
+	private final AtomicInteger waiters; // consumers blocked in await, which wait on this
+
+	public ChangeFeed() {
+		this(DEFAULT_RETENTION);
+	}
+
+	/**
+	 * @param retention number of recent events readable by sequence
+	 */
+	public ChangeFeed(int retention) {
+		if (retention <= 0) {
+			throw new IllegalArgumentException("Retention must be positive");
+		}
+		this.ring = new AtomicReferenceArray<>(retention);
+		this.latest = new ConcurrentHashMap<>();
+		this.claimed = new AtomicLong();
+		this.waiters = new AtomicInteger();
+	}
+
+	@Override
+	public void bookAdded(LibraryBranch branch, Book book) {
+		append(ChangeEvent.Type.BOOK_ADDED, branch, book);
+	}
+
+	@Override
+	public void bookUpdated(LibraryBranch branch, Book book) {
+		append(ChangeEvent.Type.BOOK_UPDATED, branch, book);
+	}
+
+	@Override
+	public void bookRemoved(LibraryBranch branch, Book book) {
+		append(ChangeEvent.Type.BOOK_REMOVED, branch, book);
+	}
+
+	@Override
+	public void bookStatusChanged(LibraryBranch branch, Book book) {
+		append(ChangeEvent.Type.STATUS_CHANGED, branch, book);
+	}
+
+	public long getLatestSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Oldest sequence still readable with read
+	 */
+	public long getOldestSequence() {
+		return Math.max(1, sequence - ring.length() + 1);
+	}
+
+	/**
+	 * When the event with the given sequence was appended, or -1 if it has
+	 * not been appended yet or was already discarded
+	 */
+	public long getTimestampMillis(long eventSequence) {
+		if (eventSequence < 1 || eventSequence > sequence) {
+			return -1;
+		}
+		ChangeEvent event = ring.get((int) (eventSequence % ring.length()));
+		return event != null && event.getSequence() == eventSequence ? event.getTimestampMillis() : -1;
+	}
+
+	/**
+	 * Events after a sequence, oldest first, at most max of them
+	 *
+	 * @throws IllegalStateException if some of those events were already
+	 *                               discarded; resynchronize from snapshot
+	 */
+	public List<ChangeEvent> read(long afterSequence, int max) {
+		if (afterSequence + 1 < getOldestSequence()) {
+			throw truncated(afterSequence + 1);
+		}
+		long end = Math.min(sequence, afterSequence + max);
+		List<ChangeEvent> events = new ArrayList<>((int) Math.max(0, end - afterSequence));
+		for (long s = afterSequence + 1; s <= end; s++) {
+			ChangeEvent event = ring.get((int) (s % ring.length()));
+			if (event == null || event.getSequence() != s) {
+				throw truncated(s); // overwritten by a producer that lapped the reader
+			}
+			events.add(event);
+		}
+		return events;
+	}
+
+	/**
+	 * Like read, but waits up to timeoutMillis for an event when none is ready
+	 */
+	public List<ChangeEvent> await(long afterSequence, int max, long timeoutMillis) throws InterruptedException {
+		if (sequence <= afterSequence) {
+			long deadline = System.currentTimeMillis() + timeoutMillis;
+			synchronized (waiters) {
+				waiters.incrementAndGet();
+				try {
+					while (sequence <= afterSequence) {
+						long remaining = deadline - System.currentTimeMillis();
+						if (remaining <= 0) {
+							break;
+						}
+						waiters.wait(remaining);
+					}
+				} finally {
+					waiters.decrementAndGet();
+				}
+			}
+		}
+		return read(afterSequence, max);
+	}
+
+	/**
+	 * Compacted current state: the latest event of every title still on a
+	 * branch shelf, with the sequence to continue reading from. Appends
+	 * racing the copy may already be reflected; replaying from the sequence
+	 * applies them again in order and ends in the same state
+	 */
+	public Snapshot snapshot() {
+		long at = sequence;
+		return new Snapshot(new ArrayList<>(latest.values()), at);
+	}
+
+	private void append(ChangeEvent.Type type, LibraryBranch branch, Book book) {
+		long next = claimed.incrementAndGet();
+		ChangeEvent event = new ChangeEvent(next, System.currentTimeMillis(), type, branch.getBranchId(),
+				BookSnapshot.of(book));
+		ring.set((int) (next % ring.length()), event);
+		String key = branch.getBranchId() + "/" + book.getIsbn();
+		latest.compute(key, (k, previous) -> {
+			if (previous != null && previous.getSequence() > next) {
+				return previous;
+			}
+			return type == ChangeEvent.Type.BOOK_REMOVED ? null : event;
+		});
+
+		// Publish in claim order; earlier producers are between claim and publish
+		while (sequence != next - 1) {
+			Thread.yield();
+		}
+		sequence = next;
+		if (waiters.get() > 0) {
+			synchronized (waiters) {
+				waiters.notifyAll();
+			}
+		}
+	}
+
+	private static IllegalStateException truncated(long missing) {
+		return new IllegalStateException("Change feed truncated before sequence " + missing);
+	}
+
+	/**
+	 * Compacted feed state as of a sequence
+	 */
+	public static final class Snapshot {
+		private final List<ChangeEvent> events;
+		private final long sequence;
+
+		Snapshot(List<ChangeEvent> events, long sequence) {
+			this.events = events;
+			this.sequence = sequence;
+		}
+
+		public List<ChangeEvent> getEvents() {
+			return events;
+		}
+
+		public long getSequence() {
+			return sequence;
+		}
+	}
+}
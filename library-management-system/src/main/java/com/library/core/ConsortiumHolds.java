@@ -0,0 +1,174 @@
+package com.library.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * System-wide title holds, one FIFO queue per ISBN. Queues are spread over
+ * independently locked shards by ISBN. Shard locks cover only queue edits;
+ * routing a claimed hold (transfers, listeners) runs outside them, so
+ * returns of unrelated titles never wait on each other
+ */
+public class ConsortiumHolds {
+	private static final int DEFAULT_SHARDS = 64;
+	private static final AtomicLong sequences = new AtomicLong();
+
+	private final Shard[] shards;
+
+	public ConsortiumHolds() {
+		this(DEFAULT_SHARDS);
+	}
+
+	public ConsortiumHolds(int shardCount) {
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard();
+		}
+	}
+
+	/**
+	 * @return false if the patron already holds this title
+	 */
+	public boolean placeHold(String isbn, String patronId, String pickupBranchId) {
+		Shard shard = shardFor(isbn);
+		synchronized (shard) {
+			Map<String, Hold> queue = shard.queues.computeIfAbsent(isbn, k -> new LinkedHashMap<>());
+			if (queue.containsKey(patronId)) {
+				return false;
+			}
+			queue.put(patronId, new Hold(isbn, patronId, pickupBranchId, System.currentTimeMillis(), sequences.incrementAndGet()));
+			return true;
+		}
+	}
+
+	public boolean cancelHold(String isbn, String patronId) {
+		Shard shard = shardFor(isbn);
+		synchronized (shard) {
+			Map<String, Hold> queue = shard.queues.get(isbn);
+			if (queue == null || queue.remove(patronId) == null) {
+				return false;
+			}
+			if (queue.isEmpty()) {
+				shard.queues.remove(isbn);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Take the oldest hold on a title out of the queue so the caller can route
+	 * it without holding the shard lock. A hold that cannot be routed goes
+	 * back with restore
+	 *
+	 * @param skipPatronIds patrons whose holds were already tried for this copy
+	 * @return the claimed hold, or null if no untried hold is waiting
+	 */
+	public Hold claimNext(String isbn, Set<String> skipPatronIds) {
+		Shard shard = shardFor(isbn);
+		synchronized (shard) {
+			Map<String, Hold> queue = shard.queues.get(isbn);
+			if (queue == null) {
+				return null;
+			}
+			for (Iterator<Hold> iterator = queue.values().iterator(); iterator.hasNext();) {
+				Hold hold = iterator.next();
+				if (!skipPatronIds.contains(hold.getPatronId())) {
+					iterator.remove();
+					if (queue.isEmpty()) {
+						shard.queues.remove(isbn);
+					}
+					return hold;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Put a claimed hold back in its original queue position
+	 */
+	public void restore(Hold hold) {
+		Shard shard = shardFor(hold.getIsbn());
+		synchronized (shard) {
+			Map<String, Hold> queue = shard.queues.computeIfAbsent(hold.getIsbn(), k -> new LinkedHashMap<>());
+			List<Hold> ordered = new ArrayList<>(queue.values());
+			ordered.removeIf(other -> other.getPatronId().equals(hold.getPatronId()));
+			ordered.add(hold);
+			ordered.sort(Comparator.comparingLong(other -> other.sequence));
+			queue.clear();
+			for (Hold other : ordered) {
+				queue.put(other.getPatronId(), other);
+			}
+		}
+	}
+
+	public boolean hasHolds(String isbn) {
+		Shard shard = shardFor(isbn);
+		synchronized (shard) {
+			return shard.queues.containsKey(isbn);
+		}
+	}
+
+	public int getQueueLength(String isbn) {
+		Shard shard = shardFor(isbn);
+		synchronized (shard) {
+			Map<String, Hold> queue = shard.queues.get(isbn);
+			return queue != null ? queue.size() : 0;
+		}
+	}
+
+	private Shard shardFor(String isbn) {
+		return shards[Math.floorMod(isbn.hashCode(), shards.length)];
+	}
+
+	private static final class Shard {
+		private final Map<String, Map<String, Hold>> queues = new HashMap<>(); // ISBN -> PatronId -> Hold
+	}
+
+	/**
+	 * A patron's hold on a title, to be picked up at a branch
+	 */
+	public static final class Hold {
+		private final String isbn;
+		private final String patronId;
+		private final String pickupBranchId;
+		private final long placedAt;
+		private final long sequence; // Queue order, stable across claim and restore
+
+		Hold(String isbn, String patronId, String pickupBranchId, long placedAt, long sequence) {
+			this.isbn = isbn;
+			this.patronId = patronId;
+			this.pickupBranchId = pickupBranchId;
+			this.placedAt = placedAt;
+			this.sequence = sequence;
+		}
+
+		public String getIsbn() {
+			return isbn;
+		}
+
+		public String getPatronId() {
+			return patronId;
+		}
+
+		public String getPickupBranchId() {
+			return pickupBranchId;
+		}
+
+		public long getPlacedAt() {
+			return placedAt;
+		}
+
+		@Override
+		public String toString() {
+			return "Hold [isbn=" + isbn + ", patronId=" + patronId + ", pickupBranchId=" + pickupBranchId + "]";
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package com.library.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.library.index.LongHashMap;
+import com.library.index.OrdinalDictionary;
+import com.library.model.BookStatus;
+
+/**
+ * Copy-level inventory of a branch. Title metadata lives once in the shared
+ * Book; each physical copy is a slot in parallel primitive arrays (status
+ * byte, home branch ordinal, barcode, borrower ordinal), so an extra copy
+ * costs about 17 bytes instead of another object graph. Per-title status
+ * counts make availability checks O(1) however many copies a title has, and
+ * a barcode index keeps barcodes unique within the inventory
+ */
+public class CopyInventory {
+	private static final AtomicLong barcodes = new AtomicLong(1_000_000L);
+	private static final BookStatus[] STATUSES = BookStatus.values();
+	private static final int NO_BORROWER = -1;
+
+	private final Map<String, Copies> titles; // ISBN -> copies
+	private final LongHashMap<String> isbnsByBarcode; // Barcode -> ISBN, shared key strings
+
+	public CopyInventory() {
+		this.titles = new HashMap<>();
+		this.isbnsByBarcode = new LongHashMap<>();
+	}
+
+	/**
+	 * Next system-generated barcode for a copy received without one
+	 */
+	public static long nextBarcode() {
+		return barcodes.incrementAndGet();
+	}
+
+	public void addCopy(String isbn, long barcode, String homeBranchId, BookStatus status) {
+		if (isbnsByBarcode.containsKey(barcode)) {
+			throw new IllegalArgumentException("Barcode " + barcode + " is already in use");
+		}
+		titles.computeIfAbsent(isbn, k -> new Copies()).add(barcode,
+				OrdinalDictionary.branches().ordinalOf(homeBranchId), status);
+		isbnsByBarcode.put(barcode, isbn);
+	}
+
+	public boolean containsBarcode(long barcode) {
+		return isbnsByBarcode.containsKey(barcode);
+	}
+
+	/**
+	 * The copy with a barcode, or null if none is here
+	 */
+	public CopyInfo getCopy(long barcode) {
+		String isbn = isbnsByBarcode.get(barcode);
+		if (isbn == null) {
+			return null;
+		}
+		Copies copies = titles.get(isbn);
+		return copies.info(copies.indexOf(barcode));
+	}
+
+	public void removeTitle(String isbn) {
+		Copies copies = titles.remove(isbn);
+		if (copies != null) {
+			for (int i = 0; i < copies.size; i++) {
+				isbnsByBarcode.remove(copies.barcodes[i]);
+			}
+		}
+	}
+
+	/**
+	 * Remove one copy in the given status
+	 *
+	 * @return the removed copy, or null if no copy has that status
+	 */
+	public CopyInfo removeCopy(String isbn, BookStatus status) {
+		Copies copies = titles.get(isbn);
+		int index = copies != null ? copies.find(status, NO_BORROWER, false) : -1;
+		if (index < 0) {
+			return null;
+		}
+		CopyInfo removed = copies.info(index);
+		copies.remove(index);
+		isbnsByBarcode.remove(removed.getBarcode());
+		if (copies.size == 0) {
+			titles.remove(isbn);
+		}
+		return removed;
+	}
+
+	/**
+	 * Move one copy from one status to another
+	 *
+	 * @return false if no copy had the source status
+	 */
+	public boolean changeStatus(String isbn, BookStatus from, BookStatus to) {
+		Copies copies = titles.get(isbn);
+		int index = copies != null ? copies.find(from, NO_BORROWER, false) : -1;
+		if (index < 0) {
+			return false;
+		}
+		copies.setStatus(index, to, NO_BORROWER);
+		return true;
+	}
+
+	/**
+	 * Lend an available copy to a patron
+	 *
+	 * @return barcode of the copy lent
+	 */
+	public long checkOut(String isbn, String patronId) {
+		Copies copies = titles.get(isbn);
+		int index = copies != null ? copies.find(BookStatus.AVAILABLE, NO_BORROWER, false) : -1;
+		if (index < 0) {
+			throw new IllegalStateException("No available copy of " + isbn);
+		}
+		copies.setStatus(index, BookStatus.CHECKED_OUT, OrdinalDictionary.patrons().ordinalOf(patronId));
+		return copies.barcodes[index];
+	}
+
+	/**
+	 * Take back the copy a patron borrowed
+	 *
+	 * @return barcode of the copy returned
+	 */
+	public long checkIn(String isbn, String patronId) {
+		Copies copies = titles.get(isbn);
+		int borrower = OrdinalDictionary.patrons().lookup(patronId);
+		int index = copies != null && borrower >= 0 ? copies.find(BookStatus.CHECKED_OUT, borrower, true) : -1;
+		if (index < 0) {
+			throw new IllegalStateException("Patron " + patronId + " has no copy of " + isbn);
+		}
+		copies.setStatus(index, BookStatus.AVAILABLE, NO_BORROWER);
+		return copies.barcodes[index];
+	}
+
+	/**
+	 * Whether a patron holds a copy of the title lent by this inventory
+	 */
+	public boolean isLentTo(String isbn, String patronId) {
+		Copies copies = titles.get(isbn);
+		int borrower = OrdinalDictionary.patrons().lookup(patronId);
+		return copies != null && borrower >= 0 && copies.find(BookStatus.CHECKED_OUT, borrower, true) >= 0;
+	}
+
+	public int getCopyCount(String isbn) {
+		Copies copies = titles.get(isbn);
+		return copies != null ? copies.size : 0;
+	}
+
+	public int getCopyCount(String isbn, BookStatus status) {
+		Copies copies = titles.get(isbn);
+		return copies != null ? copies.counts[status.ordinal()] : 0;
+	}
+
+	public int getTotalCopyCount() {
+		int total = 0;
+		for (Copies copies : titles.values()) {
+			total += copies.size;
+		}
+		return total;
+	}
+
+	/**
+	 * Title-level status: available if any copy is, otherwise the most
+	 * actionable state among the copies
+	 */
+	public BookStatus getTitleStatus(String isbn) {
+		Copies copies = titles.get(isbn);
+		if (copies == null) {
+			return null;
+		}
+		for (BookStatus status : new BookStatus[] { BookStatus.AVAILABLE, BookStatus.RESERVED, BookStatus.IN_TRANSIT,
+				BookStatus.CHECKED_OUT }) {
+			if (copies.counts[status.ordinal()] > 0) {
+				return status;
+			}
+		}
+		return null;
+	}
+
+	public List<CopyInfo> getCopies(String isbn) {
+		Copies copies = titles.get(isbn);
+		List<CopyInfo> result = new ArrayList<>();
+		if (copies != null) {
+			for (int i = 0; i < copies.size; i++) {
+				result.add(copies.info(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Parallel arrays holding every copy of one title
+	 */
+	private static final class Copies {
+		private byte[] statuses = new byte[1];
+		private int[] homeBranches = new int[1];
+		private long[] barcodes = new long[1];
+		private int[] borrowers = new int[1];
+		private final int[] counts = new int[STATUSES.length];
+		private int size;
+
+		void add(long barcode, int homeBranch, BookStatus status) {
+			if (size == statuses.length) {
+				int capacity = size * 2;
+				statuses = Arrays.copyOf(statuses, capacity);
+				homeBranches = Arrays.copyOf(homeBranches, capacity);
+				barcodes = Arrays.copyOf(barcodes, capacity);
+				borrowers = Arrays.copyOf(borrowers, capacity);
+			}
+			statuses[size] = (byte) status.ordinal();
+			homeBranches[size] = homeBranch;
+			barcodes[size] = barcode;
+			borrowers[size] = NO_BORROWER;
+			counts[status.ordinal()]++;
+			size++;
+		}
+
+		int find(BookStatus status, int borrower, boolean matchBorrower) {
+			if (counts[status.ordinal()] == 0) {
+				return -1;
+			}
+			for (int i = 0; i < size; i++) {
+				if (statuses[i] == status.ordinal() && (!matchBorrower || borrowers[i] == borrower)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		int indexOf(long barcode) {
+			for (int i = 0; i < size; i++) {
+				if (barcodes[i] == barcode) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		void setStatus(int index, BookStatus status, int borrower) {
+			counts[statuses[index]]--;
+			statuses[index] = (byte) status.ordinal();
+			borrowers[index] = borrower;
+			counts[status.ordinal()]++;
+		}
+
+		void remove(int index) {
+			counts[statuses[index]]--;
+			int last = --size;
+			statuses[index] = statuses[last];
+			homeBranches[index] = homeBranches[last];
+			barcodes[index] = barcodes[last];
+			borrowers[index] = borrowers[last];
+		}
+
+		CopyInfo info(int index) {
+			return new CopyInfo(barcodes[index], OrdinalDictionary.branches().keyOf(homeBranches[index]),
+					STATUSES[statuses[index]]);
+		}
+	}
+
+	/**
+	 * Snapshot of a single copy
+	 */
+	public static final class CopyInfo {
+		private final long barcode;
+		private final String homeBranchId;
+		private final BookStatus status;
+
+		CopyInfo(long barcode, String homeBranchId, BookStatus status) {
+			this.barcode = barcode;
+			this.homeBranchId = homeBranchId;
+			this.status = status;
+		}
+
+		public long getBarcode() {
+			return barcode;
+		}
+
+		public String getHomeBranchId() {
+			return homeBranchId;
+		}
+
+		public BookStatus getStatus() {
+			return status;
+		}
+
+		@Override
+		public String toString() {
+			return "CopyInfo [barcode=" + barcode + ", homeBranchId=" + homeBranchId + ", status=" + status + "]";
+		}
+	}
+}
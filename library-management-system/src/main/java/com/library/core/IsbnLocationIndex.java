@@ -0,0 +1,53 @@
+package com.library.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.library.model.Book;
+
+/**
+ * System-wide index of which branches hold each ISBN, kept current from
+ * branch add and remove events (transfers arrive as a removal at the source
+ * and an addition at the destination). Copy counts and status are read from
+ * the holding branches themselves, so only branches that actually hold a
+ * title are consulted
+ */
+public class IsbnLocationIndex implements BranchListener {
+	private final Map<String, Set<String>> branchesByIsbn; // ISBN -> BranchIds
+
+	public IsbnLocationIndex() {
+		this.branchesByIsbn = new ConcurrentHashMap<>();
+	}
+
+	public void register(String branchId, String isbn) {
+		branchesByIsbn.computeIfAbsent(isbn, k -> ConcurrentHashMap.newKeySet()).add(branchId);
+	}
+
+	public void unregister(String branchId, String isbn) {
+		branchesByIsbn.computeIfPresent(isbn, (k, branchIds) -> {
+			branchIds.remove(branchId);
+			return branchIds.isEmpty() ? null : branchIds;
+		});
+	}
+
+	public Set<String> getBranchIds(String isbn) {
+		Set<String> branchIds = branchesByIsbn.get(isbn);
+		return branchIds != null ? Collections.unmodifiableSet(branchIds) : Collections.emptySet();
+	}
+
+	public int size() {
+		return branchesByIsbn.size();
+	}
+
+	@Override
+	public void bookAdded(LibraryBranch branch, Book book) {
+		register(branch.getBranchId(), book.getIsbn());
+	}
+
+	@Override
+	public void bookRemoved(LibraryBranch branch, Book book) {
+		unregister(branch.getBranchId(), book.getIsbn());
+	}
+}
@@ -3,22 +3,31 @@ package com.library.core;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import com.library.audit.AuditEventType;
+import com.library.audit.AuditLog;
 import com.library.model.Book;
 import com.library.model.BookStatus;
 import com.library.model.Patron;
 import com.library.observer.PatronNotifier;
 import com.library.observer.ReservationManager;
+import com.library.recommendation.BookPool;
 import com.library.search.BookSearchContext;
 import com.library.search.BookSearchStrategy;
 import com.library.search.SearchStrategyFactory;
 import com.library.search.SearchType;
 import com.library.transaction.CheckoutCommand;
+import com.library.transaction.CirculationEvents;
 import com.library.transaction.ReturnCommand;
 import com.library.transaction.Transaction;
 
@@ -35,37 +44,120 @@ public class LibraryBranch {
     private final String address;
     
     // Inventory management
-    private final Map<String, Book> inventory; // ISBN -> Book
+    private final Map<String, Book> inventory; // ISBN -> Book (shared title metadata)
+    private final CopyInventory copies; // per-copy status, home branch and barcode
     private final Map<String, Patron> patrons; // PatronId -> Patron
-    private final List<Transaction> transactions;
+    private final TransactionLog transactions;
     private final Map<String, ReservationManager> reservations; // ISBN -> ReservationManager
+    private final Map<String, Set<String>> heldForPickup; // ISBN -> PatronIds with a copy set aside by a consortium hold
     
     // Search context
     private final BookSearchContext searchContext;
     
+    private final List<BranchListener> listeners;
+    
+    // Versions for conditional reads: bumped on every mutation, a book's
+    // version is the branch version of its last change
+    private final AtomicLong version;
+    private final Map<String, Long> bookVersions; // ISBN -> version
+    private volatile BookPool availablePool; // available books as of its version
+    
     public LibraryBranch(String branchId, String branchName, String address) {
         this.branchId = branchId;
         this.branchName = branchName;
         this.address = address;
         this.inventory = new HashMap<>();
+        this.copies = new CopyInventory();
         this.patrons = new HashMap<>();
-        this.transactions = new ArrayList<>();
-        this.reservations = new HashMap<>();
+        this.transactions = new TransactionLog();
+        this.reservations = new ConcurrentHashMap<>();
+        this.heldForPickup = new ConcurrentHashMap<>();
         this.searchContext = new BookSearchContext();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.version = new AtomicLong();
+        this.bookVersions = new ConcurrentHashMap<>();
         
         logger.info("Library branch created: " + branchName + " (ID: " + branchId + ")");
     }
     
     // Book Management
     public void addBook(Book book) {
+        addBook(book, CopyInventory.nextBarcode());
+    }
+    
+    /**
+     * Add a new title with its first copy; further copies go through addCopy
+     */
+    public void addBook(Book book, long barcode) {
+        addBook(book, barcode, branchId);
+    }
+    
+    void addBook(Book book, long barcode, String homeBranchId) {
         if (inventory.containsKey(book.getIsbn())) {
             logger.warning("Book with ISBN " + book.getIsbn() + " already exists");
             throw new IllegalArgumentException("Book already exists in inventory");
         }
+        if (copies.containsBarcode(barcode)) {
+            throw new IllegalArgumentException("Barcode " + barcode + " is already in use");
+        }
         
         book.setCurrentBranchId(branchId);
         inventory.put(book.getIsbn(), book);
-        logger.info("Book added to branch " + branchName + ": " + book.getTitle());
+        copies.addCopy(book.getIsbn(), barcode, homeBranchId, book.getStatus());
+        touch(book.getIsbn());
+        for (BranchListener listener : listeners) {
+            listener.bookAdded(this, book);
+        }
+        audit(AuditEventType.BOOK_ADDED, book.getIsbn(), null, barcode);
+        logger.fine(() -> "Book added to branch " + branchName + ": " + book.getTitle());
+    }
+    
+    /**
+     * Bulk-load new titles, one copy each, in a single pass: listeners are
+     * notified once and one audit event covers the batch
+     */
+    public void addBooks(List<Book> books) {
+        Set<String> batch = new HashSet<>();
+        for (Book book : books) {
+            if (inventory.containsKey(book.getIsbn()) || !batch.add(book.getIsbn())) {
+                throw new IllegalArgumentException("Book already exists in inventory: " + book.getIsbn());
+            }
+        }
+        
+        for (Book book : books) {
+            book.setCurrentBranchId(branchId);
+            inventory.put(book.getIsbn(), book);
+            copies.addCopy(book.getIsbn(), CopyInventory.nextBarcode(), branchId, book.getStatus());
+            touch(book.getIsbn());
+        }
+        List<Book> added = Collections.unmodifiableList(books);
+        for (BranchListener listener : listeners) {
+            listener.booksAdded(this, added);
+        }
+        audit(AuditEventType.BOOKS_BULK_LOADED, null, null, books.size());
+        logger.info("Bulk-loaded " + books.size() + " books into branch " + branchName);
+    }
+    
+    /**
+     * Add another copy of a title already in the inventory
+     */
+    public void addCopy(String isbn, long barcode) {
+        addCopy(isbn, barcode, branchId);
+    }
+    
+    void addCopy(String isbn, long barcode, String homeBranchId) {
+        Book book = inventory.get(isbn);
+        if (book == null) {
+            throw new NoSuchElementException("Book not found: " + isbn);
+        }
+        
+        BookStatus before = book.getStatus();
+        copies.addCopy(isbn, barcode, homeBranchId, BookStatus.AVAILABLE);
+        syncTitleStatus(book);
+        touch(isbn);
+        fireStatusChange(book, before);
+        audit(AuditEventType.COPY_ADDED, isbn, null, barcode);
+        logger.fine(() -> "Copy " + barcode + " of " + isbn + " added to branch " + branchName);
     }
     
     public void removeBook(String isbn) {
@@ -74,12 +166,51 @@ public class LibraryBranch {
             throw new NoSuchElementException("Book not found: " + isbn);
         }
         
-        if (book.getStatus() == BookStatus.CHECKED_OUT) {
+        if (copies.getCopyCount(isbn, BookStatus.CHECKED_OUT) > 0) {
             throw new IllegalStateException("Cannot remove a checked-out book");
         }
         
         inventory.remove(isbn);
-        logger.info("Book removed from branch " + branchName + ": " + isbn);
+        copies.removeTitle(isbn);
+        version.incrementAndGet();
+        bookVersions.remove(isbn);
+        for (BranchListener listener : listeners) {
+            listener.bookRemoved(this, book);
+        }
+        audit(AuditEventType.BOOK_REMOVED, isbn, null, null);
+        logger.fine(() -> "Book removed from branch " + branchName + ": " + isbn);
+    }
+    
+    /**
+     * Take one available copy off the shelf, dropping the title with its last copy
+     *
+     * @return the copy removed
+     */
+    CopyInventory.CopyInfo removeAvailableCopy(String isbn) {
+        Book book = inventory.get(isbn);
+        if (book == null) {
+            throw new NoSuchElementException("Book not found: " + isbn);
+        }
+        if (copies.getCopyCount(isbn) == 1) {
+            CopyInventory.CopyInfo copy = copies.getCopies(isbn).get(0);
+            if (copy.getStatus() != BookStatus.AVAILABLE) {
+                throw new IllegalStateException("No available copy of " + isbn);
+            }
+            removeBook(isbn);
+            return copy;
+        }
+        
+        BookStatus before = book.getStatus();
+        CopyInventory.CopyInfo copy = copies.removeCopy(isbn, BookStatus.AVAILABLE);
+        if (copy == null) {
+            throw new IllegalStateException("No available copy of " + isbn);
+        }
+        syncTitleStatus(book);
+        touch(isbn);
+        fireStatusChange(book, before);
+        audit(AuditEventType.COPY_REMOVED, isbn, null, copy.getBarcode());
+        logger.fine(() -> "Copy " + copy.getBarcode() + " of " + isbn + " removed from branch " + branchName);
+        return copy;
     }
     
     public void updateBook(String isbn, Book updatedBook) {
@@ -93,7 +224,12 @@ public class LibraryBranch {
         updatedBook.setCurrentBranchId(branchId);
         
         inventory.put(isbn, updatedBook);
-        logger.info("Book updated in branch " + branchName + ": " + isbn);
+        touch(isbn);
+        for (BranchListener listener : listeners) {
+            listener.bookUpdated(this, updatedBook);
+        }
+        audit(AuditEventType.BOOK_UPDATED, isbn, null, null);
+        logger.fine(() -> "Book updated in branch " + branchName + ": " + isbn);
     }
     
     public Book getBook(String isbn) {
@@ -104,12 +240,51 @@ public class LibraryBranch {
         return new ArrayList<>(inventory.values());
     }
     
+    public int getCopyCount(String isbn) {
+        return copies.getCopyCount(isbn);
+    }
+    
+    public int getAvailableCopyCount(String isbn) {
+        return copies.getCopyCount(isbn, BookStatus.AVAILABLE);
+    }
+    
+    public int getTotalCopyCount() {
+        return copies.getTotalCopyCount();
+    }
+    
+    public List<CopyInventory.CopyInfo> getCopies(String isbn) {
+        return copies.getCopies(isbn);
+    }
+    
+    /**
+     * The copy with a barcode, or null if it is not at this branch
+     */
+    public CopyInventory.CopyInfo getCopy(long barcode) {
+        return copies.getCopy(barcode);
+    }
+    
     public List<Book> getAvailableBooks() {
         return inventory.values().stream()
             .filter(Book::isAvailable)
             .collect(Collectors.toList());
     }
     
+    /**
+     * Available books as a recommendation pool keyed by branch ID and
+     * version, rebuilt only after the branch changes, so every request in
+     * between shares one ISBN index. The version is read before the books,
+     * so a pool never claims a newer version than the data it holds
+     */
+    public BookPool getAvailableBookPool() {
+        long current = version.get();
+        BookPool pool = availablePool;
+        if (pool == null || pool.getVersion() != current) {
+            pool = BookPool.of(branchId, current, getAvailableBooks());
+            availablePool = pool;
+        }
+        return pool;
+    }
+    
     // Search functionality using Strategy Pattern
     public List<Book> searchBooks(SearchType searchType, String query) {
         BookSearchStrategy strategy = SearchStrategyFactory.createStrategy(searchType);
@@ -122,18 +297,34 @@ public class LibraryBranch {
         if (patrons.containsKey(patron.getPatronId())) {
             throw new IllegalArgumentException("Patron already exists: " + patron.getPatronId());
         }
+        for (BranchListener listener : listeners) {
+            listener.validatePatron(this, patron);
+        }
         
         patrons.put(patron.getPatronId(), patron);
-        logger.info("Patron added to branch " + branchName + ": " + patron.getName());
+        touch(null);
+        for (BranchListener listener : listeners) {
+            listener.patronAdded(this, patron);
+        }
+        audit(AuditEventType.PATRON_ADDED, null, patron.getPatronId(), null);
+        logger.fine(() -> "Patron added to branch " + branchName + ": " + patron.getName());
     }
     
     public void updatePatron(Patron patron) {
         if (!patrons.containsKey(patron.getPatronId())) {
             throw new NoSuchElementException("Patron not found: " + patron.getPatronId());
         }
+        for (BranchListener listener : listeners) {
+            listener.validatePatron(this, patron);
+        }
         
         patrons.put(patron.getPatronId(), patron);
-        logger.info("Patron updated in branch " + branchName + ": " + patron.getPatronId());
+        touch(null);
+        for (BranchListener listener : listeners) {
+            listener.patronUpdated(this, patron);
+        }
+        audit(AuditEventType.PATRON_UPDATED, null, patron.getPatronId(), null);
+        logger.fine(() -> "Patron updated in branch " + branchName + ": " + patron.getPatronId());
     }
     
     public Patron getPatron(String patronId) {
@@ -156,13 +347,45 @@ public class LibraryBranch {
             throw new NoSuchElementException("Patron not found: " + patronId);
         }
         
+        if (patron.getCurrentCheckouts().contains(isbn)) {
+            throw new IllegalStateException("Patron already has a copy of this book");
+        }
+        BookStatus before = book.getStatus();
+        
+        // A reserved copy is released only to a patron it is held for: one
+        // with a pickup hold, or one of the waiters served so far
+        ReservationManager manager = reservations.get(isbn);
+        int position = manager != null ? manager.getPosition(patronId) : 0;
+        if (copies.getCopyCount(isbn, BookStatus.RESERVED) > 0 && patron.canCheckoutMoreBooks()) {
+            if (removePickupHold(isbn, patronId)) {
+                releaseReservedCopy(book);
+            } else if (position > 0 && position <= getReservedForWaitlist(isbn)) {
+                releaseReservedCopy(book);
+            }
+        }
+        
+        // Validate at copy level before the command changes any state
+        if (copies.getCopyCount(isbn, BookStatus.AVAILABLE) == 0) {
+            throw new IllegalStateException("Book is not available for checkout");
+        }
+        
         CheckoutCommand command = new CheckoutCommand(book, patron);
         command.execute();
+        copies.checkOut(isbn, patronId);
+        syncTitleStatus(book);
+        
+        if (position > 0) {
+            manager.reservationFulfilled(patronId);
+        }
+        fireStatusChange(book, before);
+        // Readers that see the new version see the settled state
+        touch(isbn);
+        CirculationEvents.getInstance().fireCheckout(book, patron);
         
         Transaction transaction = command.getTransaction();
-        transactions.add(transaction);
+        transactions.append(transaction);
         
-        logger.info(String.format("Book %s checked out by patron %s at branch %s", 
+        logger.fine(() -> String.format("Book %s checked out by patron %s at branch %s", 
             isbn, patronId, branchName));
         
         return transaction;
@@ -179,19 +402,40 @@ public class LibraryBranch {
             throw new NoSuchElementException("Patron not found: " + patronId);
         }
         
+        // The copy must come back to the branch that lent it; check before the
+        // command changes any state
+        if (patron.getCurrentCheckouts().contains(isbn) && !copies.isLentTo(isbn, patronId)) {
+            throw new IllegalStateException("Patron " + patronId + " did not borrow " + isbn + " from this branch");
+        }
+        
+        BookStatus before = book.getStatus();
         ReturnCommand command = new ReturnCommand(book, patron);
         command.execute();
+        copies.checkIn(isbn, patronId);
         
         Transaction transaction = command.getTransaction();
-        transactions.add(transaction);
+        transactions.append(transaction);
         
-        // Check if there are reservations and notify
-        if (reservations.containsKey(isbn)) {
-            ReservationManager manager = reservations.get(isbn);
-            manager.bookReturned();
+        // Set the copy aside for the first waiter not yet served, if any
+        ReservationManager manager = reservations.get(isbn);
+        int served = getReservedForWaitlist(isbn);
+        if (manager != null && manager.getWaitlistSize() > served) {
+            copies.changeStatus(isbn, BookStatus.AVAILABLE, BookStatus.RESERVED);
+            manager.notifyWaiter(served + 1);
+        }
+        syncTitleStatus(book);
+        fireStatusChange(book, before);
+        touch(isbn);
+        CirculationEvents.getInstance().fireReturn(book, patron);
+        
+        // Offer a copy nobody here is waiting for to system-wide holds
+        if (book.isAvailable()) {
+            for (BranchListener listener : listeners) {
+                listener.bookReturned(this, book);
+            }
         }
         
-        logger.info(String.format("Book %s returned by patron %s at branch %s", 
+        logger.fine(() -> String.format("Book %s returned by patron %s at branch %s", 
             isbn, patronId, branchName));
         
         return transaction;
@@ -219,8 +463,10 @@ public class LibraryBranch {
         
         PatronNotifier notifier = new PatronNotifier(patron);
         manager.attach(notifier);
+        touch(isbn);
         
-        logger.info(String.format("Patron %s reserved book %s at branch %s", 
+        audit(AuditEventType.RESERVATION_PLACED, isbn, patronId, null);
+        logger.fine(() -> String.format("Patron %s reserved book %s at branch %s", 
             patronId, isbn, branchName));
     }
     
@@ -235,18 +481,176 @@ public class LibraryBranch {
         }
         
         ReservationManager manager = reservations.get(isbn);
-        PatronNotifier notifier = new PatronNotifier(patron);
-        manager.detach(notifier);
+        int served = getReservedForWaitlist(isbn);
+        int position = manager.getPosition(patronId);
+        if (!manager.cancel(patronId)) {
+            throw new IllegalStateException("Patron " + patronId + " has no reservation for this book");
+        }
+        
+        // A copy already set aside for this patron passes to the next waiter
+        // not yet served, or goes back on the shelf
+        if (position > 0 && position <= served) {
+            Book book = inventory.get(isbn);
+            BookStatus before = book.getStatus();
+            if (manager.getWaitlistSize() >= served) {
+                manager.notifyWaiter(served);
+            } else {
+                copies.changeStatus(isbn, BookStatus.RESERVED, BookStatus.AVAILABLE);
+                syncTitleStatus(book);
+                fireStatusChange(book, before);
+                for (BranchListener listener : listeners) {
+                    listener.bookReturned(this, book);
+                }
+            }
+        }
+        touch(isbn);
         
-        logger.info(String.format("Patron %s cancelled reservation for book %s", 
+        audit(AuditEventType.RESERVATION_CANCELLED, isbn, patronId, null);
+        logger.fine(() -> String.format("Patron %s cancelled reservation for book %s", 
             patronId, isbn));
     }
     
+    /**
+     * Set a copy aside for a patron whose consortium hold was routed here
+     */
+    public void holdForPickup(String isbn, String patronId) {
+        Book book = inventory.get(isbn);
+        if (book == null) {
+            throw new NoSuchElementException("Book not found: " + isbn);
+        }
+        if (!book.isAvailable()) {
+            throw new IllegalStateException("Book is not available to hold: " + isbn);
+        }
+        boolean[] added = new boolean[1];
+        heldForPickup.compute(isbn, (k, patronIds) -> {
+            Set<String> held = patronIds != null ? patronIds : ConcurrentHashMap.newKeySet();
+            added[0] = held.add(patronId);
+            return held;
+        });
+        if (!added[0]) {
+            throw new IllegalStateException("A copy is already held for pickup by " + patronId + ": " + isbn);
+        }
+        
+        copies.changeStatus(isbn, BookStatus.AVAILABLE, BookStatus.RESERVED);
+        syncTitleStatus(book);
+        fireStatusChange(book, BookStatus.AVAILABLE);
+        touch(isbn);
+        audit(AuditEventType.HELD_FOR_PICKUP, isbn, patronId, null);
+        logger.fine(() -> String.format("Book %s held for pickup by patron %s at branch %s", 
+            isbn, patronId, branchName));
+    }
+    
+    /**
+     * Patrons with a copy set aside here by a routed consortium hold; each has
+     * one reserved copy
+     */
+    public Set<String> getPickupPatronIds(String isbn) {
+        Set<String> patronIds = heldForPickup.get(isbn);
+        return patronIds != null ? Collections.unmodifiableSet(patronIds) : Collections.emptySet();
+    }
+    
+    public boolean isHeldForPickup(String isbn, String patronId) {
+        return getPickupPatronIds(isbn).contains(patronId);
+    }
+    
+    /**
+     * Reserved copies set aside for the waitlist rather than pickup holds;
+     * the waiters in that many first positions have been served
+     */
+    private int getReservedForWaitlist(String isbn) {
+        return copies.getCopyCount(isbn, BookStatus.RESERVED) - getPickupPatronIds(isbn).size();
+    }
+    
+    private boolean removePickupHold(String isbn, String patronId) {
+        boolean[] removed = new boolean[1];
+        heldForPickup.computeIfPresent(isbn, (k, patronIds) -> {
+            removed[0] = patronIds.remove(patronId);
+            return patronIds.isEmpty() ? null : patronIds;
+        });
+        return removed[0];
+    }
+    
     public int getReservationWaitlistSize(String isbn) {
         ReservationManager manager = reservations.get(isbn);
         return manager != null ? manager.getWaitlistSize() : 0;
     }
     
+    /**
+     * 1-based waitlist position of a patron for a book, or 0 if not waiting
+     */
+    public int getReservationPosition(String isbn, String patronId) {
+        ReservationManager manager = reservations.get(isbn);
+        return manager != null ? manager.getPosition(patronId) : 0;
+    }
+    
+    /**
+     * Branch version, incremented by every change to its books, copies,
+     * patrons, reservations or transactions
+     */
+    public long getVersion() {
+        return version.get();
+    }
+    
+    /**
+     * Version of a book's title, copies and reservations at this branch, or 0
+     * if the branch does not hold it. Versions are never reused, even after
+     * the book is removed and added again
+     */
+    public long getBookVersion(String isbn) {
+        return bookVersions.getOrDefault(isbn, 0L);
+    }
+    
+    private void touch(String isbn) {
+        long current = version.incrementAndGet();
+        if (isbn != null) {
+            bookVersions.put(isbn, current);
+        }
+    }
+    
+    private void audit(AuditEventType type, String isbn, String patronId, String detail) {
+        AuditLog.getInstance().record(type, branchId, isbn, patronId, detail);
+    }
+    
+    private void audit(AuditEventType type, String isbn, String patronId, long detail) {
+        AuditLog.getInstance().record(type, branchId, isbn, patronId, detail);
+    }
+    
+    /**
+     * Hand a reserved copy to the patron it was held for; the title status
+     * follows once the copy is checked out
+     */
+    private void releaseReservedCopy(Book book) {
+        copies.changeStatus(book.getIsbn(), BookStatus.RESERVED, BookStatus.AVAILABLE);
+    }
+    
+    private void fireStatusChange(Book book, BookStatus before) {
+        if (book.getStatus() != before) {
+            for (BranchListener listener : listeners) {
+                listener.bookStatusChanged(this, book);
+            }
+        }
+    }
+    
+    /**
+     * Bring the title-level status in line with its copies: available while
+     * any copy is on the shelf
+     */
+    private void syncTitleStatus(Book book) {
+        BookStatus status = copies.getTitleStatus(book.getIsbn());
+        if (status != null && status != book.getStatus()) {
+            book.setStatus(status);
+        }
+    }
+    
+    // Listeners
+    public void addListener(BranchListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(BranchListener listener) {
+        listeners.remove(listener);
+    }
+    
     // Getters
     public String getBranchId() {
         return branchId;
@@ -260,8 +664,16 @@ public class LibraryBranch {
         return address;
     }
     
+    /**
+     * Transactions recorded so far, oldest first; later ones are not added
+     * to the returned list
+     */
     public List<Transaction> getTransactions() {
-        return Collections.unmodifiableList(transactions);
+        return transactions.snapshot();
+    }
+    
+    TransactionLog getTransactionLog() {
+        return transactions;
     }
     
     public Map<String, Book> getInventory() {
@@ -1,14 +1,27 @@
 package com.library.core;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.logging.Logger;
 
+import com.library.catalog.CatalogIndex;
+import com.library.index.BorrowerIndex;
 import com.library.model.Book;
 import com.library.model.BookStatus;
+import com.library.model.Patron;
+import com.library.observer.PatronNotifier;
+import com.library.recommendation.CoBorrowingModel;
+import com.library.recommendation.PopularityTracker;
+import com.library.recommendation.SimilarBooksIndex;
+import com.library.search.SearchType;
+import com.library.transaction.CirculationEvents;
 
 /**
  * Main library system managing multiple branches Implements Singleton Pattern
@@ -20,10 +33,41 @@ public class LibrarySystem {
 	private static LibrarySystem instance;
 
 	private final Map<String, LibraryBranch> branches;
+	private final PatronDirectory patronDirectory;
+	private final BranchListener catalogSync;
+	private final ConsortiumHolds holds;
+	private final ChangeFeed changeFeed;
+	private final IsbnLocationIndex locations;
 
 	// Private constructor for Singleton pattern
 	private LibrarySystem() {
 		this.branches = new HashMap<>();
+		this.patronDirectory = new PatronDirectory();
+		this.holds = new ConsortiumHolds();
+		this.changeFeed = new ChangeFeed();
+		this.locations = new IsbnLocationIndex();
+		this.catalogSync = new BranchListener() {
+			@Override
+			public void bookAdded(LibraryBranch branch, Book book) {
+				CatalogIndex.getInstance().register(book);
+			}
+
+			@Override
+			public void bookUpdated(LibraryBranch branch, Book book) {
+				CatalogIndex.getInstance().register(book);
+			}
+
+			@Override
+			public void bookReturned(LibraryBranch branch, Book book) {
+				routeToHold(branch, book);
+			}
+		};
+
+		// System-wide consumers of checkouts and returns
+		CirculationEvents.getInstance().addListener(BorrowerIndex.getInstance());
+		CirculationEvents.getInstance().addListener(CoBorrowingModel.getInstance());
+		CirculationEvents.getInstance().addListener(PopularityTracker.getInstance());
+		CirculationEvents.getInstance().addListener(SimilarBooksIndex.getInstance());
 		logger.info("Library System initialized");
 	}
 
@@ -42,8 +86,23 @@ public class LibrarySystem {
 		if (branches.containsKey(branch.getBranchId())) {
 			throw new IllegalArgumentException("Branch already exists: " + branch.getBranchId());
 		}
+		for (Patron patron : branch.getAllPatrons()) {
+			patronDirectory.checkNew(patron);
+		}
 
 		branches.put(branch.getBranchId(), branch);
+		for (Patron patron : branch.getAllPatrons()) {
+			patronDirectory.register(branch.getBranchId(), patron);
+		}
+		for (Book book : branch.getAllBooks()) {
+			CatalogIndex.getInstance().register(book);
+			changeFeed.bookAdded(branch, book);
+			locations.register(branch.getBranchId(), book.getIsbn());
+		}
+		branch.addListener(patronDirectory);
+		branch.addListener(catalogSync);
+		branch.addListener(changeFeed);
+		branch.addListener(locations);
 		logger.info("Branch added to system: " + branch.getBranchName());
 	}
 
@@ -59,9 +118,122 @@ public class LibrarySystem {
 		return new ArrayList<>(branches.values());
 	}
 
+	// Patron Directory
+	public Patron findPatron(String patronId) {
+		return patronDirectory.findById(patronId);
+	}
+
+	public Patron findPatronByEmail(String email) {
+		return patronDirectory.findByEmail(email);
+	}
+
+	public Patron findPatronByPhone(String phoneNumber) {
+		return patronDirectory.findByPhone(phoneNumber);
+	}
+
+	/**
+	 * Branches where a patron is registered, for cross-branch patron validation
+	 */
+	public Set<String> getPatronBranches(String patronId) {
+		return patronDirectory.getBranchIds(patronId);
+	}
+
+	public PatronDirectory getPatronDirectory() {
+		return patronDirectory;
+	}
+
+	/**
+	 * Ordered stream of catalog and status changes across all branches, for
+	 * read replicas
+	 */
+	public ChangeFeed getChangeFeed() {
+		return changeFeed;
+	}
+
+	// Consortium Holds
 	/**
-	 * Transfer a book from one branch to another Demonstrates inter-branch
-	 * operations
+	 * Place a system-wide hold on a title, fulfilled by whichever branch's copy
+	 * becomes available first and transferred to the pickup branch
+	 */
+	public void placeHold(String isbn, String patronId, String pickupBranchId) {
+		getBranch(pickupBranchId);
+		if (patronDirectory.findById(patronId) == null) {
+			throw new NoSuchElementException("Patron not found: " + patronId);
+		}
+		if (!holds.placeHold(isbn, patronId, pickupBranchId)) {
+			throw new IllegalStateException("Patron " + patronId + " already holds " + isbn);
+		}
+		logger.info(String.format("Patron %s placed a consortium hold on %s for pickup at %s", patronId, isbn,
+				pickupBranchId));
+
+		// A copy may already be sitting on a shelf somewhere
+		for (LibraryBranch branch : branches.values()) {
+			Book book = branch.getBook(isbn);
+			if (book != null && book.isAvailable() && routeToHold(branch, book)) {
+				return;
+			}
+		}
+	}
+
+	public void cancelHold(String isbn, String patronId) {
+		if (!holds.cancelHold(isbn, patronId)) {
+			throw new IllegalStateException("Patron " + patronId + " has no hold on " + isbn);
+		}
+	}
+
+	/**
+	 * Whether a return of the title may be routed to a consortium hold, and
+	 * so touch branches other than the returning one
+	 */
+	public boolean hasHolds(String isbn) {
+		return holds.hasHolds(isbn);
+	}
+
+	public int getHoldQueueLength(String isbn) {
+		return holds.getQueueLength(isbn);
+	}
+
+	/**
+	 * Route an available copy to the oldest hold that can take it,
+	 * transferring it if the pickup branch is elsewhere. Holds that fail to
+	 * route go back to their place in the queue and the next one is tried
+	 */
+	private boolean routeToHold(LibraryBranch branch, Book book) {
+		String isbn = book.getIsbn();
+		Set<String> tried = new HashSet<>();
+		while (branch.getAvailableCopyCount(isbn) > 0) {
+			ConsortiumHolds.Hold hold = holds.claimNext(isbn, tried);
+			if (hold == null) {
+				return false;
+			}
+			try {
+				LibraryBranch pickupBranch = getBranch(hold.getPickupBranchId());
+				if (pickupBranch.isHeldForPickup(isbn, hold.getPatronId())) {
+					throw new IllegalStateException("A copy is already waiting for " + hold.getPatronId());
+				}
+				if (pickupBranch != branch) {
+					transferBook(isbn, branch.getBranchId(), pickupBranch.getBranchId());
+				}
+				pickupBranch.holdForPickup(isbn, hold.getPatronId());
+			} catch (RuntimeException e) {
+				logger.warning("Could not route hold " + hold + ": " + e.getMessage());
+				holds.restore(hold);
+				tried.add(hold.getPatronId());
+				continue;
+			}
+
+			Patron patron = patronDirectory.findById(hold.getPatronId());
+			if (patron != null) {
+				new PatronNotifier(patron).notify(book);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Transfer one available copy of a book from one branch to another
+	 * Demonstrates inter-branch operations
 	 */
 	public void transferBook(String isbn, String fromBranchId, String toBranchId) {
 		LibraryBranch fromBranch = getBranch(fromBranchId);
@@ -72,23 +244,58 @@ public class LibrarySystem {
 			throw new NoSuchElementException("Book not found in source branch: " + isbn);
 		}
 
-		if (book.getStatus() == BookStatus.CHECKED_OUT) {
-			throw new IllegalStateException("Cannot transfer a checked-out book");
-		}
+		// The Book object travels with the last copy; otherwise the destination gets its own
+		boolean lastCopy = fromBranch.getCopyCount(isbn) == 1;
+		CopyInventory.CopyInfo copy = dispatchCopy(isbn, fromBranchId);
+		Book moved = lastCopy ? book
+				: new Book(isbn, book.getTitle(), book.getAuthor(), book.getPublicationYear(), book.getSubjects());
+		receiveCopy(moved, copy.getBarcode(), copy.getHomeBranchId(), toBranchId);
 
-		// Remove from source branch
-		fromBranch.removeBook(isbn);
+		logger.info(() -> String.format("Book %s transferred from %s to %s", isbn, fromBranch.getBranchName(),
+				toBranch.getBranchName()));
+	}
 
-		// Update book's branch
-		book.setCurrentBranchId(toBranchId);
-		book.setStatus(BookStatus.IN_TRANSIT);
+	/**
+	 * First half of a transfer: take one available copy off the source
+	 * branch's shelf. The title leaves the branch with its last copy
+	 *
+	 * @return the copy in transit
+	 */
+	public CopyInventory.CopyInfo dispatchCopy(String isbn, String fromBranchId) {
+		LibraryBranch fromBranch = getBranch(fromBranchId);
+		Book book = fromBranch.getBook(isbn);
+		if (book == null) {
+			throw new NoSuchElementException("Book not found in source branch: " + isbn);
+		}
 
-		// Add to destination branch
-		toBranch.addBook(book);
-		book.setStatus(BookStatus.AVAILABLE);
+		if (fromBranch.getAvailableCopyCount(isbn) == 0) {
+			throw new IllegalStateException(book.getStatus() == BookStatus.CHECKED_OUT
+					? "Cannot transfer a checked-out book"
+					: "No available copy to transfer: " + isbn);
+		}
+		return fromBranch.removeAvailableCopy(isbn);
+	}
 
-		logger.info(String.format("Book " + isbn + " transferred from " + fromBranch.getBranchName() + " to "
-				+ toBranch.getBranchName()));
+	/**
+	 * Second half of a transfer: shelve an arriving copy at the destination,
+	 * adding the book as a new title there if needed
+	 */
+	public void receiveCopy(Book book, long barcode, String homeBranchId, String toBranchId) {
+		LibraryBranch toBranch = getBranch(toBranchId);
+		if (toBranch.getBook(book.getIsbn()) != null) {
+			toBranch.addCopy(book.getIsbn(), barcode, homeBranchId);
+		} else {
+			book.setCurrentBranchId(toBranchId);
+			toBranch.addBook(book, barcode, homeBranchId);
+		}
+	}
+
+	/**
+	 * Search the system-wide catalog, including titles served from an
+	 * attached off-heap store that no branch holds
+	 */
+	public List<Book> searchCatalog(SearchType searchType, String query) {
+		return CatalogIndex.getInstance().search(searchType, query);
 	}
 
 	/**
@@ -97,16 +304,58 @@ public class LibrarySystem {
 	public Map<String, Book> findBookAcrossBranches(String isbn) {
 		Map<String, Book> results = new HashMap<>();
 
-		for (LibraryBranch branch : branches.values()) {
-			Book book = branch.getBook(isbn);
+		for (String branchId : locations.getBranchIds(isbn)) {
+			Book book = branches.get(branchId).getBook(isbn);
 			if (book != null) {
-				results.put(branch.getBranchId(), book);
+				results.put(branchId, book);
 			}
 		}
 
 		return results;
 	}
 
+	/**
+	 * Where each of a list of titles can be found, for example a reading list
+	 *
+	 * @return per ISBN, in request order, the branches holding it; empty for
+	 *         titles no branch holds
+	 */
+	public Map<String, List<BranchAvailability>> getAvailability(Collection<String> isbns) {
+		Map<String, List<BranchAvailability>> results = new LinkedHashMap<>();
+		for (String isbn : isbns) {
+			if (results.containsKey(isbn)) {
+				continue;
+			}
+			List<BranchAvailability> holdings = new ArrayList<>();
+			for (String branchId : locations.getBranchIds(isbn)) {
+				LibraryBranch branch = branches.get(branchId);
+				Book book = branch.getBook(isbn);
+				if (book != null) {
+					holdings.add(new BranchAvailability(branchId, book.getStatus(),
+							branch.getAvailableCopyCount(isbn), branch.getCopyCount(isbn)));
+				}
+			}
+			results.put(isbn, holdings);
+		}
+		return results;
+	}
+
+	public IsbnLocationIndex getLocationIndex() {
+		return locations;
+	}
+
+	/**
+	 * Consortium version: changes whenever a branch is added or any branch
+	 * changes, so it can validate cached statistics
+	 */
+	public long getVersion() {
+		long version = branches.size();
+		for (LibraryBranch branch : branches.values()) {
+			version += branch.getVersion();
+		}
+		return version;
+	}
+
 	/**
 	 * Get system-wide statistics
 	 */
@@ -0,0 +1,185 @@
+package com.library.core;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import com.library.model.Patron;
+
+/**
+ * System-wide patron directory with a primary index by patron ID and
+ * secondary indexes by email and phone number. Lookups are lock-free; index
+ * maintenance is serialized since registrations are rare compared to desk
+ * lookups. The directory listens for contact changes on every patron it
+ * holds, so Patron.setEmail and setPhoneNumber reindex directly. A patron ID
+ * is bound to one Patron object: registering another object under the ID is
+ * rejected, and a branch may only replace it through updatePatron while no
+ * other branch holds the ID
+ */
+public class PatronDirectory implements BranchListener {
+	private static final Logger logger = Logger.getLogger(PatronDirectory.class.getName());
+
+	private final Map<String, Patron> patronsById;
+	private final Map<String, Patron> patronsByEmail;
+	private final Map<String, Patron> patronsByPhone;
+	private final Map<String, Set<String>> branchesByPatron; // PatronId -> BranchIds
+	private final Map<String, String[]> indexedKeys; // PatronId -> {email, phone} currently indexed
+	private final Consumer<Patron> contactListener = this::reindex;
+
+	public PatronDirectory() {
+		this.patronsById = new ConcurrentHashMap<>();
+		this.patronsByEmail = new ConcurrentHashMap<>();
+		this.patronsByPhone = new ConcurrentHashMap<>();
+		this.branchesByPatron = new ConcurrentHashMap<>();
+		this.indexedKeys = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the ID is bound to another Patron
+	 *                                  object
+	 */
+	public synchronized void register(String branchId, Patron patron) {
+		checkNew(patron);
+		branchesByPatron.computeIfAbsent(patron.getPatronId(), k -> ConcurrentHashMap.newKeySet()).add(branchId);
+		index(patron);
+	}
+
+	/**
+	 * Refresh the secondary indexes after a patron's email or phone changed.
+	 * Setter changes are picked up without calling this
+	 *
+	 * @throws IllegalArgumentException if the ID is bound to another Patron
+	 *                                  object
+	 */
+	public synchronized void reindex(Patron patron) {
+		checkNew(patron);
+		index(patron);
+	}
+
+	public Patron findById(String patronId) {
+		return patronsById.get(patronId);
+	}
+
+	public Patron findByEmail(String email) {
+		String key = normalizeEmail(email);
+		return key != null ? patronsByEmail.get(key) : null;
+	}
+
+	public Patron findByPhone(String phoneNumber) {
+		String key = normalizePhone(phoneNumber);
+		return key != null ? patronsByPhone.get(key) : null;
+	}
+
+	public Set<String> getBranchIds(String patronId) {
+		Set<String> branchIds = branchesByPatron.get(patronId);
+		return branchIds != null ? Collections.unmodifiableSet(branchIds) : Collections.emptySet();
+	}
+
+	public boolean isRegisteredElsewhere(String patronId, String branchId) {
+		Set<String> branchIds = branchesByPatron.get(patronId);
+		if (branchIds == null) {
+			return false;
+		}
+		return branchIds.size() > (branchIds.contains(branchId) ? 1 : 0);
+	}
+
+	public int size() {
+		return patronsById.size();
+	}
+
+	@Override
+	public synchronized void validatePatron(LibraryBranch branch, Patron patron) {
+		if (branch.getPatron(patron.getPatronId()) == null) {
+			checkNew(patron);
+		} else if (patronsById.get(patron.getPatronId()) != patron
+				&& isRegisteredElsewhere(patron.getPatronId(), branch.getBranchId())) {
+			throw new IllegalArgumentException("Patron " + patron.getPatronId()
+					+ " is registered at other branches and cannot be replaced at " + branch.getBranchId());
+		}
+	}
+
+	@Override
+	public void patronAdded(LibraryBranch branch, Patron patron) {
+		register(branch.getBranchId(), patron);
+	}
+
+	@Override
+	public synchronized void patronUpdated(LibraryBranch branch, Patron patron) {
+		index(patron); // validated, so a replacement here is this branch's own
+	}
+
+	private void index(Patron patron) {
+		String patronId = patron.getPatronId();
+		Patron bound = patronsById.put(patronId, patron);
+		if (bound != patron) {
+			if (bound != null) {
+				bound.removeContactListener(contactListener);
+			}
+			patron.addContactListener(contactListener);
+		}
+
+		String[] previous = indexedKeys.get(patronId);
+		if (previous != null) {
+			removeIfOwned(patronsByEmail, previous[0], patronId);
+			removeIfOwned(patronsByPhone, previous[1], patronId);
+		}
+
+		String email = normalizeEmail(patron.getEmail());
+		String phone = normalizePhone(patron.getPhoneNumber());
+		putUnique(patronsByEmail, email, patron, "email");
+		putUnique(patronsByPhone, phone, patron, "phone");
+		indexedKeys.put(patronId, new String[] { email, phone });
+	}
+
+	/**
+	 * Reject a Patron object whose ID is already bound to another one
+	 */
+	synchronized void checkNew(Patron patron) {
+		Patron bound = patronsById.get(patron.getPatronId());
+		if (bound != null && bound != patron) {
+			throw new IllegalArgumentException("Patron ID already registered to another patron: " + patron.getPatronId());
+		}
+	}
+
+	private static void putUnique(Map<String, Patron> index, String key, Patron patron, String field) {
+		if (key == null) {
+			return;
+		}
+		Patron existing = index.put(key, patron);
+		if (existing != null && !existing.getPatronId().equals(patron.getPatronId())) {
+			logger.warning("Patron " + patron.getPatronId() + " shares " + field + " with patron "
+					+ existing.getPatronId());
+		}
+	}
+
+	private static void removeIfOwned(Map<String, Patron> index, String key, String patronId) {
+		if (key != null) {
+			index.computeIfPresent(key, (k, owner) -> owner.getPatronId().equals(patronId) ? null : owner);
+		}
+	}
+
+	static String normalizeEmail(String email) {
+		if (email == null || email.trim().isEmpty()) {
+			return null;
+		}
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	static String normalizePhone(String phoneNumber) {
+		if (phoneNumber == null) {
+			return null;
+		}
+		StringBuilder digits = new StringBuilder(phoneNumber.length());
+		for (int i = 0; i < phoneNumber.length(); i++) {
+			char c = phoneNumber.charAt(i);
+			if (Character.isDigit(c)) {
+				digits.append(c);
+			}
+		}
+		return digits.length() > 0 ? digits.toString() : null;
+	}
+}
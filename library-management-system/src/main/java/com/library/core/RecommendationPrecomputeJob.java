@@ -0,0 +1,112 @@
+package com.library.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.recommendation.PrecomputedRecommendations;
+import com.library.recommendation.RecommendationEngine;
+
+/**
+ * Offline job computing top-k recommendations for every patron of every
+ * branch in parallel. Each branch shares one immutable snapshot of its
+ * available books across all patrons, and results are written to a
+ * {@link PrecomputedRecommendations} file for the online path to map
+ */
+public class RecommendationPrecomputeJob {
+	private static final Logger logger = Logger.getLogger(RecommendationPrecomputeJob.class.getName());
+	private static final int PATRONS_PER_TASK = 64;
+
+	private final RecommendationEngine engine;
+	private final int topK;
+	private final int parallelism;
+
+	public RecommendationPrecomputeJob(RecommendationEngine engine, int topK) {
+		this(engine, topK, Runtime.getRuntime().availableProcessors());
+	}
+
+	public RecommendationPrecomputeJob(RecommendationEngine engine, int topK, int parallelism) {
+		if (topK <= 0) {
+			throw new IllegalArgumentException("topK must be positive");
+		}
+		this.engine = engine;
+		this.topK = topK;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Compute recommendations for all patrons of the branches and write them
+	 * to the output file
+	 *
+	 * @return number of patron recommendation lists written
+	 */
+	public int run(Collection<LibraryBranch> branches, Path output) throws IOException {
+		long start = System.currentTimeMillis();
+		Map<String, List<String>> results = new ConcurrentHashMap<>();
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			for (LibraryBranch branch : branches) {
+				List<Book> snapshot = branch.getAvailableBookPool();
+				List<Patron> patrons = branch.getAllPatrons();
+				pool.invoke(new PatronBatch(branch.getBranchId(), patrons, snapshot, results, 0, patrons.size()));
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		PrecomputedRecommendations.write(output, results, topK);
+		logger.info(String.format("Precomputed recommendations for %d patrons in %d ms", results.size(),
+				System.currentTimeMillis() - start));
+		return results.size();
+	}
+
+	private class PatronBatch extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final String branchId;
+		private final List<Patron> patrons;
+		private final List<Book> snapshot;
+		private final Map<String, List<String>> results;
+		private final int from;
+		private final int to;
+
+		PatronBatch(String branchId, List<Patron> patrons, List<Book> snapshot, Map<String, List<String>> results,
+				int from, int to) {
+			this.branchId = branchId;
+			this.patrons = patrons;
+			this.snapshot = snapshot;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PATRONS_PER_TASK) {
+				for (int i = from; i < to; i++) {
+					Patron patron = patrons.get(i);
+					List<Book> recommendations = engine.getRecommendations(patron, snapshot, topK);
+					List<String> isbns = new ArrayList<>(recommendations.size());
+					for (Book book : recommendations) {
+						isbns.add(book.getIsbn());
+					}
+					results.put(PrecomputedRecommendations.key(branchId, patron.getPatronId()), isbns);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new PatronBatch(branchId, patrons, snapshot, results, from, middle),
+					new PatronBatch(branchId, patrons, snapshot, results, middle, to));
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package com.library.core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.library.transaction.Transaction;
+
+/**
+ * Streams branch transactions as NDJSON, one object per line, without
+ * materializing the result. Branches are exported in branch ID order and
+ * each branch's transactions in the order they were recorded. Every row
+ * carries a cursor, its branch and position in that branch's log, so an
+ * interrupted export resumes after the last cursor a client received
+ * without searching for it
+ */
+public class TransactionExporter {
+	private static final Logger logger = Logger.getLogger(TransactionExporter.class.getName());
+	private static final int FLUSH_INTERVAL = 1000;
+	private static final char CURSOR_SEPARATOR = ':';
+
+	private final LibrarySystem system;
+
+	public TransactionExporter(LibrarySystem system) {
+		this.system = system;
+	}
+
+	/**
+	 * Prepare an export. Unknown branches and malformed cursors are rejected
+	 * here, before anything is written
+	 *
+	 * @param branchId    branch to export, or null for all
+	 * @param from        earliest transaction date, inclusive, or null
+	 * @param to          latest transaction date, exclusive, or null
+	 * @param afterCursor cursor of the last row already received, or null
+	 */
+	public Export export(String branchId, Date from, Date to, String afterCursor) {
+		List<LibraryBranch> branches = new ArrayList<>();
+		if (branchId != null) {
+			branches.add(system.getBranch(branchId));
+		} else {
+			branches.addAll(system.getAllBranches());
+			branches.sort(Comparator.comparing(LibraryBranch::getBranchId));
+		}
+		if (from != null && to != null && !from.before(to)) {
+			throw new IllegalArgumentException("Export range is empty: " + from + " to " + to);
+		}
+
+		int startBranch = 0;
+		int startPosition = 0;
+		if (afterCursor != null) {
+			int separator = afterCursor.lastIndexOf(CURSOR_SEPARATOR);
+			String cursorBranchId = separator > 0 ? afterCursor.substring(0, separator) : null;
+			startBranch = -1;
+			for (int b = 0; b < branches.size(); b++) {
+				if (branches.get(b).getBranchId().equals(cursorBranchId)) {
+					startBranch = b;
+					break;
+				}
+			}
+			try {
+				startPosition = startBranch >= 0 ? Integer.parseInt(afterCursor.substring(separator + 1)) : -1;
+			} catch (NumberFormatException e) {
+				startPosition = -1;
+			}
+			if (startPosition <= 0 || startPosition > branches.get(startBranch).getTransactionLog().size()) {
+				throw new IllegalArgumentException("Unknown export cursor: " + afterCursor);
+			}
+		}
+		return new Export(branches, from, to, startBranch, startPosition);
+	}
+
+	/**
+	 * A prepared export; rows recorded after preparation are included up to
+	 * the point each branch is reached
+	 */
+	public static final class Export {
+		private final List<LibraryBranch> branches;
+		private final Date from;
+		private final Date to;
+		private final int startBranch;
+		private final int startPosition;
+		private long rowsWritten;
+		private String lastCursor;
+
+		private Export(List<LibraryBranch> branches, Date from, Date to, int startBranch, int startPosition) {
+			this.branches = branches;
+			this.from = from;
+			this.to = to;
+			this.startBranch = startBranch;
+			this.startPosition = startPosition;
+		}
+
+		/**
+		 * Write the rows, flushing every thousand so a chunked response
+		 * reaches the client as it is produced. The stream is not closed
+		 *
+		 * @return number of rows written
+		 */
+		public long writeTo(OutputStream out) throws IOException {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+			StringBuilder line = new StringBuilder(256);
+			for (int b = startBranch; b < branches.size(); b++) {
+				LibraryBranch branch = branches.get(b);
+				TransactionLog transactions = branch.getTransactionLog();
+				int end = transactions.size();
+				for (int i = b == startBranch ? startPosition : 0; i < end; i++) {
+					Transaction transaction = transactions.get(i);
+					if (!inRange(transaction.getTransactionDate())) {
+						continue;
+					}
+					String cursor = branch.getBranchId() + CURSOR_SEPARATOR + (i + 1);
+					line.setLength(0);
+					appendJson(line, branch.getBranchId(), cursor, transaction);
+					writer.write(line.append('\n').toString());
+					lastCursor = cursor;
+					if (++rowsWritten % FLUSH_INTERVAL == 0) {
+						writer.flush();
+					}
+				}
+			}
+			writer.flush();
+			logger.info("Exported " + rowsWritten + " transactions");
+			return rowsWritten;
+		}
+
+		public long getRowsWritten() {
+			return rowsWritten;
+		}
+
+		/**
+		 * Cursor to resume after if the export is interrupted, or null if no
+		 * rows were written
+		 */
+		public String getLastCursor() {
+			return lastCursor;
+		}
+
+		private boolean inRange(Date date) {
+			return (from == null || !date.before(from)) && (to == null || date.before(to));
+		}
+	}
+
+	private static void appendJson(StringBuilder json, String branchId, String cursor, Transaction transaction) {
+		json.append('{');
+		appendField(json, "id", transaction.getTransactionId());
+		json.append(',');
+		appendField(json, "cursor", cursor);
+		json.append(',');
+		appendField(json, "branch", branchId);
+		json.append(',');
+		appendField(json, "type", transaction.getType().name());
+		json.append(',');
+		appendField(json, "isbn", transaction.getIsbn());
+		json.append(',');
+		appendField(json, "patron", transaction.getPatronId());
+		json.append(",\"date\":").append(transaction.getTransactionDate().getTime());
+		if (transaction.getDueDate() != null) {
+			json.append(",\"due\":").append(transaction.getDueDate().getTime());
+		}
+		if (transaction.getReturnDate() != null) {
+			json.append(",\"returned\":").append(transaction.getReturnDate().getTime());
+		}
+		json.append('}');
+	}
+
+	private static void appendField(StringBuilder json, String name, String value) {
+		json.append('"').append(name).append("\":");
+		if (value == null) {
+			json.append("null");
+			return;
+		}
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+}
@@ -0,0 +1,74 @@
+package com.library.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.library.transaction.Transaction;
+
+/**
+ * Append-only transaction history of one branch. Appends are serialized;
+ * readers take no lock. Entries live in fixed-size chunks that are never
+ * copied, and the size is published after the entry is written, so a
+ * reader sees every transaction below the size it read
+ */
+final class TransactionLog {
+	private static final int CHUNK_BITS = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private volatile Transaction[][] chunks;
+	private volatile int size;
+
+	TransactionLog() {
+		this.chunks = new Transaction[4][];
+	}
+
+	/**
+	 * @return the transaction's position in the log
+	 */
+	synchronized int append(Transaction transaction) {
+		int index = size;
+		int chunk = index >>> CHUNK_BITS;
+		Transaction[][] current = chunks;
+		if (chunk == current.length) {
+			current = Arrays.copyOf(current, chunk * 2);
+		}
+		if (current[chunk] == null) {
+			current[chunk] = new Transaction[CHUNK_SIZE];
+		}
+		current[chunk][index & CHUNK_MASK] = transaction;
+		chunks = current;
+		size = index + 1;
+		return index;
+	}
+
+	int size() {
+		return size;
+	}
+
+	Transaction get(int index) {
+		Objects.checkIndex(index, size);
+		return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+	}
+
+	/**
+	 * Read-only view of the transactions appended so far
+	 */
+	List<Transaction> snapshot() {
+		int end = size;
+		return new AbstractList<>() {
+			@Override
+			public Transaction get(int index) {
+				Objects.checkIndex(index, end);
+				return TransactionLog.this.get(index);
+			}
+
+			@Override
+			public int size() {
+				return end;
+			}
+		};
+	}
+}
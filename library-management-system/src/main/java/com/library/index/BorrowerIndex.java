@@ -0,0 +1,109 @@
+package com.library.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.transaction.CirculationListener;
+
+/**
+ * Per-book borrower sets held as compact bitmaps of patron ordinals. Fed by
+ * checkouts, so "who borrowed this" and co-borrower overlaps are bitmap
+ * operations instead of history scans
+ */
+public class BorrowerIndex implements CirculationListener {
+	private static BorrowerIndex instance;
+
+	private final OrdinalDictionary isbnOrdinals;
+	private final OrdinalDictionary patronOrdinals;
+	private final Map<Integer, CompactBitmap> borrowersByBook; // ISBN ordinal -> patron ordinals
+
+	public BorrowerIndex(OrdinalDictionary isbnOrdinals, OrdinalDictionary patronOrdinals) {
+		this.isbnOrdinals = isbnOrdinals;
+		this.patronOrdinals = patronOrdinals;
+		this.borrowersByBook = new ConcurrentHashMap<>();
+	}
+
+	public static synchronized BorrowerIndex getInstance() {
+		if (instance == null) {
+			instance = new BorrowerIndex(OrdinalDictionary.isbns(), OrdinalDictionary.patrons());
+		}
+		return instance;
+	}
+
+	public void recordBorrow(String isbn, String patronId) {
+		CompactBitmap borrowers = borrowersByBook.computeIfAbsent(isbnOrdinals.ordinalOf(isbn),
+				k -> new CompactBitmap());
+		int patronOrdinal = patronOrdinals.ordinalOf(patronId);
+		synchronized (borrowers) {
+			borrowers.add(patronOrdinal);
+		}
+	}
+
+	/**
+	 * Snapshot of the patron ordinals that have borrowed a book
+	 */
+	public CompactBitmap getBorrowers(String isbn) {
+		CompactBitmap borrowers = find(isbn);
+		if (borrowers == null) {
+			return new CompactBitmap();
+		}
+		synchronized (borrowers) {
+			return borrowers.copy();
+		}
+	}
+
+	public int getBorrowerCount(String isbn) {
+		CompactBitmap borrowers = find(isbn);
+		if (borrowers == null) {
+			return 0;
+		}
+		synchronized (borrowers) {
+			return borrowers.cardinality();
+		}
+	}
+
+	public boolean hasBorrowed(String isbn, String patronId) {
+		CompactBitmap borrowers = find(isbn);
+		int patronOrdinal = patronOrdinals.lookup(patronId);
+		if (borrowers == null || patronOrdinal < 0) {
+			return false;
+		}
+		synchronized (borrowers) {
+			return borrowers.contains(patronOrdinal);
+		}
+	}
+
+	/**
+	 * Number of patrons who borrowed both books
+	 */
+	public int getCommonBorrowerCount(String isbn, String otherIsbn) {
+		CompactBitmap borrowers = find(isbn);
+		CompactBitmap otherBorrowers = find(otherIsbn);
+		if (borrowers == null || otherBorrowers == null) {
+			return 0;
+		}
+		CompactBitmap snapshot;
+		synchronized (borrowers) {
+			snapshot = borrowers.copy();
+		}
+		synchronized (otherBorrowers) {
+			return snapshot.andCardinality(otherBorrowers);
+		}
+	}
+
+	public OrdinalDictionary getPatronOrdinals() {
+		return patronOrdinals;
+	}
+
+	@Override
+	public void bookCheckedOut(Book book, Patron patron) {
+		recordBorrow(book.getIsbn(), patron.getPatronId());
+	}
+
+	private CompactBitmap find(String isbn) {
+		int ordinal = isbnOrdinals.lookup(isbn);
+		return ordinal >= 0 ? borrowersByBook.get(ordinal) : null;
+	}
+}
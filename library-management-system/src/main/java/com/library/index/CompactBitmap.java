@@ -0,0 +1,566 @@
+package com.library.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap of non-negative int ordinals in the style of Roaring
+ * bitmaps. Values are split on their high 16 bits into containers; sparse
+ * containers store sorted 16-bit values and dense ones switch to a 65536-bit
+ * word array, so both small and very large sets stay compact and union,
+ * intersection and membership are cheap. Not thread-safe, but a frozen
+ * bitmap is immutable and can be shared freely; {@link #with(int)} derives a
+ * new frozen bitmap that shares every untouched container
+ */
+public class CompactBitmap {
+	private static final int ARRAY_MAX = 4096;
+
+	private char[] keys;
+	private Container[] containers;
+	private int size;
+	private boolean frozen;
+
+	public CompactBitmap() {
+		this.keys = new char[4];
+		this.containers = new Container[4];
+	}
+
+	public static CompactBitmap of(int... values) {
+		CompactBitmap bitmap = new CompactBitmap();
+		for (int value : values) {
+			bitmap.add(value);
+		}
+		return bitmap;
+	}
+
+	public boolean add(int value) {
+		checkWritable();
+		checkValue(value);
+		char high = (char) (value >>> 16);
+		int index = indexOf(high);
+		if (index < 0) {
+			index = -index - 1;
+			insertContainer(index, high, new ArrayContainer());
+		}
+		Container container = containers[index];
+		int before = container.cardinality();
+		containers[index] = container.add((char) value);
+		return containers[index].cardinality() > before;
+	}
+
+	public boolean remove(int value) {
+		checkWritable();
+		if (value < 0) {
+			return false;
+		}
+		int index = indexOf((char) (value >>> 16));
+		if (index < 0) {
+			return false;
+		}
+		Container container = containers[index];
+		int before = container.cardinality();
+		Container updated = container.remove((char) value);
+		if (updated.cardinality() == 0) {
+			removeContainer(index);
+		} else {
+			containers[index] = updated;
+		}
+		return updated.cardinality() < before;
+	}
+
+	/**
+	 * Make this bitmap read-only; add and remove then throw
+	 *
+	 * @return this bitmap
+	 */
+	public CompactBitmap freeze() {
+		frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * Frozen bitmap with the value added; this one is returned if it is
+	 * frozen and already holds the value. Containers are shared with a frozen
+	 * source, so only the one the value lands in is copied
+	 */
+	public CompactBitmap with(int value) {
+		checkValue(value);
+		if (frozen && contains(value)) {
+			return this;
+		}
+		CompactBitmap result = new CompactBitmap();
+		result.keys = Arrays.copyOf(keys, Math.max(size + 1, 4));
+		result.containers = new Container[result.keys.length];
+		for (int i = 0; i < size; i++) {
+			result.containers[i] = frozen ? containers[i] : containers[i].copy();
+		}
+		result.size = size;
+		int index = result.indexOf((char) (value >>> 16));
+		if (index >= 0 && frozen) {
+			result.containers[index] = result.containers[index].copy();
+		}
+		result.add(value);
+		return result.freeze();
+	}
+
+	public boolean contains(int value) {
+		if (value < 0) {
+			return false;
+		}
+		int index = indexOf((char) (value >>> 16));
+		return index >= 0 && containers[index].contains((char) value);
+	}
+
+	public int cardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < size; i++) {
+			cardinality += containers[i].cardinality();
+		}
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public CompactBitmap and(CompactBitmap other) {
+		CompactBitmap result = new CompactBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				Container container = containers[i].and(other.containers[j]);
+				if (container.cardinality() > 0) {
+					result.insertContainer(result.size, keys[i], container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	public CompactBitmap or(CompactBitmap other) {
+		CompactBitmap result = new CompactBitmap();
+		int i = 0;
+		int j = 0;
+		while (i < size || j < other.size) {
+			if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+				result.insertContainer(result.size, keys[i], containers[i].copy());
+				i++;
+			} else if (i >= size || keys[i] > other.keys[j]) {
+				result.insertContainer(result.size, other.keys[j], other.containers[j].copy());
+				j++;
+			} else {
+				result.insertContainer(result.size, keys[i], containers[i].or(other.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Size of the intersection without materializing it
+	 */
+	public int andCardinality(CompactBitmap other) {
+		int cardinality = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (keys[i] < other.keys[j]) {
+				i++;
+			} else if (keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				cardinality += containers[i].andCardinality(other.containers[j]);
+				i++;
+				j++;
+			}
+		}
+		return cardinality;
+	}
+
+	public void forEach(IntConsumer consumer) {
+		for (int i = 0; i < size; i++) {
+			containers[i].forEach(keys[i] << 16, consumer);
+		}
+	}
+
+	public int[] toArray() {
+		int[] values = new int[cardinality()];
+		int[] position = new int[1];
+		forEach(value -> values[position[0]++] = value);
+		return values;
+	}
+
+	/**
+	 * Writable copy, also of a frozen bitmap
+	 */
+	public CompactBitmap copy() {
+		CompactBitmap copy = new CompactBitmap();
+		copy.keys = Arrays.copyOf(keys, Math.max(size, 4));
+		copy.containers = new Container[copy.keys.length];
+		for (int i = 0; i < size; i++) {
+			copy.containers[i] = containers[i].copy();
+		}
+		copy.size = size;
+		return copy;
+	}
+
+	private void checkWritable() {
+		if (frozen) {
+			throw new UnsupportedOperationException("Bitmap is frozen");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CompactBitmap [cardinality=" + cardinality() + ", containers=" + size + "]";
+	}
+
+	private int indexOf(char high) {
+		int low = 0;
+		int highIndex = size - 1;
+		while (low <= highIndex) {
+			int mid = (low + highIndex) >>> 1;
+			if (keys[mid] < high) {
+				low = mid + 1;
+			} else if (keys[mid] > high) {
+				highIndex = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private void insertContainer(int index, char key, Container container) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			containers = Arrays.copyOf(containers, size * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(containers, index, containers, index + 1, size - index);
+		keys[index] = key;
+		containers[index] = container;
+		size++;
+	}
+
+	private void removeContainer(int index) {
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+		containers[--size] = null;
+	}
+
+	private static void checkValue(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Bitmap values must be non-negative: " + value);
+		}
+	}
+
+	private abstract static class Container {
+		abstract Container add(char value);
+
+		abstract Container remove(char value);
+
+		abstract boolean contains(char value);
+
+		abstract int cardinality();
+
+		abstract Container and(Container other);
+
+		abstract Container or(Container other);
+
+		abstract int andCardinality(Container other);
+
+		abstract void forEach(int high, IntConsumer consumer);
+
+		abstract Container copy();
+	}
+
+	/**
+	 * Sparse container: sorted 16-bit values
+	 */
+	private static final class ArrayContainer extends Container {
+		private char[] values;
+		private int cardinality;
+
+		ArrayContainer() {
+			this(new char[4], 0);
+		}
+
+		ArrayContainer(char[] values, int cardinality) {
+			this.values = values;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+			int index = Arrays.binarySearch(values, 0, cardinality, value);
+			if (index >= 0) {
+				return this;
+			}
+			if (cardinality >= ARRAY_MAX) {
+				return toBitmap().add(value);
+			}
+			index = -index - 1;
+			if (cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_MAX));
+			}
+			System.arraycopy(values, index, values, index + 1, cardinality - index);
+			values[index] = value;
+			cardinality++;
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			int index = Arrays.binarySearch(values, 0, cardinality, value);
+			if (index >= 0) {
+				System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+				cardinality--;
+			}
+			return this;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+			char[] result = new char[Math.min(cardinality, other.cardinality())];
+			int count = 0;
+			if (other instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) other;
+				int i = 0;
+				int j = 0;
+				while (i < cardinality && j < array.cardinality) {
+					if (values[i] < array.values[j]) {
+						i++;
+					} else if (values[i] > array.values[j]) {
+						j++;
+					} else {
+						result[count++] = values[i];
+						i++;
+						j++;
+					}
+				}
+			} else {
+				for (int i = 0; i < cardinality; i++) {
+					if (other.contains(values[i])) {
+						result[count++] = values[i];
+					}
+				}
+			}
+			return new ArrayContainer(result, count);
+		}
+
+		@Override
+		Container or(Container other) {
+			if (other instanceof BitmapContainer) {
+				return other.or(this);
+			}
+			ArrayContainer array = (ArrayContainer) other;
+			char[] result = new char[cardinality + array.cardinality];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < cardinality || j < array.cardinality) {
+				if (j >= array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+					result[count++] = values[i++];
+				} else if (i >= cardinality || values[i] > array.values[j]) {
+					result[count++] = array.values[j++];
+				} else {
+					result[count++] = values[i];
+					i++;
+					j++;
+				}
+			}
+			ArrayContainer union = new ArrayContainer(result, count);
+			return count > ARRAY_MAX ? union.toBitmap() : union;
+		}
+
+		@Override
+		int andCardinality(Container other) {
+			if (other instanceof BitmapContainer) {
+				return other.andCardinality(this);
+			}
+			ArrayContainer array = (ArrayContainer) other;
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while (i < cardinality && j < array.cardinality) {
+				if (values[i] < array.values[j]) {
+					i++;
+				} else if (values[i] > array.values[j]) {
+					j++;
+				} else {
+					count++;
+					i++;
+					j++;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer consumer) {
+			for (int i = 0; i < cardinality; i++) {
+				consumer.accept(high | values[i]);
+			}
+		}
+
+		@Override
+		Container copy() {
+			return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+		}
+
+		private BitmapContainer toBitmap() {
+			BitmapContainer bitmap = new BitmapContainer();
+			for (int i = 0; i < cardinality; i++) {
+				bitmap.add(values[i]);
+			}
+			return bitmap;
+		}
+	}
+
+	/**
+	 * Dense container: one bit per 16-bit value
+	 */
+	private static final class BitmapContainer extends Container {
+		private final long[] words;
+		private int cardinality;
+
+		BitmapContainer() {
+			this(new long[1024], 0);
+		}
+
+		private BitmapContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		Container add(char value) {
+			long mask = 1L << value;
+			int word = value >>> 6;
+			if ((words[word] & mask) == 0) {
+				words[word] |= mask;
+				cardinality++;
+			}
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			long mask = 1L << value;
+			int word = value >>> 6;
+			if ((words[word] & mask) != 0) {
+				words[word] &= ~mask;
+				cardinality--;
+			}
+			return cardinality <= ARRAY_MAX ? toArrayContainer() : this;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		Container and(Container other) {
+			if (other instanceof ArrayContainer) {
+				return other.and(this);
+			}
+			BitmapContainer bitmap = (BitmapContainer) other;
+			long[] result = new long[words.length];
+			int count = 0;
+			for (int i = 0; i < words.length; i++) {
+				result[i] = words[i] & bitmap.words[i];
+				count += Long.bitCount(result[i]);
+			}
+			BitmapContainer intersection = new BitmapContainer(result, count);
+			return count <= ARRAY_MAX ? intersection.toArrayContainer() : intersection;
+		}
+
+		@Override
+		Container or(Container other) {
+			BitmapContainer union = (BitmapContainer) copy();
+			if (other instanceof ArrayContainer) {
+				other.forEach(0, value -> union.add((char) value));
+				return union;
+			}
+			BitmapContainer bitmap = (BitmapContainer) other;
+			int count = 0;
+			for (int i = 0; i < words.length; i++) {
+				union.words[i] |= bitmap.words[i];
+				count += Long.bitCount(union.words[i]);
+			}
+			union.cardinality = count;
+			return union;
+		}
+
+		@Override
+		int andCardinality(Container other) {
+			int count = 0;
+			if (other instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) other;
+				for (int i = 0; i < array.cardinality; i++) {
+					if (contains(array.values[i])) {
+						count++;
+					}
+				}
+				return count;
+			}
+			BitmapContainer bitmap = (BitmapContainer) other;
+			for (int i = 0; i < words.length; i++) {
+				count += Long.bitCount(words[i] & bitmap.words[i]);
+			}
+			return count;
+		}
+
+		@Override
+		void forEach(int high, IntConsumer consumer) {
+			for (int i = 0; i < words.length; i++) {
+				long word = words[i];
+				while (word != 0) {
+					consumer.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+		}
+
+		@Override
+		Container copy() {
+			return new BitmapContainer(words.clone(), cardinality);
+		}
+
+		private ArrayContainer toArrayContainer() {
+			char[] values = new char[Math.max(cardinality, 1)];
+			int[] count = new int[1];
+			forEach(0, value -> values[count[0]++] = (char) value);
+			return new ArrayContainer(values, count[0]);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.library.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary assigning dense int ordinals to string keys, so sets of ISBNs or
+ * patron IDs can be held as compact bitmaps. Ordinals are never reused;
+ * lookups are lock-free and only new keys take the lock
+ */
+public class OrdinalDictionary {
+	private static final OrdinalDictionary ISBNS = new OrdinalDictionary();
+	private static final OrdinalDictionary PATRONS = new OrdinalDictionary();
+	private static final OrdinalDictionary BRANCHES = new OrdinalDictionary();
+
+	private final Map<String, Integer> ordinals;
+	private volatile String[] keys;
+	private int size;
+
+	public OrdinalDictionary() {
+		this.ordinals = new ConcurrentHashMap<>();
+		this.keys = new String[64];
+	}
+
+	/**
+	 * Shared dictionary for book ISBNs
+	 */
+	public static OrdinalDictionary isbns() {
+		return ISBNS;
+	}
+
+	/**
+	 * Shared dictionary for patron IDs
+	 */
+	public static OrdinalDictionary patrons() {
+		return PATRONS;
+	}
+
+	/**
+	 * Shared dictionary for branch IDs
+	 */
+	public static OrdinalDictionary branches() {
+		return BRANCHES;
+	}
+
+	/**
+	 * Ordinal for a key, assigning the next one if the key is new
+	 */
+	public int ordinalOf(String key) {
+		Integer ordinal = ordinals.get(key);
+		return ordinal != null ? ordinal : assign(key);
+	}
+
+	/**
+	 * Ordinal for a key, or -1 if it was never assigned
+	 */
+	public int lookup(String key) {
+		Integer ordinal = ordinals.get(key);
+		return ordinal != null ? ordinal : -1;
+	}
+
+	public String keyOf(int ordinal) {
+		String[] current = keys;
+		if (ordinal < 0 || ordinal >= current.length || current[ordinal] == null) {
+			throw new IllegalArgumentException("Unknown ordinal: " + ordinal);
+		}
+		return current[ordinal];
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	private synchronized int assign(String key) {
+		if (key == null) {
+			throw new IllegalArgumentException("Key cannot be null");
+		}
+		Integer existing = ordinals.get(key);
+		if (existing != null) {
+			return existing;
+		}
+		String[] current = keys;
+		if (size == current.length) {
+			current = Arrays.copyOf(current, size * 2);
+		}
+		current[size] = key;
+		keys = current;
+		ordinals.put(key, size);
+		return size++;
+	}
+}
@@ -0,0 +1,74 @@
+package com.library.index;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplicates repeated strings such as author names and subjects, so
+ * thousands of books by the same author share one String instance. Unlike
+ * String.intern the pool is an ordinary heap map that can be sized and
+ * inspected. Entries are weak: a string stays pooled only while something
+ * outside the pool still references it, so the pool never holds more than
+ * the live catalog. The pool is split into lock stripes by hash, so
+ * concurrent imports interning different strings rarely contend
+ */
+public class StringPool {
+	private static final int STRIPES = 16; // power of two
+	private static final StringPool SHARED = new StringPool();
+
+	private final List<Map<String, WeakReference<String>>> stripes; // each guarded by itself
+
+	public StringPool() {
+		this.stripes = new ArrayList<>(STRIPES);
+		for (int i = 0; i < STRIPES; i++) {
+			stripes.add(new WeakHashMap<>());
+		}
+	}
+
+	/**
+	 * Pool shared by catalog records
+	 */
+	public static StringPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Canonical instance equal to the value; null stays null
+	 */
+	public String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+		Map<String, WeakReference<String>> pool = stripeOf(value);
+		synchronized (pool) {
+			WeakReference<String> reference = pool.get(value);
+			String existing = reference != null ? reference.get() : null;
+			if (existing != null) {
+				return existing;
+			}
+			pool.put(value, new WeakReference<>(value));
+			return value;
+		}
+	}
+
+	/**
+	 * Number of pooled strings, including any not yet reclaimed
+	 */
+	public int size() {
+		int size = 0;
+		for (Map<String, WeakReference<String>> pool : stripes) {
+			synchronized (pool) {
+				size += pool.size();
+			}
+		}
+		return size;
+	}
+
+	private Map<String, WeakReference<String>> stripeOf(String value) {
+		int hash = value.hashCode();
+		return stripes.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+	}
+}
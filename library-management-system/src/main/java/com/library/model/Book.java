@@ -1,7 +1,12 @@
 package com.library.model;
 
-import java.util.Objects;
+import java.util.List;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import com.library.audit.AuditEventType;
+import com.library.audit.AuditLog;
+import com.library.index.StringPool;
 
 /**
  * Represents a book in the library system Demonstrates encapsulation and
@@ -14,10 +19,15 @@ public class Book {
 	private final String title;
 	private final String author;
 	private final int publicationYear;
+	private final List<String> subjects;
 	private BookStatus status;
 	private String currentBranchId;
 
 	public Book(String isbn, String title, String author, int publicationYear) {
+		this(isbn, title, author, publicationYear, List.of());
+	}
+
+	public Book(String isbn, String title, String author, int publicationYear, List<String> subjects) {
 		if (isbn == null || isbn.trim().isEmpty()) {
 			throw new IllegalArgumentException("ISBN cannot be null or empty");
 		}
@@ -27,11 +37,27 @@ public class Book {
 
 		this.isbn = isbn;
 		this.title = title;
-		this.author = author;
+		// Authors and subjects repeat across many titles; share one instance each
+		this.author = StringPool.shared().intern(author);
 		this.publicationYear = publicationYear;
+		this.subjects = subjects == null ? List.of()
+				: subjects.stream().map(StringPool.shared()::intern).collect(Collectors.toUnmodifiableList());
 		this.status = BookStatus.AVAILABLE;
 
-		logger.info("Book created: " + title + " by " + author);
+		logger.fine(() -> "Book created: " + title + " by " + author);
+	}
+
+	/**
+	 * For views that serve metadata from elsewhere by overriding the getters,
+	 * such as records in an off-heap catalog store
+	 */
+	protected Book() {
+		this.isbn = null;
+		this.title = null;
+		this.author = null;
+		this.publicationYear = 0;
+		this.subjects = List.of();
+		this.status = BookStatus.AVAILABLE;
 	}
 
 	// Getters
@@ -51,6 +77,10 @@ public class Book {
 		return publicationYear;
 	}
 
+	public List<String> getSubjects() {
+		return subjects;
+	}
+
 	public BookStatus getStatus() {
 		return status;
 	}
@@ -63,7 +93,9 @@ public class Book {
 	public void setStatus(BookStatus status) {
 		BookStatus oldStatus = this.status;
 		this.status = status;
-		logger.info("Book " + isbn + " status changed from " + oldStatus + " to " + status);
+		AuditLog.getInstance().recordChange(AuditEventType.BOOK_STATUS_CHANGED, currentBranchId, getIsbn(), null,
+				oldStatus, status);
+		logger.fine(() -> "Book " + getIsbn() + " status changed from " + oldStatus + " to " + status);
 	}
 
 	public void setCurrentBranchId(String branchId) {
@@ -78,21 +110,22 @@ public class Book {
 	public boolean equals(Object o) {
 		if (this == o)
 			return true;
-		if (o == null || getClass() != o.getClass())
+		if (!(o instanceof Book))
 			return false;
 		Book book = (Book) o;
-		return isbn.equals(book.isbn);
+		return getIsbn().equals(book.getIsbn());
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(isbn);
+		return getIsbn().hashCode();
 	}
 
 	@Override
 	public String toString() {
-		return "Book [isbn=" + isbn + ", title=" + title + ", author=" + author + ", publicationYear=" + publicationYear
-				+ ", status=" + status + ", currentBranchId=" + currentBranchId + "]";
+		return "Book [isbn=" + getIsbn() + ", title=" + getTitle() + ", author=" + getAuthor() + ", publicationYear="
+				+ getPublicationYear() + ", subjects=" + getSubjects() + ", status=" + getStatus() + ", currentBranchId="
+				+ getCurrentBranchId() + "]";
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.library.model;
+
+import java.util.List;
+
+/**
+ * Immutable copy of a book's metadata and state at one point in time, for
+ * readers that must not see or make later changes, such as replicas and
+ * remote callers
+ */
+public final class BookSnapshot extends Book {
+	private final String isbn;
+	private final String title;
+	private final String author;
+	private final int publicationYear;
+	private final List<String> subjects;
+	private final BookStatus status;
+	private final String branchId;
+
+	public BookSnapshot(String isbn, String title, String author, int publicationYear, List<String> subjects,
+			BookStatus status, String branchId) {
+		if (isbn == null || isbn.trim().isEmpty()) {
+			throw new IllegalArgumentException("ISBN cannot be null or empty");
+		}
+		this.isbn = isbn;
+		this.title = title;
+		this.author = author;
+		this.publicationYear = publicationYear;
+		this.subjects = subjects == null ? List.of() : List.copyOf(subjects);
+		this.status = status;
+		this.branchId = branchId;
+	}
+
+	public static BookSnapshot of(Book book) {
+		if (book instanceof BookSnapshot) {
+			return (BookSnapshot) book;
+		}
+		return new BookSnapshot(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublicationYear(),
+				book.getSubjects(), book.getStatus(), book.getCurrentBranchId());
+	}
+
+	@Override
+	public String getIsbn() {
+		return isbn;
+	}
+
+	@Override
+	public String getTitle() {
+		return title;
+	}
+
+	@Override
+	public String getAuthor() {
+		return author;
+	}
+
+	@Override
+	public int getPublicationYear() {
+		return publicationYear;
+	}
+
+	@Override
+	public List<String> getSubjects() {
+		return subjects;
+	}
+
+	@Override
+	public BookStatus getStatus() {
+		return status;
+	}
+
+	@Override
+	public String getCurrentBranchId() {
+		return branchId;
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return status == BookStatus.AVAILABLE;
+	}
+
+	@Override
+	public void setStatus(BookStatus status) {
+		throw new UnsupportedOperationException("Book snapshots are read-only");
+	}
+
+	@Override
+	public void setCurrentBranchId(String branchId) {
+		throw new UnsupportedOperationException("Book snapshots are read-only");
+	}
+}
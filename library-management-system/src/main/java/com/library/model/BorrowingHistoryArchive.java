@@ -0,0 +1,91 @@
+package com.library.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact archived tier for closed borrowing records. Records are buffered in
+ * a small pending list and sealed into deflate-compressed chunks, so a long
+ * borrowing history costs a few bytes per record instead of live objects.
+ * Chunks are only inflated when the full history is requested.
+ */
+class BorrowingHistoryArchive {
+	private static final int CHUNK_SIZE = 64;
+
+	private final List<byte[]> chunks;
+	private final List<BorrowingRecord> pending;
+	private int archivedCount;
+
+	BorrowingHistoryArchive() {
+		this.chunks = new ArrayList<>();
+		this.pending = new ArrayList<>();
+	}
+
+	void add(BorrowingRecord record) {
+		if (!record.isReturned()) {
+			throw new IllegalArgumentException("Only returned records can be archived");
+		}
+		pending.add(record);
+		if (pending.size() >= CHUNK_SIZE) {
+			chunks.add(compress(pending));
+			archivedCount += pending.size();
+			pending.clear();
+		}
+	}
+
+	int size() {
+		return archivedCount + pending.size();
+	}
+
+	/**
+	 * Inflate every sealed chunk and return all archived records in archive
+	 * order
+	 */
+	List<BorrowingRecord> load() {
+		List<BorrowingRecord> records = new ArrayList<>(size());
+		for (byte[] chunk : chunks) {
+			decompress(chunk, records);
+		}
+		records.addAll(pending);
+		return records;
+	}
+
+	private static byte[] compress(List<BorrowingRecord> records) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(
+				new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)))) {
+			out.writeInt(records.size());
+			for (BorrowingRecord record : records) {
+				out.writeUTF(record.getIsbn());
+				out.writeLong(record.getCheckoutDate().getTime());
+				out.writeLong(record.getReturnDate().getTime());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to archive borrowing records", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void decompress(byte[] chunk, List<BorrowingRecord> into) {
+		try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(chunk)))) {
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				BorrowingRecord record = new BorrowingRecord(in.readUTF(), new Date(in.readLong()));
+				record.setReturnDate(new Date(in.readLong()));
+				into.add(record);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read archived borrowing records", e);
+		}
+	}
+}
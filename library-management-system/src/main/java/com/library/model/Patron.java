@@ -1,21 +1,33 @@
 package com.library.model;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
+import com.library.index.CompactBitmap;
+import com.library.index.OrdinalDictionary;
+
 /**
  * Represents a library patron Tracks borrowing history and current checkouts
  */
 public class Patron {
 	private static final Logger logger = Logger.getLogger(Patron.class.getName());
 	private static final int MAX_BOOKS_ALLOWED = 5;
+	private static final int RECENT_BORROWS = 32;
 
 	private final String patronId;
 	private String name;
 	private String email;
 	private String phoneNumber;
-	private final List<BorrowingRecord> borrowingHistory;
+	private final Map<String, BorrowingRecord> openRecords; // ISBN -> open record
+	private final BorrowingHistoryArchive archivedHistory; // closed records
 	private final Set<String> currentCheckouts; // ISBNs of currently borrowed books
+	private volatile CompactBitmap borrowedIsbns; // frozen ISBN ordinals of every book ever borrowed
+	private final int[] recentIsbns; // ring of the last distinct ISBN ordinals borrowed; guards both
+	private int recentCount;
+	private int recentNext;
+	private final List<Consumer<Patron>> contactListeners; // told after email or phone changes
 
 	public Patron(String patronId, String name, String email) {
 		if (patronId == null || patronId.trim().isEmpty()) {
@@ -28,10 +40,14 @@ public class Patron {
 		this.patronId = patronId;
 		this.name = name;
 		this.email = email;
-		this.borrowingHistory = new ArrayList<>();
+		this.openRecords = new LinkedHashMap<>();
+		this.archivedHistory = new BorrowingHistoryArchive();
 		this.currentCheckouts = new HashSet<>();
+		this.borrowedIsbns = new CompactBitmap().freeze();
+		this.recentIsbns = new int[RECENT_BORROWS];
+		this.contactListeners = new CopyOnWriteArrayList<>();
 
-		logger.info("Patron created: " + name + " (ID: " + patronId + ")");
+		logger.fine(() -> "Patron created: " + name + " (ID: " + patronId + ")");
 	}
 
 	// Getters
@@ -51,8 +67,55 @@ public class Patron {
 		return phoneNumber;
 	}
 
+	/**
+	 * Full borrowing history ordered by checkout date. Loads the archived tier,
+	 * so prefer {@link #getOpenRecord(String)} on hot paths
+	 */
 	public List<BorrowingRecord> getBorrowingHistory() {
-		return Collections.unmodifiableList(borrowingHistory);
+		List<BorrowingRecord> history = archivedHistory.load();
+		history.addAll(openRecords.values());
+		history.sort(Comparator.comparing(BorrowingRecord::getCheckoutDate));
+		return Collections.unmodifiableList(history);
+	}
+
+	public BorrowingRecord getOpenRecord(String isbn) {
+		return openRecords.get(isbn);
+	}
+
+	/**
+	 * Whether the patron has ever borrowed the book, without loading the
+	 * archived history
+	 */
+	public boolean hasBorrowed(String isbn) {
+		int ordinal = OrdinalDictionary.isbns().lookup(isbn);
+		return ordinal >= 0 && borrowedIsbns.contains(ordinal);
+	}
+
+	/**
+	 * Frozen snapshot of the ISBN ordinals the patron has ever borrowed. It
+	 * never changes, so it is returned without copying and can be read on any
+	 * thread; a later borrow of a new title publishes a new snapshot
+	 */
+	public CompactBitmap getBorrowedIsbns() {
+		return borrowedIsbns;
+	}
+
+	/**
+	 * ISBN ordinals of the last distinct titles borrowed, at most 32, oldest
+	 * first
+	 */
+	public int[] getRecentIsbnOrdinals() {
+		synchronized (recentIsbns) {
+			int[] recent = new int[recentCount];
+			for (int i = 0; i < recentCount; i++) {
+				recent[i] = recentIsbns[(recentNext - recentCount + i + RECENT_BORROWS) % RECENT_BORROWS];
+			}
+			return recent;
+		}
+	}
+
+	public int getBorrowingHistorySize() {
+		return archivedHistory.size() + openRecords.size();
 	}
 
 	public Set<String> getCurrentCheckouts() {
@@ -62,15 +125,29 @@ public class Patron {
 	// Setters
 	public void setName(String name) {
 		this.name = name;
-		logger.info("Patron " + patronId + " name updated to: " + name);
+		logger.fine(() -> "Patron " + patronId + " name updated to: " + name);
 	}
 
 	public void setEmail(String email) {
 		this.email = email;
+		contactChanged();
 	}
 
 	public void setPhoneNumber(String phoneNumber) {
 		this.phoneNumber = phoneNumber;
+		contactChanged();
+	}
+
+	/**
+	 * Register a callback run after the email or phone number changes, so
+	 * indexes keyed by them stay current
+	 */
+	public void addContactListener(Consumer<Patron> listener) {
+		contactListeners.add(listener);
+	}
+
+	public void removeContactListener(Consumer<Patron> listener) {
+		contactListeners.remove(listener);
 	}
 
 	// Business logic
@@ -83,16 +160,58 @@ public class Patron {
 			throw new IllegalStateException("Patron has reached maximum checkout limit");
 		}
 		currentCheckouts.add(isbn);
-		logger.info("Patron " + patronId + " checked out book " + isbn);
+		logger.fine(() -> "Patron " + patronId + " checked out book " + isbn);
 	}
 
 	public void removeCheckout(String isbn) {
 		currentCheckouts.remove(isbn);
-		logger.info("Patron " + patronId + " returned book " + isbn);
+		logger.fine(() -> "Patron " + patronId + " returned book " + isbn);
 	}
 
 	public void addToBorrowingHistory(BorrowingRecord record) {
-		borrowingHistory.add(record);
+		int ordinal = OrdinalDictionary.isbns().ordinalOf(record.getIsbn());
+		synchronized (recentIsbns) {
+			borrowedIsbns = borrowedIsbns.with(ordinal);
+			addRecent(ordinal);
+		}
+		if (record.isReturned()) {
+			archivedHistory.add(record);
+		} else {
+			openRecords.put(record.getIsbn(), record);
+		}
+	}
+
+	/**
+	 * Close the open record for a book and move it to the archived tier
+	 * 
+	 * @return the closed record, or null if no record was open for the ISBN
+	 */
+	public BorrowingRecord closeBorrowingRecord(String isbn, Date returnDate) {
+		BorrowingRecord record = openRecords.remove(isbn);
+		if (record != null) {
+			record.setReturnDate(returnDate);
+			archivedHistory.add(record);
+		}
+		return record;
+	}
+
+	private void contactChanged() {
+		for (Consumer<Patron> listener : contactListeners) {
+			listener.accept(this);
+		}
+	}
+
+	private void addRecent(int ordinal) {
+		synchronized (recentIsbns) {
+			for (int i = 0; i < recentCount; i++) {
+				if (recentIsbns[i] == ordinal) {
+					return; // already in the window
+				}
+			}
+			recentIsbns[recentNext] = ordinal;
+			recentNext = (recentNext + 1) % RECENT_BORROWS;
+			recentCount = Math.min(recentCount + 1, RECENT_BORROWS);
+		}
 	}
 
 	public int getCurrentCheckoutCount() {
@@ -117,7 +236,7 @@ public class Patron {
 	@Override
 	public String toString() {
 		return "Patron [patronId=" + patronId + ", name=" + name + ", email=" + email + ", phoneNumber=" + phoneNumber
-				+ ", borrowingHistory=" + borrowingHistory + ", currentCheckouts=" + currentCheckouts + "]";
+				+ ", borrowingHistorySize=" + getBorrowingHistorySize() + ", currentCheckouts=" + currentCheckouts + "]";
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.library.observer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention-resistant intake for reservation requests on hot titles.
+ * Requests are stamped on arrival and appended to a lock-free stripe chosen by
+ * the calling thread, so concurrent reservers never queue on a shared lock.
+ * The owning waitlist drains all stripes in one batch and restores arrival
+ * order by timestamp within that batch. Order holds only per batch: a
+ * request stamped while a drain is running may miss it and go to the next
+ * batch, behind requests stamped after it
+ */
+class HoldIntakeBuffer {
+	private static final Comparator<Request> ARRIVAL_ORDER = Comparator.comparingLong((Request r) -> r.arrivedAt)
+			.thenComparingLong(r -> r.threadId);
+
+	private final List<Queue<Request>> stripes;
+	private final int mask;
+	private final LongAdder pending;
+
+	HoldIntakeBuffer() {
+		int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+		this.stripes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			stripes.add(new ConcurrentLinkedQueue<>());
+		}
+		this.mask = count - 1;
+		this.pending = new LongAdder();
+	}
+
+	void offer(String patronId, BookObserver observer) {
+		long threadId = Thread.currentThread().getId();
+		stripes.get((int) (threadId & mask)).add(new Request(System.nanoTime(), threadId, patronId, observer));
+		pending.increment();
+	}
+
+	boolean isEmpty() {
+		return pending.sum() == 0;
+	}
+
+	/**
+	 * Remove every buffered request, oldest first within the batch
+	 */
+	List<Request> drain() {
+		List<Request> batch = new ArrayList<>();
+		for (Queue<Request> stripe : stripes) {
+			Request request;
+			while ((request = stripe.poll()) != null) {
+				batch.add(request);
+			}
+		}
+		pending.add(-batch.size());
+		// Stable sort keeps per-stripe order for equal stamps
+		batch.sort(ARRIVAL_ORDER);
+		return batch;
+	}
+
+	static final class Request {
+		private final long arrivedAt;
+		private final long threadId;
+		private final String patronId;
+		private final BookObserver observer;
+
+		Request(long arrivedAt, long threadId, String patronId, BookObserver observer) {
+			this.arrivedAt = arrivedAt;
+			this.threadId = threadId;
+			this.patronId = patronId;
+			this.observer = observer;
+		}
+
+		String getPatronId() {
+			return patronId;
+		}
+
+		BookObserver getObserver() {
+			return observer;
+		}
+	}
+}
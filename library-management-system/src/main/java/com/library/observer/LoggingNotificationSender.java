@@ -0,0 +1,21 @@
+package com.library.observer;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.library.model.Patron;
+
+/**
+ * Local stand-in sender that logs instead of sending email
+ */
+public class LoggingNotificationSender implements NotificationSender {
+	private static final Logger logger = Logger.getLogger(LoggingNotificationSender.class.getName());
+
+	@Override
+	public void send(Patron patron, List<String> messages) {
+		// Simulate sending notification
+		if (patron.getEmail() != null) {
+			logger.info("Email sent to " + patron.getEmail() + ": " + String.join(" | ", messages));
+		}
+	}
+}
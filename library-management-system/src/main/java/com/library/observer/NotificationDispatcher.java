@@ -0,0 +1,221 @@
+package com.library.observer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.library.model.Patron;
+
+/**
+ * Asynchronous notification pipeline. Callers enqueue into a bounded queue
+ * and never wait on delivery; a background thread drains it in batches,
+ * coalesces messages per patron into one delivery, and retries failed
+ * deliveries with exponential backoff. When the queue is full new
+ * notifications are dropped and counted rather than blocking the caller
+ */
+public class NotificationDispatcher {
+	private static final Logger logger = Logger.getLogger(NotificationDispatcher.class.getName());
+	private static final int DEFAULT_CAPACITY = 10_000;
+	private static final int DEFAULT_BATCH_SIZE = 256;
+	private static final int DEFAULT_MAX_ATTEMPTS = 5;
+	private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(100);
+	private static final Duration DRAIN_INTERVAL = Duration.ofMillis(50);
+	private static NotificationDispatcher instance;
+
+	private final NotificationSender sender;
+	private final BlockingQueue<Notification> queue;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final Duration initialBackoff;
+	private final ScheduledExecutorService worker;
+	private final AtomicInteger scheduledRetries; // retries backing off on the worker; flush waits on it
+
+	// Metrics
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong retried = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicInteger highWatermark = new AtomicInteger();
+
+	public NotificationDispatcher(NotificationSender sender) {
+		this(sender, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF);
+	}
+
+	public NotificationDispatcher(NotificationSender sender, int capacity, int batchSize, int maxAttempts,
+			Duration initialBackoff) {
+		this.sender = sender;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		this.initialBackoff = initialBackoff;
+		this.scheduledRetries = new AtomicInteger();
+		this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "notification-dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		worker.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL.toMillis(), DRAIN_INTERVAL.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	public static synchronized NotificationDispatcher getInstance() {
+		if (instance == null) {
+			instance = new NotificationDispatcher(new LoggingNotificationSender());
+		}
+		return instance;
+	}
+
+	/**
+	 * Queue a notification without blocking
+	 *
+	 * @return false if the queue was full and the notification was dropped
+	 */
+	public boolean submit(Patron patron, String message) {
+		if (!queue.offer(new Notification(patron, message))) {
+			dropped.incrementAndGet();
+			logger.warning("Notification queue full, dropped message for patron " + patron.getPatronId());
+			return false;
+		}
+		enqueued.incrementAndGet();
+		highWatermark.accumulateAndGet(queue.size(), Math::max);
+		return true;
+	}
+
+	/**
+	 * Deliver everything queued so far and wait for it, e.g. on shutdown,
+	 * including retries still backing off; each ends delivered or given up
+	 */
+	public void flush() {
+		try {
+			do {
+				worker.submit(() -> {
+					while (!queue.isEmpty()) {
+						drain();
+					}
+				}).get();
+				synchronized (scheduledRetries) {
+					while (scheduledRetries.get() > 0) {
+						scheduledRetries.wait();
+					}
+				}
+			} while (!queue.isEmpty());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.warning("Notification flush failed: " + e.getCause());
+		}
+	}
+
+	public void shutdown() {
+		flush();
+		worker.shutdown();
+	}
+
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	public int getQueueHighWatermark() {
+		return highWatermark.get();
+	}
+
+	public long getEnqueuedCount() {
+		return enqueued.get();
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	public long getDeliveredCount() {
+		return delivered.get();
+	}
+
+	public long getRetryCount() {
+		return retried.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	private void drain() {
+		List<Notification> batch = new ArrayList<>(batchSize);
+		queue.drainTo(batch, batchSize);
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		// Coalesce per patron, dropping duplicate messages
+		Map<String, Patron> patrons = new LinkedHashMap<>();
+		Map<String, Set<String>> messages = new LinkedHashMap<>();
+		for (Notification notification : batch) {
+			String patronId = notification.patron.getPatronId();
+			patrons.putIfAbsent(patronId, notification.patron);
+			messages.computeIfAbsent(patronId, k -> new LinkedHashSet<>()).add(notification.message);
+		}
+		coalesced.addAndGet(batch.size() - patrons.size());
+
+		for (Map.Entry<String, Patron> entry : patrons.entrySet()) {
+			deliver(entry.getValue(), new ArrayList<>(messages.get(entry.getKey())), 1);
+		}
+	}
+
+	private void deliver(Patron patron, List<String> messages, int attempt) {
+		try {
+			sender.send(patron, messages);
+			delivered.addAndGet(messages.size());
+		} catch (RuntimeException e) {
+			if (attempt >= maxAttempts) {
+				failed.addAndGet(messages.size());
+				logger.warning("Giving up notifying patron " + patron.getPatronId() + " after " + attempt
+						+ " attempts: " + e.getMessage());
+				return;
+			}
+			retried.incrementAndGet();
+			long backoff = initialBackoff.toMillis() << (attempt - 1);
+			scheduledRetries.incrementAndGet();
+			worker.schedule(() -> {
+				try {
+					deliver(patron, messages, attempt + 1);
+				} finally {
+					// A further retry was counted before this one finishes
+					if (scheduledRetries.decrementAndGet() == 0) {
+						synchronized (scheduledRetries) {
+							scheduledRetries.notifyAll();
+						}
+					}
+				}
+			}, backoff, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private static final class Notification {
+		private final Patron patron;
+		private final String message;
+
+		Notification(Patron patron, String message) {
+			this.patron = patron;
+			this.message = message;
+		}
+	}
+}
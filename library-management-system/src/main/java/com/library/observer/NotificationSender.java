@@ -0,0 +1,13 @@
+package com.library.observer;
+
+import java.util.List;
+
+import com.library.model.Patron;
+
+/**
+ * Delivery channel for patron notifications (email, SMS, ...) Implementations
+ * throw on failure so the dispatcher can retry
+ */
+public interface NotificationSender {
+	void send(Patron patron, List<String> messages);
+}
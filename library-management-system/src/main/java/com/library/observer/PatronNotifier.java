@@ -7,15 +7,21 @@ import com.library.model.Patron;
 
 /**
  * Concrete implementation of BookObserver Notifies patrons when reserved books
- * become available
+ * become available, handing delivery to the asynchronous dispatcher
  */
 public class PatronNotifier implements BookObserver {
 	private static final Logger logger = Logger.getLogger(PatronNotifier.class.getName());
 
 	private final Patron patron;
+	private final NotificationDispatcher dispatcher;
 
 	public PatronNotifier(Patron patron) {
+		this(patron, NotificationDispatcher.getInstance());
+	}
+
+	public PatronNotifier(Patron patron, NotificationDispatcher dispatcher) {
 		this.patron = patron;
+		this.dispatcher = dispatcher;
 	}
 
 	public Patron getPatron() {
@@ -24,18 +30,10 @@ public class PatronNotifier implements BookObserver {
 
 	@Override
 	public void notify(Book book) {
-		logger.info("NOTIFICATION: Dear " + patron.getName() + " the book " + book.getTitle()
-				+ " is now available for checkout!");
-
-		// In a real system, this would send an email or SMS
-		sendNotification(patron, book);
-	}
+		logger.fine(() -> "Notifying patron " + patron.getPatronId() + " that " + book.getIsbn() + " is available");
 
-	private void sendNotification(Patron patron, Book book) {
-		// Simulate sending notification
-		if (patron.getEmail() != null) {
-			logger.info(String.format("Email sent to " + patron.getEmail() + " about book: " + book.getTitle()));
-		}
+		// Queued for email or SMS delivery off the return path; the sender logs it
+		dispatcher.submit(patron, "The book " + book.getTitle() + " is now available for checkout");
 	}
 
 }
@@ -1,40 +1,47 @@
 package com.library.observer;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import com.library.model.Book;
-import com.library.model.BookStatus;
 
 /**
- * Manages book reservations and notifications
+ * Manages book reservations and notifications New reservations land in a
+ * striped intake buffer and are merged into the ordered waitlist in batches by
+ * whichever thread gets the lock, so a burst on one title never serializes
+ * the reservers themselves. Arrival order is kept within each merged batch;
+ * a reservation racing a merge joins the next batch
  */
 public class ReservationManager implements BookSubject {
 	private static final Logger logger = Logger.getLogger(ReservationManager.class.getName());
 
 	private final Book book;
-	private final Queue<BookObserver> waitlist;
-	private final Map<String, BookObserver> observerMap;
+	private final Waitlist waitlist;
+	private final HoldIntakeBuffer intake;
+	private final ReentrantLock lock;
 
 	public ReservationManager(Book book) {
 		this.book = book;
-		this.waitlist = new LinkedList<>();
-		this.observerMap = new HashMap<>();
+		this.waitlist = new Waitlist();
+		this.intake = new HoldIntakeBuffer();
+		this.lock = new ReentrantLock();
 	}
 
 	@Override
 	public void attach(BookObserver observer) {
 		if (observer instanceof PatronNotifier) {
 			PatronNotifier notifier = (PatronNotifier) observer;
-			String patronId = notifier.getPatron().getPatronId();
+			intake.offer(notifier.getPatron().getPatronId(), observer);
 
-			if (!observerMap.containsKey(patronId)) {
-				waitlist.add(observer);
-				observerMap.put(patronId, observer);
-				logger.info("Patron " + patronId + " added to waitlist for book: " + book.getTitle());
+			// Merge opportunistically; if another thread holds the lock it
+			// will pick this request up, and we re-check after it releases
+			while (!intake.isEmpty() && lock.tryLock()) {
+				try {
+					mergeIntake();
+				} finally {
+					lock.unlock();
+				}
 			}
 		}
 	}
@@ -42,49 +49,140 @@ public class ReservationManager implements BookSubject {
 	@Override
 	public void detach(BookObserver observer) {
 		if (observer instanceof PatronNotifier) {
-			PatronNotifier notifier = (PatronNotifier) observer;
-			String patronId = notifier.getPatron().getPatronId();
+			cancel(((PatronNotifier) observer).getPatron().getPatronId());
+		}
+	}
 
-			waitlist.remove(observer);
-			observerMap.remove(patronId);
-			logger.info(String.format("Patron " + patronId + " removed from waitlist for book: " + book.getTitle()));
+	/**
+	 * Remove a patron from the waitlist by ID
+	 *
+	 * @return true if the patron was waiting
+	 */
+	public boolean cancel(String patronId) {
+		boolean removed;
+		lock.lock();
+		try {
+			mergeIntake();
+			removed = waitlist.remove(patronId) != null;
+		} finally {
+			lock.unlock();
 		}
+		if (removed) {
+			logger.info("Patron " + patronId + " removed from waitlist for book: " + book.getTitle());
+		}
+		return removed;
 	}
 
 	@Override
 	public void notifyObservers() {
 		// Notify only the first person in the waitlist
-		if (!waitlist.isEmpty()) {
-			BookObserver nextObserver = waitlist.peek();
+		BookObserver nextObserver;
+		lock.lock();
+		try {
+			mergeIntake();
+			nextObserver = waitlist.peek();
+		} finally {
+			lock.unlock();
+		}
+		if (nextObserver != null) {
 			nextObserver.notify(book);
 		}
 	}
 
-	public void bookReturned() {
-		if (!waitlist.isEmpty()) {
-			book.setStatus(BookStatus.RESERVED);
-			notifyObservers();
-		} else {
-			book.setStatus(BookStatus.AVAILABLE);
+	/**
+	 * Notify the patron at a waitlist position that a copy is set aside for
+	 * them. The branch serves the waitlist front to back, so with n copies
+	 * set aside the patrons in the first n positions are the ones served
+	 *
+	 * @return false if nobody is waiting at that position
+	 */
+	public boolean notifyWaiter(int position) {
+		BookObserver observer;
+		lock.lock();
+		try {
+			mergeIntake();
+			observer = waitlist.observerAt(position);
+		} finally {
+			lock.unlock();
 		}
+		if (observer == null) {
+			return false;
+		}
+		observer.notify(book);
+		return true;
 	}
 
-	public void reservationFulfilled() {
-		// Remove the notified patron from waitlist
-		if (!waitlist.isEmpty()) {
-			BookObserver fulfilled = waitlist.poll();
-			if (fulfilled instanceof PatronNotifier) {
-				PatronNotifier notifier = (PatronNotifier) fulfilled;
-				observerMap.remove(notifier.getPatron().getPatronId());
-			}
+	/**
+	 * Remove a patron who collected their reserved copy from the waitlist
+	 */
+	public void reservationFulfilled(String patronId) {
+		lock.lock();
+		try {
+			mergeIntake();
+			waitlist.remove(patronId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 1-based waitlist position of a patron, or 0 if not waiting
+	 */
+	public int getPosition(String patronId) {
+		lock.lock();
+		try {
+			mergeIntake();
+			return waitlist.positionOf(patronId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Patron at the head of the waitlist, or null if nobody is waiting
+	 */
+	public String getNextPatronId() {
+		lock.lock();
+		try {
+			mergeIntake();
+			return waitlist.peekPatronId();
+		} finally {
+			lock.unlock();
 		}
 	}
 
 	public int getWaitlistSize() {
-		return waitlist.size();
+		lock.lock();
+		try {
+			mergeIntake();
+			return waitlist.size();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	public Book getBook() {
 		return book;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Move buffered reservations into the waitlist in arrival order. Caller
+	 * holds the lock
+	 */
+	private void mergeIntake() {
+		if (intake.isEmpty()) {
+			return;
+		}
+		List<HoldIntakeBuffer.Request> batch = intake.drain();
+		int added = 0;
+		for (HoldIntakeBuffer.Request request : batch) {
+			if (waitlist.enqueue(request.getPatronId(), request.getObserver())) {
+				added++;
+				logger.fine(() -> "Patron " + request.getPatronId() + " added to waitlist for book: " + book.getTitle());
+			}
+		}
+		int merged = added;
+		logger.info(() -> "Merged " + merged + " of " + batch.size() + " reservations into waitlist for book: "
+				+ book.getTitle());
+	}
+}
@@ -0,0 +1,201 @@
+package com.library.observer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FIFO waitlist indexed by patron ID. Entries are doubly linked nodes found
+ * through a map, so enqueue and cancel never scan the list, and each entry
+ * owns a slot in a Fenwick tree of live flags so "what is my position" is a
+ * prefix sum in O(log n), and "who is at position k" a descent of the same
+ * tree. Slots are renumbered when the tree fills up. Not thread-safe
+ */
+class Waitlist {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Map<String, Node> nodes;
+	private Node head;
+	private Node tail;
+	private int[] tree; // Fenwick tree over slots, 1-based; capacity is a power of two
+	private Node[] slots; // slot -> node, null once the entry leaves
+	private int nextSlot;
+
+	Waitlist() {
+		this.nodes = new HashMap<>();
+		this.tree = new int[INITIAL_CAPACITY + 1];
+		this.slots = new Node[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Append an entry
+	 *
+	 * @return false if the patron is already waiting
+	 */
+	boolean enqueue(String patronId, BookObserver observer) {
+		if (nodes.containsKey(patronId)) {
+			return false;
+		}
+		if (nextSlot == tree.length - 1) {
+			renumber();
+		}
+		Node node = new Node(patronId, observer, nextSlot++);
+		if (tail == null) {
+			head = node;
+		} else {
+			tail.next = node;
+			node.prev = tail;
+		}
+		tail = node;
+		nodes.put(patronId, node);
+		slots[node.slot] = node;
+		update(node.slot, 1);
+		return true;
+	}
+
+	/**
+	 * Remove a waiting patron wherever they are in the list
+	 */
+	BookObserver remove(String patronId) {
+		Node node = nodes.remove(patronId);
+		if (node == null) {
+			return null;
+		}
+		unlink(node);
+		return node.observer;
+	}
+
+	BookObserver peek() {
+		return head != null ? head.observer : null;
+	}
+
+	String peekPatronId() {
+		return head != null ? head.patronId : null;
+	}
+
+	BookObserver poll() {
+		return head != null ? remove(head.patronId) : null;
+	}
+
+	boolean contains(String patronId) {
+		return nodes.containsKey(patronId);
+	}
+
+	/**
+	 * Patron at a 1-based position, or null past the end
+	 */
+	String patronIdAt(int position) {
+		Node node = nodeAt(position);
+		return node != null ? node.patronId : null;
+	}
+
+	/**
+	 * Observer at a 1-based position, or null past the end
+	 */
+	BookObserver observerAt(int position) {
+		Node node = nodeAt(position);
+		return node != null ? node.observer : null;
+	}
+
+	/**
+	 * 1-based position of the patron, or 0 if not waiting
+	 */
+	int positionOf(String patronId) {
+		Node node = nodes.get(patronId);
+		return node != null ? prefixSum(node.slot) : 0;
+	}
+
+	int size() {
+		return nodes.size();
+	}
+
+	boolean isEmpty() {
+		return nodes.isEmpty();
+	}
+
+	private void unlink(Node node) {
+		if (node.prev == null) {
+			head = node.next;
+		} else {
+			node.prev.next = node.next;
+		}
+		if (node.next == null) {
+			tail = node.prev;
+		} else {
+			node.next.prev = node.prev;
+		}
+		node.prev = null;
+		node.next = null;
+		slots[node.slot] = null;
+		update(node.slot, -1);
+	}
+
+	private Node nodeAt(int position) {
+		if (position <= 0 || position > nodes.size()) {
+			return null;
+		}
+		// Descend to the last index whose prefix sum is below position
+		int index = 0;
+		int remaining = position;
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+			if (index + step < tree.length && tree[index + step] < remaining) {
+				index += step;
+				remaining -= tree[index];
+			}
+		}
+		return slots[index]; // slot index + 1 is the 1-based tree index
+	}
+
+	/**
+	 * Reassign slots 0..n-1 in list order, growing the tree if it is more than
+	 * half full of live entries
+	 */
+	private void renumber() {
+		int capacity = tree.length - 1;
+		if (nodes.size() * 2 > capacity) {
+			capacity *= 2;
+		}
+		tree = new int[capacity + 1];
+		slots = new Node[capacity];
+		nextSlot = 0;
+		for (Node node = head; node != null; node = node.next) {
+			node.slot = nextSlot++;
+			slots[node.slot] = node;
+			tree[node.slot + 1] = 1;
+		}
+		// Linear-time Fenwick construction
+		for (int i = 1; i <= capacity; i++) {
+			int parent = i + (i & -i);
+			if (parent <= capacity) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+
+	private void update(int slot, int delta) {
+		for (int i = slot + 1; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	private int prefixSum(int slot) {
+		int sum = 0;
+		for (int i = slot + 1; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+		return sum;
+	}
+
+	private static final class Node {
+		private final String patronId;
+		private final BookObserver observer;
+		private int slot;
+		private Node prev;
+		private Node next;
+
+		Node(String patronId, BookObserver observer, int slot) {
+			this.patronId = patronId;
+			this.observer = observer;
+			this.slot = slot;
+		}
+	}
+}
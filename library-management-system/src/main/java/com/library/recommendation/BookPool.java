@@ -0,0 +1,78 @@
+package com.library.recommendation;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.library.model.Book;
+
+/**
+ * Immutable pool of candidate books indexed by ISBN. Engines that score a
+ * sparse set of candidates look each one up instead of scanning the pool,
+ * so build one per branch snapshot and share it across requests. A pool
+ * built with a key and version names the snapshot it was taken from, which
+ * is what lets results computed against it be cached
+ */
+public final class BookPool extends AbstractList<Book> {
+	private final String key;
+	private final long version;
+	private final Book[] books;
+	private final Map<String, Book> booksByIsbn;
+
+	private BookPool(String key, long version, List<Book> books) {
+		this.key = key;
+		this.version = version;
+		this.books = books.toArray(new Book[0]);
+		this.booksByIsbn = new HashMap<>(this.books.length * 2);
+		for (Book book : this.books) {
+			booksByIsbn.putIfAbsent(book.getIsbn(), book);
+		}
+	}
+
+	/**
+	 * The given list as a pool; a pool is returned as is
+	 */
+	public static BookPool of(List<Book> books) {
+		return books instanceof BookPool ? (BookPool) books : new BookPool(null, 0, books);
+	}
+
+	/**
+	 * Pool of a named snapshot, e.g. a branch's available books at a branch
+	 * version; the same key and version must always mean the same books
+	 */
+	public static BookPool of(String key, long version, List<Book> books) {
+		if (key == null) {
+			throw new IllegalArgumentException("Pool key cannot be null");
+		}
+		return new BookPool(key, version, books);
+	}
+
+	/**
+	 * Snapshot name, or null for an anonymous pool
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * The first book in the pool with the ISBN, or null
+	 */
+	public Book getBook(String isbn) {
+		return booksByIsbn.get(isbn);
+	}
+
+	@Override
+	public Book get(int index) {
+		return books[index];
+	}
+
+	@Override
+	public int size() {
+		return books.length;
+	}
+}
@@ -0,0 +1,255 @@
+package com.library.recommendation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.transaction.CirculationEvents;
+import com.library.transaction.CirculationListener;
+
+/**
+ * Caching decorator for any recommendation engine Stores the top results per
+ * patron and candidate pool, and recomputes them only when the patron checks
+ * out or returns a book, or when a cached book changes availability. Only
+ * keyed {@link BookPool}s are cached: the caller names the snapshot with a
+ * key and version, so a filtered subset or a newer snapshot never shares an
+ * entry with another pool, and anonymous lists go straight to the delegate.
+ * The least recently served patrons are evicted beyond a fixed count, and
+ * each patron keeps results for a few pools at most. Results computed while
+ * the patron was invalidated are discarded rather than cached
+ */
+public class CachingRecommendationEngine implements RecommendationEngine, CirculationListener, AutoCloseable {
+	private static final Logger logger = Logger.getLogger(CachingRecommendationEngine.class.getName());
+	private static final int DEFAULT_MAX_PATRONS = 10_000;
+	private static final int MAX_POOLS_PER_PATRON = 4;
+
+	private final RecommendationEngine delegate;
+	private final Map<String, PatronEntry> cache; // PatronId -> generation and results per pool, guarded by itself
+	private final Map<String, Set<String>> patronsByCachedIsbn; // ISBN -> PatronIds whose results contain it
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+
+	public CachingRecommendationEngine(RecommendationEngine delegate) {
+		this(delegate, DEFAULT_MAX_PATRONS);
+	}
+
+	/**
+	 * @param maxPatrons patrons whose results are kept, least recently served
+	 *                   evicted first
+	 */
+	public CachingRecommendationEngine(RecommendationEngine delegate, int maxPatrons) {
+		if (maxPatrons <= 0) {
+			throw new IllegalArgumentException("maxPatrons must be positive");
+		}
+		this.delegate = delegate;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PatronEntry> eldest) {
+				if (size() <= maxPatrons) {
+					return false;
+				}
+				release(eldest.getKey(), eldest.getValue());
+				return true;
+			}
+		};
+		this.patronsByCachedIsbn = new ConcurrentHashMap<>();
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+
+	@Override
+	public List<Book> getRecommendations(Patron patron, List<Book> availableBooks, int limit) {
+		String poolKey = availableBooks instanceof BookPool ? ((BookPool) availableBooks).getKey() : null;
+		if (poolKey == null) {
+			misses.incrementAndGet();
+			return delegate.getRecommendations(patron, availableBooks, limit);
+		}
+		long poolVersion = ((BookPool) availableBooks).getVersion();
+		String patronId = patron.getPatronId();
+		PatronEntry entry;
+		synchronized (cache) {
+			entry = cache.computeIfAbsent(patronId, k -> new PatronEntry());
+		}
+		long generation;
+		synchronized (entry) {
+			CachedRecommendations cached = entry.byPool.get(poolKey);
+			if (cached != null && cached.poolVersion == poolVersion && cached.isUsableFor(limit)) {
+				hits.incrementAndGet();
+				return cached.books.subList(0, Math.min(limit, cached.books.size()));
+			}
+			generation = entry.generation;
+		}
+
+		misses.incrementAndGet();
+		List<Book> recommendations = List.copyOf(delegate.getRecommendations(patron, availableBooks, limit));
+		store(patronId, entry, generation, poolKey,
+				new CachedRecommendations(recommendations, poolVersion, limit));
+		return recommendations;
+	}
+
+	public void invalidatePatron(String patronId) {
+		PatronEntry entry;
+		synchronized (cache) {
+			entry = cache.get(patronId);
+		}
+		if (entry != null) {
+			release(patronId, entry);
+		}
+	}
+
+	/**
+	 * Number of patrons with cached results
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Drop a patron's results and their book index entries. Callers may hold
+	 * the cache lock, which is always taken before an entry's
+	 */
+	private void release(String patronId, PatronEntry entry) {
+		List<CachedRecommendations> removed;
+		synchronized (entry) {
+			entry.generation++;
+			removed = new ArrayList<>(entry.byPool.values());
+			entry.byPool.clear();
+		}
+		for (CachedRecommendations results : removed) {
+			for (Book book : results.books) {
+				Set<String> patronIds = patronsByCachedIsbn.get(book.getIsbn());
+				if (patronIds != null) {
+					patronIds.remove(patronId);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drop every cached result containing the book
+	 */
+	public void invalidateBook(String isbn) {
+		Set<String> patronIds = patronsByCachedIsbn.remove(isbn);
+		if (patronIds != null) {
+			patronIds.forEach(this::invalidatePatron);
+		}
+	}
+
+	public void invalidateAll() {
+		List<String> patronIds;
+		synchronized (cache) {
+			patronIds = new ArrayList<>(cache.keySet());
+		}
+		patronIds.forEach(this::invalidatePatron);
+		patronsByCachedIsbn.clear();
+	}
+
+	/**
+	 * Stop following circulation events and drop all results
+	 */
+	@Override
+	public void close() {
+		CirculationEvents.getInstance().removeListener(this);
+		invalidateAll();
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	@Override
+	public void bookCheckedOut(Book book, Patron patron) {
+		invalidatePatron(patron.getPatronId());
+		invalidateBook(book.getIsbn());
+	}
+
+	@Override
+	public void bookReturned(Book book, Patron patron) {
+		invalidatePatron(patron.getPatronId());
+		invalidateBook(book.getIsbn());
+	}
+
+	/**
+	 * Cache results unless the patron was invalidated since they were
+	 * computed
+	 */
+	private void store(String patronId, PatronEntry entry, long generation, String poolKey,
+			CachedRecommendations results) {
+		synchronized (entry) {
+			if (entry.generation != generation) {
+				logger.fine(() -> "Discarded stale recommendations for patron " + patronId);
+				return;
+			}
+			// Indexed before publishing, so a book invalidation cannot miss the entry
+			for (Book book : results.books) {
+				patronsByCachedIsbn.computeIfAbsent(book.getIsbn(), k -> ConcurrentHashMap.newKeySet())
+						.add(patronId);
+			}
+			entry.byPool.put(poolKey, results);
+		}
+		logger.fine(() -> "Cached " + results.books.size() + " recommendations for patron " + patronId);
+	}
+
+	/**
+	 * A patron's cached results; the generation advances on every
+	 * invalidation
+	 */
+	private static final class PatronEntry {
+		private final Map<String, CachedRecommendations> byPool = new LinkedHashMap<>(4, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedRecommendations> eldest) {
+				return size() > MAX_POOLS_PER_PATRON;
+			}
+		}; // Pool key -> results, least recently used first
+		private long generation;
+	}
+
+	private static final class CachedRecommendations {
+		private final List<Book> books;
+		private final String[] branchIds; // where each book was shelved when cached
+		private final long poolVersion;
+		private final int limit;
+
+		CachedRecommendations(List<Book> books, long poolVersion, int limit) {
+			this.books = books;
+			this.poolVersion = poolVersion;
+			this.branchIds = new String[books.size()];
+			for (int i = 0; i < branchIds.length; i++) {
+				branchIds[i] = books.get(i).getCurrentBranchId();
+			}
+			this.limit = limit;
+		}
+
+		/**
+		 * A cached top-N answers any request up to N, as long as every cached
+		 * book is still available at the same branch (covers status changes
+		 * made outside circulation, such as reservations and transfers)
+		 */
+		boolean isUsableFor(int requestedLimit) {
+			if (requestedLimit > limit) {
+				return false;
+			}
+			for (int i = 0; i < branchIds.length; i++) {
+				Book book = books.get(i);
+				if (!book.isAvailable() || !Objects.equals(branchIds[i], book.getCurrentBranchId())) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
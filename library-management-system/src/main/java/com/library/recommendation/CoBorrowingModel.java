@@ -0,0 +1,81 @@
+package com.library.recommendation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.library.index.OrdinalDictionary;
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.transaction.CirculationListener;
+
+/**
+ * Sparse item-to-item co-borrowing matrix keyed by ISBN ordinals. Each
+ * checkout pairs the book with the other titles in the patron's recent
+ * borrowing window ({@link Patron#getRecentIsbnOrdinals()}), so a checkout
+ * costs at most the window size whatever the patron's lifetime history, and
+ * rows only hold titles that were actually borrowed close together
+ */
+public class CoBorrowingModel implements CirculationListener {
+	private static CoBorrowingModel instance;
+
+	private final OrdinalDictionary isbnOrdinals;
+	private final Map<Integer, Map<Integer, Integer>> coBorrowCounts; // ISBN ordinal -> (ISBN ordinal -> count)
+
+	public CoBorrowingModel(OrdinalDictionary isbnOrdinals) {
+		this.isbnOrdinals = isbnOrdinals;
+		this.coBorrowCounts = new ConcurrentHashMap<>();
+	}
+
+	public static synchronized CoBorrowingModel getInstance() {
+		if (instance == null) {
+			instance = new CoBorrowingModel(OrdinalDictionary.isbns());
+		}
+		return instance;
+	}
+
+	/**
+	 * Record that a patron who recently borrowed the given titles checked out
+	 * a book
+	 */
+	public void recordCheckout(String isbn, int[] recentOrdinals) {
+		int ordinal = isbnOrdinals.ordinalOf(isbn);
+		Map<Integer, Integer> row = row(ordinal);
+		for (int other : recentOrdinals) {
+			if (other != ordinal) {
+				row.merge(other, 1, Integer::sum);
+				row(other).merge(ordinal, 1, Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * Titles co-borrowed with the given ISBN ordinal and how often
+	 */
+	public Map<Integer, Integer> getCoBorrowed(int ordinal) {
+		Map<Integer, Integer> row = coBorrowCounts.get(ordinal);
+		return row != null ? Collections.unmodifiableMap(row) : Collections.emptyMap();
+	}
+
+	public int getCoBorrowCount(String isbn, String otherIsbn) {
+		int ordinal = isbnOrdinals.lookup(isbn);
+		int otherOrdinal = isbnOrdinals.lookup(otherIsbn);
+		if (ordinal < 0 || otherOrdinal < 0) {
+			return 0;
+		}
+		return getCoBorrowed(ordinal).getOrDefault(otherOrdinal, 0);
+	}
+
+	public OrdinalDictionary getIsbnOrdinals() {
+		return isbnOrdinals;
+	}
+
+	@Override
+	public void bookCheckedOut(Book book, Patron patron) {
+		recordCheckout(book.getIsbn(), patron.getRecentIsbnOrdinals());
+	}
+
+	private Map<Integer, Integer> row(int ordinal) {
+		return coBorrowCounts.computeIfAbsent(ordinal, k -> new ConcurrentHashMap<>());
+	}
+}
@@ -0,0 +1,61 @@
+package com.library.recommendation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.library.index.CompactBitmap;
+import com.library.index.OrdinalDictionary;
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * Item-to-item collaborative recommendation strategy Scores books by how often
+ * they were co-borrowed with titles in the patron's history. Candidates are
+ * looked up in the pool by ISBN; pass a {@link BookPool} to avoid indexing
+ * the pool on every request
+ */
+class CollaborativeRecommendation implements RecommendationEngine {
+	private static final Logger logger = Logger.getLogger(CollaborativeRecommendation.class.getName());
+
+	private final CoBorrowingModel model;
+
+	public CollaborativeRecommendation(CoBorrowingModel model) {
+		this.model = model;
+	}
+
+	@Override
+	public List<Book> getRecommendations(Patron patron, List<Book> availableBooks, int limit) {
+		CompactBitmap borrowed = patron.getBorrowedIsbns();
+
+		// Walk the sparse rows of every borrowed title
+		Map<Integer, Integer> scores = new HashMap<>();
+		borrowed.forEach(ordinal -> model.getCoBorrowed(ordinal).forEach((candidate, count) -> {
+			if (!borrowed.contains(candidate)) {
+				scores.merge(candidate, count, Integer::sum);
+			}
+		}));
+
+		List<Book> recommendations = new ArrayList<>();
+		if (!scores.isEmpty()) {
+			// Keep only candidates present in the available pool
+			OrdinalDictionary isbnOrdinals = model.getIsbnOrdinals();
+			BookPool pool = BookPool.of(availableBooks);
+			Map<Book, Integer> bookScores = new HashMap<>();
+			scores.forEach((candidate, score) -> {
+				Book book = pool.getBook(isbnOrdinals.keyOf(candidate));
+				if (book != null) {
+					bookScores.put(book, score);
+				}
+			});
+			recommendations = TopK.select(bookScores, limit);
+		}
+
+		logger.info(String.format("Generated %d collaborative recommendations for patron %s", recommendations.size(),
+				patron.getPatronId()));
+
+		return recommendations;
+	}
+}
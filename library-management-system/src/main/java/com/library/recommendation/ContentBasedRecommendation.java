@@ -3,53 +3,80 @@ package com.library.recommendation;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
+import com.library.catalog.CatalogIndex;
+import com.library.index.OrdinalDictionary;
 import com.library.model.Book;
-import com.library.model.BorrowingRecord;
 import com.library.model.Patron;
 
 /**
- * Content-based recommendation strategy Recommends books by same authors that
- * patron has borrowed before
+ * Content-based recommendation strategy Recommends books by authors and on
+ * subjects the patron has borrowed before, walking only the catalog postings
+ * for those authors and subjects
  */
 class ContentBasedRecommendation implements RecommendationEngine {
 	private static final Logger logger = Logger.getLogger(ContentBasedRecommendation.class.getName());
+	private static final int AUTHOR_WEIGHT = 2;
+	private static final int SUBJECT_WEIGHT = 1;
 
-	@Override
-	public List<Book> getRecommendations(Patron patron, List<Book> availableBooks, int limit) {
-		// Get authors from borrowing history
-		Set<String> borrowedAuthors = patron.getBorrowingHistory().stream().map(BorrowingRecord::getIsbn)
-				.collect(Collectors.toSet());
-
-		// Find books by same authors that haven't been borrowed
-		Map<Book, Integer> bookScores = new HashMap<>();
+	private final CatalogIndex catalog;
 
-		for (Book book : availableBooks) {
-			int score = 0;
+	public ContentBasedRecommendation(CatalogIndex catalog) {
+		this.catalog = catalog;
+	}
 
-			// Check if author matches
-			for (String borrowedIsbn : borrowedAuthors) {
-				// In a real system, we'd look up the author from ISBN
-				// For simplicity, we'll just give a base score
-				score += 1;
+	@Override
+	public List<Book> getRecommendations(Patron patron, List<Book> availableBooks, int limit) {
+		// Build author and subject affinities from borrowing history
+		Map<String, Integer> authorAffinity = new HashMap<>();
+		Map<String, Integer> subjectAffinity = new HashMap<>();
+		OrdinalDictionary isbnOrdinals = OrdinalDictionary.isbns();
+		patron.getBorrowedIsbns().forEach(ordinal -> {
+			Book borrowed = catalog.getBook(isbnOrdinals.keyOf(ordinal));
+			if (borrowed != null) {
+				if (borrowed.getAuthor() != null) {
+					authorAffinity.merge(borrowed.getAuthor(), 1, Integer::sum);
+				}
+				for (String subject : borrowed.getSubjects()) {
+					subjectAffinity.merge(subject, 1, Integer::sum);
+				}
 			}
+		});
 
-			if (score > 0) {
-				bookScores.put(book, score);
-			}
+		// Score unborrowed books found in the postings of those authors and subjects
+		Map<String, Integer> scores = new HashMap<>();
+		authorAffinity.forEach((author, affinity) -> addScores(scores, catalog.getIsbnsByAuthor(author), patron,
+				affinity * AUTHOR_WEIGHT));
+		subjectAffinity.forEach((subject, affinity) -> addScores(scores, catalog.getIsbnsBySubject(subject), patron,
+				affinity * SUBJECT_WEIGHT));
+
+		// Keep only candidates present in the available pool
+		Map<Book, Integer> bookScores = new HashMap<>();
+		if (!scores.isEmpty()) {
+			BookPool pool = BookPool.of(availableBooks);
+			scores.forEach((isbn, score) -> {
+				Book book = pool.getBook(isbn);
+				if (book != null) {
+					bookScores.put(book, score);
+				}
+			});
 		}
 
-		// Sort by score and return top N
-		List<Book> recommendations = bookScores.entrySet().stream()
-				.sorted(Map.Entry.<Book, Integer>comparingByValue().reversed()).limit(limit).map(Map.Entry::getKey)
-				.collect(Collectors.toList());
+		// Select top N by score
+		List<Book> recommendations = TopK.select(bookScores, limit);
 
 		logger.info(String.format("Generated %d content-based recommendations for patron %s", recommendations.size(),
 				patron.getPatronId()));
 
 		return recommendations;
 	}
+
+	private static void addScores(Map<String, Integer> scores, Iterable<String> isbns, Patron patron, int score) {
+		for (String isbn : isbns) {
+			if (!patron.hasBorrowed(isbn)) {
+				scores.merge(isbn, score, Integer::sum);
+			}
+		}
+	}
 }
@@ -1,10 +1,19 @@
 package com.library.recommendation;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import com.library.model.Book;
 import com.library.model.Patron;
@@ -12,31 +21,71 @@ import com.library.model.Patron;
 /**
  * Hybrid recommendation strategy
  * Combines multiple recommendation approaches
+ * Sub-engines run concurrently within a per-request time budget; results that
+ * miss the deadline are left out and counted per engine. Each engine has its
+ * own bounded pool, so an engine that keeps running past the deadline only
+ * holds up later calls to itself: a late call is interrupted, and a call
+ * that finds the engine's pool saturated is skipped as a miss
  */
 class HybridRecommendation implements RecommendationEngine {
     private static final Logger logger = Logger.getLogger(HybridRecommendation.class.getName());
     
+    private static final Duration DEFAULT_TIME_BUDGET = Duration.ofMillis(200);
+    private static final int THREADS_PER_ENGINE = Runtime.getRuntime().availableProcessors();
+    
     private final List<RecommendationEngine> engines;
     private final List<Double> weights;
+    private final Duration timeBudget;
+    private final List<ThreadPoolExecutor> executors; // per engine
+    private final AtomicLongArray timeouts; // per engine
     
     public HybridRecommendation(List<RecommendationEngine> engines, List<Double> weights) {
+        this(engines, weights, DEFAULT_TIME_BUDGET);
+    }
+    
+    public HybridRecommendation(List<RecommendationEngine> engines, List<Double> weights, Duration timeBudget) {
         if (engines.size() != weights.size()) {
             throw new IllegalArgumentException("Engines and weights must have same size");
         }
         this.engines = engines;
         this.weights = weights;
+        this.timeBudget = timeBudget;
+        this.executors = new ArrayList<>(engines.size());
+        for (RecommendationEngine engine : engines) {
+            executors.add(newEngineExecutor(engine.getClass().getSimpleName()));
+        }
+        this.timeouts = new AtomicLongArray(engines.size());
     }
     
     @Override
     public List<Book> getRecommendations(Patron patron, List<Book> availableBooks, int limit) {
         Map<Book, Double> combinedScores = new HashMap<>();
         
-        // Combine recommendations from all engines
+        // Fan out to all engines at once
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        List<Future<List<Book>>> futures = new ArrayList<>(engines.size());
         for (int i = 0; i < engines.size(); i++) {
             RecommendationEngine engine = engines.get(i);
+            try {
+                futures.add(executors.get(i).submit(
+                    () -> engine.getRecommendations(patron, availableBooks, limit * 2)));
+            } catch (RejectedExecutionException e) {
+                futures.add(null); // still busy with earlier requests
+            }
+        }
+        
+        // Combine whatever arrives before the deadline
+        List<String> timedOut = new ArrayList<>();
+        for (int i = 0; i < engines.size(); i++) {
             double weight = weights.get(i);
             
-            List<Book> recommendations = engine.getRecommendations(patron, availableBooks, limit * 2);
+            Future<List<Book>> future = futures.get(i);
+            List<Book> recommendations = future != null ? awaitResult(future, deadline) : null;
+            if (recommendations == null) {
+                timeouts.incrementAndGet(i);
+                timedOut.add(engines.get(i).getClass().getSimpleName());
+                continue;
+            }
             
             // Assign scores based on rank (higher rank = higher score)
             for (int j = 0; j < recommendations.size(); j++) {
@@ -46,16 +95,57 @@ class HybridRecommendation implements RecommendationEngine {
             }
         }
         
-        // Sort by combined score and return top N
-        List<Book> finalRecommendations = combinedScores.entrySet().stream()
-            .sorted(Map.Entry.<Book, Double>comparingByValue().reversed())
-            .limit(limit)
-            .map(Map.Entry::getKey)
-            .collect(Collectors.toList());
+        // Select top N by combined score
+        List<Book> finalRecommendations = TopK.select(combinedScores, limit);
         
+        if (!timedOut.isEmpty()) {
+            logger.warning(String.format("Engines %s missed the %d ms budget for patron %s", 
+                timedOut, timeBudget.toMillis(), patron.getPatronId()));
+        }
         logger.info(String.format("Generated %d hybrid recommendations for patron %s", 
             finalRecommendations.size(), patron.getPatronId()));
         
         return finalRecommendations;
     }
+    
+    /**
+     * Number of requests in which the engine at the given index missed the deadline
+     */
+    public long getTimeoutCount(int engineIndex) {
+        return timeouts.get(engineIndex);
+    }
+    
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+    
+    /**
+     * Bounded pool for one engine; idle threads exit, so an unused hybrid
+     * engine holds no threads
+     */
+    private static ThreadPoolExecutor newEngineExecutor(String engineName) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS_PER_ENGINE, THREADS_PER_ENGINE, 30,
+            TimeUnit.SECONDS, new ArrayBlockingQueue<>(THREADS_PER_ENGINE), runnable -> {
+                Thread thread = new Thread(runnable, "hybrid-recommendation-" + engineName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    private List<Book> awaitResult(Future<List<Book>> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true); // interrupts the engine's thread
+            return null;
+        } catch (ExecutionException e) {
+            logger.warning("Recommendation engine failed: " + e.getCause());
+            return List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
 }
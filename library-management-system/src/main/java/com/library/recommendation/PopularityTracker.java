@@ -0,0 +1,292 @@
+package com.library.recommendation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.transaction.CirculationListener;
+
+/**
+ * Shared, thread-safe popularity tracker fed by checkouts. Borrows decay
+ * exponentially with a configurable half-life, so rankings follow current
+ * demand. Uses forward decay: each borrow adds e^(rate * (t - landmark)), and
+ * scores are divided by the same factor on read, so updates never touch other
+ * titles. EXACT mode keeps one counter per title; SKETCH mode keeps a fixed
+ * count-min sketch plus a bounded heavy-hitters table, so memory does not grow
+ * with the catalog; each sketch row hashes the ISBN with its own seed, so
+ * titles colliding in one row rarely collide in the others. The shared instance is configured with system
+ * properties: -Dlibrary.popularity.mode=sketch selects SKETCH mode, sized by
+ * library.popularity.sketch.width, .depth and .heavyHitters, and
+ * -Dlibrary.popularity.halfLifeDays sets the half-life
+ */
+public class PopularityTracker implements CirculationListener {
+	public enum Mode {
+		EXACT, SKETCH
+	}
+
+	private static final Duration DEFAULT_HALF_LIFE = Duration.ofDays(30);
+	private static final int DEFAULT_SKETCH_WIDTH = 1 << 16;
+	private static final int DEFAULT_SKETCH_DEPTH = 4;
+	private static final int DEFAULT_HEAVY_HITTERS = 1024;
+	private static final double MAX_EXPONENT = 50.0; // rescale well before doubles overflow
+	private static final long SEED = 0x2545F4914F6CDD1DL;
+	private static PopularityTracker instance;
+
+	private final Mode mode;
+	private final double decayRate; // per millisecond
+	private final ReadWriteLock landmarkLock;
+	private volatile long landmarkMillis;
+
+	// EXACT mode
+	private final Map<String, DoubleAdder> exactScores;
+
+	// SKETCH mode
+	private final AtomicLongArray sketch; // depth rows of width cells, doubles stored as raw bits
+	private final int width;
+	private final int depth;
+	private final long[] rowSeeds;
+	private final int heavyHitterCapacity;
+	private final Map<String, Double> heavyHitters;
+	private volatile double admissionThreshold;
+
+	private PopularityTracker(Mode mode, Duration halfLife, int width, int depth, int heavyHitterCapacity) {
+		if (halfLife.isZero() || halfLife.isNegative()) {
+			throw new IllegalArgumentException("Half-life must be positive");
+		}
+		this.mode = mode;
+		this.decayRate = Math.log(2) / halfLife.toMillis();
+		this.landmarkLock = new ReentrantReadWriteLock();
+		this.landmarkMillis = System.currentTimeMillis();
+		this.exactScores = new ConcurrentHashMap<>();
+		this.width = width;
+		this.depth = depth;
+		this.rowSeeds = new SplittableRandom(SEED).longs(depth).toArray();
+		this.sketch = mode == Mode.SKETCH ? new AtomicLongArray(width * depth) : null;
+		this.heavyHitterCapacity = heavyHitterCapacity;
+		this.heavyHitters = new ConcurrentHashMap<>();
+	}
+
+	public static PopularityTracker exact(Duration halfLife) {
+		return new PopularityTracker(Mode.EXACT, halfLife, 0, 0, 0);
+	}
+
+	/**
+	 * Memory-bounded tracker: a width x depth count-min sketch and the top
+	 * heavyHitterCapacity titles
+	 */
+	public static PopularityTracker sketch(Duration halfLife, int width, int depth, int heavyHitterCapacity) {
+		if (width <= 0 || depth <= 0 || heavyHitterCapacity <= 0) {
+			throw new IllegalArgumentException("Sketch dimensions must be positive");
+		}
+		return new PopularityTracker(Mode.SKETCH, halfLife, width, depth, heavyHitterCapacity);
+	}
+
+	public static synchronized PopularityTracker getInstance() {
+		if (instance == null) {
+			instance = configured(System.getProperties());
+		}
+		return instance;
+	}
+
+	/**
+	 * Tracker described by library.popularity.* properties
+	 */
+	static PopularityTracker configured(Properties properties) {
+		Duration halfLife = Duration.ofDays(intProperty(properties, "library.popularity.halfLifeDays",
+				(int) DEFAULT_HALF_LIFE.toDays()));
+		String mode = properties.getProperty("library.popularity.mode", Mode.EXACT.name());
+		switch (mode.toUpperCase(Locale.ROOT)) {
+		case "EXACT":
+			return exact(halfLife);
+		case "SKETCH":
+			return sketch(halfLife, intProperty(properties, "library.popularity.sketch.width", DEFAULT_SKETCH_WIDTH),
+					intProperty(properties, "library.popularity.sketch.depth", DEFAULT_SKETCH_DEPTH),
+					intProperty(properties, "library.popularity.sketch.heavyHitters", DEFAULT_HEAVY_HITTERS));
+		default:
+			throw new IllegalArgumentException("Unknown popularity mode: " + mode);
+		}
+	}
+
+	private static int intProperty(Properties properties, String name, int defaultValue) {
+		String value = properties.getProperty(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + ": " + value);
+		}
+	}
+
+	public void recordBorrow(String isbn) {
+		recordBorrow(isbn, System.currentTimeMillis());
+	}
+
+	public void recordBorrow(String isbn, long timeMillis) {
+		if (decayRate * (timeMillis - landmarkMillis) > MAX_EXPONENT) {
+			rescale(timeMillis);
+		}
+		landmarkLock.readLock().lock();
+		try {
+			double weight = Math.exp(decayRate * (timeMillis - landmarkMillis));
+			if (mode == Mode.EXACT) {
+				exactScores.computeIfAbsent(isbn, k -> new DoubleAdder()).add(weight);
+			} else {
+				double estimate = addToSketch(isbn, weight);
+				offerHeavyHitter(isbn, estimate);
+			}
+		} finally {
+			landmarkLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Current decayed borrow count; an upper-bound estimate in SKETCH mode
+	 */
+	public double getScore(String isbn) {
+		return getScore(isbn, System.currentTimeMillis());
+	}
+
+	public double getScore(String isbn, long nowMillis) {
+		landmarkLock.readLock().lock();
+		try {
+			return rawScore(isbn) * Math.exp(-decayRate * (nowMillis - landmarkMillis));
+		} finally {
+			landmarkLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Most popular ISBNs, best first. In SKETCH mode only heavy hitters are
+	 * ranked
+	 */
+	public List<String> getTopIsbns(int limit) {
+		landmarkLock.readLock().lock();
+		try {
+			Iterable<String> candidates = mode == Mode.EXACT ? exactScores.keySet() : heavyHitters.keySet();
+			return TopK.select(candidates, this::rawScore, limit);
+		} finally {
+			landmarkLock.readLock().unlock();
+		}
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	@Override
+	public void bookCheckedOut(Book book, Patron patron) {
+		recordBorrow(book.getIsbn());
+	}
+
+	private double rawScore(String isbn) {
+		if (mode == Mode.EXACT) {
+			DoubleAdder score = exactScores.get(isbn);
+			return score != null ? score.sum() : 0.0;
+		}
+		double estimate = Double.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, Double.longBitsToDouble(sketch.get(cell(isbn, row))));
+		}
+		return estimate;
+	}
+
+	private double addToSketch(String isbn, double weight) {
+		double estimate = Double.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			int cell = cell(isbn, row);
+			long current;
+			double updated;
+			do {
+				current = sketch.get(cell);
+				updated = Double.longBitsToDouble(current) + weight;
+			} while (!sketch.compareAndSet(cell, current, Double.doubleToRawLongBits(updated)));
+			estimate = Math.min(estimate, updated);
+		}
+		return estimate;
+	}
+
+	private void offerHeavyHitter(String isbn, double estimate) {
+		// Atomic with eviction, so an entry evicted meanwhile is not put back
+		if (heavyHitters.computeIfPresent(isbn, (k, score) -> Math.max(score, estimate)) != null) {
+			return;
+		}
+		if (heavyHitters.size() >= heavyHitterCapacity && estimate <= admissionThreshold) {
+			return;
+		}
+		// New entries are only added here, so the table never exceeds its capacity
+		synchronized (heavyHitters) {
+			if (heavyHitters.computeIfPresent(isbn, (k, score) -> Math.max(score, estimate)) != null) {
+				return;
+			}
+			if (heavyHitters.size() >= heavyHitterCapacity) {
+				String weakest = null;
+				for (Map.Entry<String, Double> entry : heavyHitters.entrySet()) {
+					if (weakest == null || entry.getValue() < heavyHitters.get(weakest)) {
+						weakest = entry.getKey();
+					}
+				}
+				if (weakest == null || heavyHitters.get(weakest) >= estimate) {
+					return;
+				}
+				heavyHitters.remove(weakest);
+			}
+			heavyHitters.put(isbn, estimate);
+			admissionThreshold = heavyHitters.values().stream().mapToDouble(Double::doubleValue).min().orElse(0.0);
+		}
+	}
+
+	/**
+	 * Move the landmark to now and scale stored weights down to match
+	 */
+	private void rescale(long nowMillis) {
+		landmarkLock.writeLock().lock();
+		try {
+			if (decayRate * (nowMillis - landmarkMillis) <= MAX_EXPONENT) {
+				return;
+			}
+			double factor = Math.exp(-decayRate * (nowMillis - landmarkMillis));
+			if (mode == Mode.EXACT) {
+				for (DoubleAdder score : exactScores.values()) {
+					double scaled = score.sumThenReset() * factor;
+					score.add(scaled);
+				}
+			} else {
+				for (int i = 0; i < sketch.length(); i++) {
+					sketch.set(i, Double.doubleToRawLongBits(Double.longBitsToDouble(sketch.get(i)) * factor));
+				}
+				heavyHitters.replaceAll((isbn, score) -> score * factor);
+				admissionThreshold *= factor;
+			}
+			landmarkMillis = nowMillis;
+		} finally {
+			landmarkLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Seeded 64-bit hash of the ISBN's characters for one row; deriving rows
+	 * from String.hashCode would make every row collide for the same pairs
+	 */
+	private int cell(String isbn, int row) {
+		long hash = rowSeeds[row];
+		for (int i = 0; i < isbn.length(); i++) {
+			hash = (hash ^ isbn.charAt(i)) * 0x100000001B3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		return row * width + (int) Math.floorMod(hash, (long) width);
+	}
+}
@@ -0,0 +1,244 @@
+package com.library.recommendation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * Precomputed top-k recommendations stored in a compact binary file and served
+ * from a read-only memory mapping. Layout (big-endian):
+ *
+ * <pre>
+ * int magic, int version, int topK
+ * int isbnCount, isbnCount x (short length, UTF-8 bytes)   -- ISBN table
+ * int entryCount, entryCount x (int keyOffset, int recordOffset) -- sorted by key bytes
+ * data: keys (short length, UTF-8 key), records (byte count, count x int ISBN index)
+ * </pre>
+ *
+ * A key is the branch ID prefixed with its length, then the patron ID, e.g.
+ * "4:BR01/P7", so IDs containing '/' cannot collide. Only the ISBN table is
+ * read onto the heap; patron lookups binary-search the mapped entry table
+ */
+public class PrecomputedRecommendations {
+	private static final Logger logger = Logger.getLogger(PrecomputedRecommendations.class.getName());
+	private static final int MAGIC = 0x4C4D5352; // "LMSR"
+	private static final int VERSION = 2; // 2: length-prefixed keys
+
+	private final MappedByteBuffer buffer;
+	private final int topK;
+	private final String[] isbns;
+	private final int entryCount;
+	private final int entryTableOffset;
+
+	private PrecomputedRecommendations(MappedByteBuffer buffer) {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("Not a precomputed recommendations file");
+		}
+		this.topK = buffer.getInt(8);
+		int position = 12;
+		this.isbns = new String[buffer.getInt(position)];
+		position += 4;
+		for (int i = 0; i < isbns.length; i++) {
+			int length = buffer.getShort(position) & 0xFFFF;
+			isbns[i] = readUtf8(position + 2, length);
+			position += 2 + length;
+		}
+		this.entryCount = buffer.getInt(position);
+		this.entryTableOffset = position + 4;
+	}
+
+	public static PrecomputedRecommendations open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			PrecomputedRecommendations recommendations = new PrecomputedRecommendations(buffer);
+			logger.info("Mapped " + recommendations.entryCount + " precomputed recommendation lists from " + file);
+			return recommendations;
+		}
+	}
+
+	/**
+	 * Write results keyed by branch and patron to a file
+	 *
+	 * @param results {@link #key} of branch and patron -> recommended ISBNs,
+	 *                best first
+	 */
+	public static void write(Path file, Map<String, List<String>> results, int topK) throws IOException {
+		// Dictionary-encode ISBNs
+		Map<String, Integer> isbnIndex = new LinkedHashMap<>();
+		for (List<String> recommended : results.values()) {
+			for (String isbn : recommended) {
+				isbnIndex.putIfAbsent(isbn, isbnIndex.size());
+			}
+		}
+
+		// Sort entries by key UTF-8 bytes, the order the reader searches in
+		List<Map.Entry<byte[], List<String>>> entries = new ArrayList<>(results.size());
+		results.forEach((key, recommended) -> entries
+				.add(new AbstractMap.SimpleImmutableEntry<>(key.getBytes(StandardCharsets.UTF_8), recommended)));
+		entries.sort((a, b) -> Arrays.compareUnsigned(a.getKey(), b.getKey()));
+
+		long headerSize = 12 + 4 + 4 + (long) entries.size() * 8;
+		for (String isbn : isbnIndex.keySet()) {
+			headerSize += 2 + isbn.getBytes(StandardCharsets.UTF_8).length;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(topK);
+			out.writeInt(isbnIndex.size());
+			for (String isbn : isbnIndex.keySet()) {
+				writeUtf8(out, isbn.getBytes(StandardCharsets.UTF_8));
+			}
+
+			// Entry table: key followed by its record in the data region
+			out.writeInt(entries.size());
+			long offset = headerSize;
+			for (Map.Entry<byte[], List<String>> entry : entries) {
+				byte[] key = entry.getKey();
+				int count = recordSize(entry.getValue(), topK);
+				out.writeInt(checkedOffset(offset));
+				out.writeInt(checkedOffset(offset + 2 + key.length));
+				offset += 2 + key.length + 1 + 4L * count;
+			}
+
+			for (Map.Entry<byte[], List<String>> entry : entries) {
+				List<String> recommended = entry.getValue();
+				int count = recordSize(recommended, topK);
+				writeUtf8(out, entry.getKey());
+				out.writeByte(count);
+				for (int i = 0; i < count; i++) {
+					out.writeInt(isbnIndex.get(recommended.get(i)));
+				}
+			}
+		}
+		logger.info("Wrote " + entries.size() + " precomputed recommendation lists to " + file);
+	}
+
+	/**
+	 * Unambiguous key for a patron at a branch
+	 */
+	public static String key(String branchId, String patronId) {
+		return branchId.length() + ":" + branchId + "/" + patronId;
+	}
+
+	/**
+	 * Precomputed ISBNs for a patron at a branch, best first; empty if none
+	 */
+	public List<String> getRecommendedIsbns(String branchId, String patronId) {
+		int record = findRecord(key(branchId, patronId).getBytes(StandardCharsets.UTF_8));
+		if (record < 0) {
+			return List.of();
+		}
+		int count = buffer.get(record) & 0xFF;
+		List<String> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(isbns[buffer.getInt(record + 1 + 4 * i)]);
+		}
+		return result;
+	}
+
+	/**
+	 * Engine serving a branch from the file; books are resolved with the lookup
+	 * (for example {@code branch::getBook}) and skipped when not available
+	 */
+	public RecommendationEngine asEngine(String branchId, Function<String, Book> bookLookup) {
+		return (Patron patron, List<Book> availableBooks, int limit) -> {
+			List<Book> recommendations = new ArrayList<>();
+			for (String isbn : getRecommendedIsbns(branchId, patron.getPatronId())) {
+				Book book = bookLookup.apply(isbn);
+				if (book != null && book.isAvailable()) {
+					recommendations.add(book);
+					if (recommendations.size() == limit) {
+						break;
+					}
+				}
+			}
+			return recommendations;
+		};
+	}
+
+	public int getTopK() {
+		return topK;
+	}
+
+	public int size() {
+		return entryCount;
+	}
+
+	private int findRecord(byte[] key) {
+		int low = 0;
+		int high = entryCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int entry = entryTableOffset + mid * 8;
+			int comparison = compareKey(buffer.getInt(entry), key);
+			if (comparison < 0) {
+				low = mid + 1;
+			} else if (comparison > 0) {
+				high = mid - 1;
+			} else {
+				return buffer.getInt(entry + 4);
+			}
+		}
+		return -1;
+	}
+
+	private int compareKey(int keyOffset, byte[] key) {
+		int length = buffer.getShort(keyOffset) & 0xFFFF;
+		int common = Math.min(length, key.length);
+		for (int i = 0; i < common; i++) {
+			int comparison = Byte.compareUnsigned(buffer.get(keyOffset + 2 + i), key[i]);
+			if (comparison != 0) {
+				return comparison;
+			}
+		}
+		return Integer.compare(length, key.length);
+	}
+
+	private String readUtf8(int offset, int length) {
+		byte[] bytes = new byte[length];
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(offset);
+		slice.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeUtf8(DataOutputStream out, byte[] bytes) throws IOException {
+		if (bytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("String too long for recommendations file");
+		}
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	private static int recordSize(List<String> recommended, int topK) {
+		return Math.min(recommended.size(), Math.min(topK, 255));
+	}
+
+	private static int checkedOffset(long offset) {
+		if (offset > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Recommendations file exceeds 2 GB");
+		}
+		return (int) offset;
+	}
+}
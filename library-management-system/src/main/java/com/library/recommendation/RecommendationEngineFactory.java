@@ -3,6 +3,9 @@ package com.library.recommendation;
 import java.util.Arrays;
 import java.util.List;
 
+import com.library.catalog.CatalogIndex;
+import com.library.transaction.CirculationEvents;
+
 /**
  * Factory for creating recommendation engines
  */
@@ -11,16 +14,29 @@ public class RecommendationEngineFactory {
 	public static RecommendationEngine createEngine(RecommendationType type) {
 		switch (type) {
 		case CONTENT_BASED:
-			return new ContentBasedRecommendation();
+			return new ContentBasedRecommendation(CatalogIndex.getInstance());
 		case POPULARITY_BASED:
-			return new PopularityBasedRecommendation();
+			return new PopularityBasedRecommendation(PopularityTracker.getInstance());
+		case COLLABORATIVE:
+			return new CollaborativeRecommendation(CoBorrowingModel.getInstance());
 		case HYBRID:
-			List<RecommendationEngine> engines = Arrays.asList(new ContentBasedRecommendation(),
-					new PopularityBasedRecommendation());
+			List<RecommendationEngine> engines = Arrays.asList(new ContentBasedRecommendation(CatalogIndex.getInstance()),
+					new PopularityBasedRecommendation(PopularityTracker.getInstance()));
 			List<Double> weights = Arrays.asList(0.6, 0.4);
 			return new HybridRecommendation(engines, weights);
 		default:
 			throw new IllegalArgumentException("Unknown recommendation type: " + type);
 		}
 	}
+
+	/**
+	 * Create an engine wrapped in a per-patron result cache that is invalidated
+	 * by circulation events. Close it when done to unregister it from those
+	 * events
+	 */
+	public static CachingRecommendationEngine createCachingEngine(RecommendationType type) {
+		CachingRecommendationEngine engine = new CachingRecommendationEngine(createEngine(type));
+		CirculationEvents.getInstance().addListener(engine);
+		return engine;
+	}
 }
\ No newline at end of file
@@ -2,5 +2,5 @@ package com.library.recommendation;
 
 public enum RecommendationType {
 
-	CONTENT_BASED, POPULARITY_BASED, HYBRID;
+	CONTENT_BASED, POPULARITY_BASED, COLLABORATIVE, HYBRID;
 }
@@ -0,0 +1,207 @@
+package com.library.recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.library.index.OrdinalDictionary;
+import com.library.model.Book;
+import com.library.model.Patron;
+import com.library.transaction.CirculationListener;
+
+/**
+ * "Patrons who borrowed this also borrowed" index. Each book keeps a MinHash
+ * signature of its borrower set, updated incrementally on checkout, and the
+ * signature is split into bands hashed into locality-sensitive buckets. A
+ * similar-books lookup only compares the book against titles sharing at least
+ * one bucket, and ranks them by estimated Jaccard similarity of borrowers
+ */
+public class SimilarBooksIndex implements CirculationListener {
+	private static final int DEFAULT_BANDS = 16;
+	private static final int DEFAULT_ROWS = 4;
+	private static SimilarBooksIndex instance;
+
+	private final OrdinalDictionary isbnOrdinals;
+	private final OrdinalDictionary patronOrdinals;
+	private final int bands;
+	private final int rows;
+	private final int[] hashMultipliers;
+	private final int[] hashOffsets;
+	private final Map<Integer, int[]> signatures; // ISBN ordinal -> MinHash signature
+	private final Map<Integer, long[]> bandKeys; // ISBN ordinal -> bucket key per band
+	private final List<Map<Long, Set<Integer>>> buckets; // per band: bucket key -> ISBN ordinals
+
+	public SimilarBooksIndex(OrdinalDictionary isbnOrdinals, OrdinalDictionary patronOrdinals, int bands, int rows) {
+		if (bands <= 0 || rows <= 0) {
+			throw new IllegalArgumentException("Bands and rows must be positive");
+		}
+		this.isbnOrdinals = isbnOrdinals;
+		this.patronOrdinals = patronOrdinals;
+		this.bands = bands;
+		this.rows = rows;
+		this.hashMultipliers = new int[bands * rows];
+		this.hashOffsets = new int[bands * rows];
+		Random random = new Random(0x5EEDL); // fixed so signatures are reproducible
+		for (int i = 0; i < hashMultipliers.length; i++) {
+			hashMultipliers[i] = random.nextInt() | 1;
+			hashOffsets[i] = random.nextInt();
+		}
+		this.signatures = new ConcurrentHashMap<>();
+		this.bandKeys = new ConcurrentHashMap<>();
+		this.buckets = new ArrayList<>(bands);
+		for (int band = 0; band < bands; band++) {
+			buckets.add(new ConcurrentHashMap<>());
+		}
+	}
+
+	public static synchronized SimilarBooksIndex getInstance() {
+		if (instance == null) {
+			instance = new SimilarBooksIndex(OrdinalDictionary.isbns(), OrdinalDictionary.patrons(), DEFAULT_BANDS,
+					DEFAULT_ROWS);
+		}
+		return instance;
+	}
+
+	public void recordBorrow(String isbn, String patronId) {
+		int book = isbnOrdinals.ordinalOf(isbn);
+		int patron = patronOrdinals.ordinalOf(patronId);
+		int[] signature = signatures.computeIfAbsent(book, k -> newSignature());
+
+		synchronized (signature) {
+			boolean[] changedBands = new boolean[bands];
+			boolean changed = false;
+			for (int i = 0; i < signature.length; i++) {
+				int hash = hash(i, patron);
+				if (hash < signature[i]) {
+					signature[i] = hash;
+					changedBands[i / rows] = true;
+					changed = true;
+				}
+			}
+			if (changed) {
+				rebucket(book, signature, changedBands);
+			}
+		}
+	}
+
+	/**
+	 * Books whose borrowers overlap most with the given book's, best first
+	 */
+	public List<String> findSimilarIsbns(String isbn, int limit) {
+		int book = isbnOrdinals.lookup(isbn);
+		int[] signature = book >= 0 ? signatures.get(book) : null;
+		if (signature == null) {
+			return new ArrayList<>();
+		}
+		int[] query;
+		long[] keys;
+		synchronized (signature) {
+			query = signature.clone();
+			keys = bandKeys.get(book);
+			if (keys == null) {
+				// Published by a first borrow that has not been bucketed yet
+				return new ArrayList<>();
+			}
+			keys = keys.clone();
+		}
+
+		Set<Integer> candidates = new HashSet<>();
+		for (int band = 0; band < bands; band++) {
+			Set<Integer> bucket = buckets.get(band).get(keys[band]);
+			if (bucket != null) {
+				candidates.addAll(bucket);
+			}
+		}
+		candidates.remove(book);
+
+		Map<String, Double> similarities = new HashMap<>();
+		for (int candidate : candidates) {
+			double similarity = estimateSimilarity(query, snapshot(signatures.get(candidate)));
+			if (similarity > 0) {
+				similarities.put(isbnOrdinals.keyOf(candidate), similarity);
+			}
+		}
+		return TopK.select(similarities, limit);
+	}
+
+	/**
+	 * Estimated Jaccard similarity of two books' borrower sets
+	 */
+	public double estimateSimilarity(String isbn, String otherIsbn) {
+		int book = isbnOrdinals.lookup(isbn);
+		int other = isbnOrdinals.lookup(otherIsbn);
+		if (book < 0 || other < 0 || !signatures.containsKey(book) || !signatures.containsKey(other)) {
+			return 0.0;
+		}
+		return estimateSimilarity(snapshot(signatures.get(book)), snapshot(signatures.get(other)));
+	}
+
+	@Override
+	public void bookCheckedOut(Book book, Patron patron) {
+		recordBorrow(book.getIsbn(), patron.getPatronId());
+	}
+
+	/**
+	 * Compare two private copies; callers never hold two signature locks at
+	 * once, so concurrent lookups in either order cannot deadlock
+	 */
+	private double estimateSimilarity(int[] query, int[] signature) {
+		int matches = 0;
+		for (int i = 0; i < query.length; i++) {
+			if (query[i] == signature[i]) {
+				matches++;
+			}
+		}
+		return (double) matches / query.length;
+	}
+
+	private static int[] snapshot(int[] signature) {
+		synchronized (signature) {
+			return signature.clone();
+		}
+	}
+
+	private void rebucket(int book, int[] signature, boolean[] changedBands) {
+		long[] keys = bandKeys.computeIfAbsent(book, k -> new long[bands]);
+		for (int band = 0; band < bands; band++) {
+			if (!changedBands[band]) {
+				continue;
+			}
+			long key = bandKey(signature, band);
+			buckets.get(band).computeIfPresent(keys[band], (k, previous) -> {
+				previous.remove(book);
+				return previous.isEmpty() ? null : previous;
+			});
+			buckets.get(band).computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(book);
+			keys[band] = key;
+		}
+	}
+
+	private long bandKey(int[] signature, int band) {
+		long key = band;
+		for (int row = band * rows; row < (band + 1) * rows; row++) {
+			key = key * 0x9E3779B97F4A7C15L + signature[row];
+		}
+		return key;
+	}
+
+	private int hash(int function, int value) {
+		int hash = value * hashMultipliers[function] + hashOffsets[function];
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		return hash;
+	}
+
+	private int[] newSignature() {
+		int[] signature = new int[bands * rows];
+		Arrays.fill(signature, Integer.MAX_VALUE);
+		return signature;
+	}
+}
@@ -0,0 +1,84 @@
+package com.library.recommendation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bounded top-k selection over scored candidates Keeps a min-heap of at most
+ * k entries instead of sorting every candidate
+ */
+final class TopK {
+
+	private TopK() {
+	}
+
+	/**
+	 * The k highest-scored keys, best first
+	 */
+	static <T, S extends Comparable<S>> List<T> select(Map<T, S> scores, int k) {
+		if (k <= 0 || scores.isEmpty()) {
+			return new ArrayList<>();
+		}
+		PriorityQueue<Map.Entry<T, S>> heap = new PriorityQueue<>(Math.min(k, scores.size()) + 1,
+				Map.Entry.comparingByValue());
+		for (Map.Entry<T, S> entry : scores.entrySet()) {
+			if (heap.size() < k) {
+				heap.add(entry);
+			} else if (entry.getValue().compareTo(heap.peek().getValue()) > 0) {
+				heap.poll();
+				heap.add(entry);
+			}
+		}
+		List<T> result = new ArrayList<>(heap.size());
+		while (!heap.isEmpty()) {
+			result.add(heap.poll().getKey());
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	/**
+	 * The k highest-scored candidates, best first, scoring each once as it
+	 * is read so no score map is built
+	 */
+	static <T> List<T> select(Iterable<T> candidates, ToDoubleFunction<T> scorer, int k) {
+		if (k <= 0) {
+			return new ArrayList<>();
+		}
+		PriorityQueue<Scored<T>> heap = new PriorityQueue<>(k + 1);
+		for (T candidate : candidates) {
+			double score = scorer.applyAsDouble(candidate);
+			if (heap.size() < k) {
+				heap.add(new Scored<>(candidate, score));
+			} else if (score > heap.peek().score) {
+				heap.poll();
+				heap.add(new Scored<>(candidate, score));
+			}
+		}
+		List<T> result = new ArrayList<>(heap.size());
+		while (!heap.isEmpty()) {
+			result.add(heap.poll().candidate);
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	private static final class Scored<T> implements Comparable<Scored<T>> {
+		private final T candidate;
+		private final double score;
+
+		Scored(T candidate, double score) {
+			this.candidate = candidate;
+			this.score = score;
+		}
+
+		@Override
+		public int compareTo(Scored<T> other) {
+			return Double.compare(score, other.score);
+		}
+	}
+}
@@ -0,0 +1,351 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import com.library.core.ChangeEvent;
+import com.library.core.ChangeFeed;
+import com.library.model.Book;
+import com.library.model.BookSnapshot;
+
+/**
+ * Read-only search replica fed by the branch change feed. It keeps its own
+ * copy of every branch's titles with ISBN and year indexes and trigram
+ * postings for title and author substrings, so searches never touch the
+ * LibraryBranch objects circulation works on. A background
+ * thread follows the feed; if the replica ever lags the primary by more
+ * than maxLagMillis, the next search catches up first, which bounds
+ * staleness; checking the lag reads the feed without locking it. Lag and
+ * catch-up counts are exposed for monitoring
+ */
+public class SearchReplica {
+	private static final Logger logger = Logger.getLogger(SearchReplica.class.getName());
+	private static final int BATCH_SIZE = 1024;
+
+	private final ChangeFeed feed;
+	private final long maxLagMillis;
+	private final ReadWriteLock lock;
+	private final Map<String, BranchIndex> branches; // BranchId -> titles and indexes
+	private volatile long appliedSequence;
+	private volatile Thread follower;
+
+	// Metrics
+	private final AtomicLong eventsApplied = new AtomicLong();
+	private final AtomicLong resyncs = new AtomicLong();
+	private final AtomicLong forcedCatchUps = new AtomicLong();
+	private final AtomicLong maxObservedLagMillis = new AtomicLong();
+
+	public SearchReplica(ChangeFeed feed, long maxLagMillis) {
+		this.feed = feed;
+		this.maxLagMillis = maxLagMillis;
+		this.lock = new ReentrantReadWriteLock();
+		this.branches = new HashMap<>();
+		resync();
+	}
+
+	/**
+	 * Follow the feed on a background thread
+	 */
+	public synchronized void start() {
+		if (follower != null) {
+			return;
+		}
+		follower = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				try {
+					apply(feed.await(appliedSequence, BATCH_SIZE, 100));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (IllegalStateException e) {
+					resync();
+				}
+			}
+		}, "search-replica");
+		follower.setDaemon(true);
+		follower.start();
+	}
+
+	public synchronized void stop() {
+		if (follower != null) {
+			follower.interrupt();
+			follower = null;
+		}
+	}
+
+	/**
+	 * Apply everything the feed has so far
+	 *
+	 * @return number of events applied
+	 */
+	public synchronized int catchUp() {
+		int applied = 0;
+		while (true) {
+			List<ChangeEvent> events;
+			try {
+				events = feed.read(appliedSequence, BATCH_SIZE);
+			} catch (IllegalStateException e) {
+				resync();
+				continue;
+			}
+			if (events.isEmpty()) {
+				return applied;
+			}
+			apply(events);
+			applied += events.size();
+		}
+	}
+
+	public List<Book> search(String branchId, SearchType searchType, String query) {
+		boundLag();
+		lock.readLock().lock();
+		try {
+			BranchIndex index = branches.get(branchId);
+			return index != null ? index.search(searchType, query) : List.of();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Search every branch; results carry their branch in getCurrentBranchId
+	 */
+	public List<Book> search(SearchType searchType, String query) {
+		boundLag();
+		lock.readLock().lock();
+		try {
+			List<Book> results = new ArrayList<>();
+			for (BranchIndex index : branches.values()) {
+				results.addAll(index.search(searchType, query));
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Book> getAvailableBooks(String branchId) {
+		boundLag();
+		lock.readLock().lock();
+		try {
+			BranchIndex index = branches.get(branchId);
+			List<Book> available = new ArrayList<>();
+			if (index != null) {
+				for (BookSnapshot book : index.byIsbn.values()) {
+					if (book.isAvailable()) {
+						available.add(book);
+					}
+				}
+			}
+			return available;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public long getAppliedSequence() {
+		return appliedSequence;
+	}
+
+	/**
+	 * Events the primary has produced that this replica has not applied
+	 */
+	public long getLagEvents() {
+		return Math.max(0, feed.getLatestSequence() - appliedSequence);
+	}
+
+	/**
+	 * Age of the oldest change not yet applied; 0 when caught up
+	 */
+	public long getLagMillis() {
+		long next = appliedSequence + 1;
+		if (feed.getLatestSequence() < next) {
+			return 0;
+		}
+		long timestamp = feed.getTimestampMillis(next);
+		// Discarded from the feed: the replica must resynchronize
+		return timestamp < 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - timestamp);
+	}
+
+	public long getMaxObservedLagMillis() {
+		return maxObservedLagMillis.get();
+	}
+
+	public long getEventsApplied() {
+		return eventsApplied.get();
+	}
+
+	public long getResyncCount() {
+		return resyncs.get();
+	}
+
+	public long getForcedCatchUpCount() {
+		return forcedCatchUps.get();
+	}
+
+	private void boundLag() {
+		if (getLagMillis() > maxLagMillis) {
+			forcedCatchUps.incrementAndGet();
+			catchUp();
+		}
+	}
+
+	/**
+	 * Rebuild from the feed's compacted snapshot
+	 */
+	private synchronized void resync() {
+		ChangeFeed.Snapshot snapshot = feed.snapshot();
+		lock.writeLock().lock();
+		try {
+			branches.clear();
+			appliedSequence = 0;
+			applyLocked(snapshot.getEvents());
+			appliedSequence = snapshot.getSequence();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		resyncs.incrementAndGet();
+		logger.info("Search replica resynchronized at sequence " + snapshot.getSequence());
+	}
+
+	private synchronized void apply(List<ChangeEvent> events) {
+		if (events.isEmpty() || events.get(0).getSequence() != appliedSequence + 1) {
+			return; // already applied by a concurrent catch-up
+		}
+		lock.writeLock().lock();
+		try {
+			applyLocked(events);
+			appliedSequence = events.get(events.size() - 1).getSequence();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		long lag = System.currentTimeMillis() - events.get(0).getTimestampMillis();
+		maxObservedLagMillis.accumulateAndGet(lag, Math::max);
+	}
+
+	private void applyLocked(List<ChangeEvent> events) {
+		for (ChangeEvent event : events) {
+			BranchIndex index = branches.computeIfAbsent(event.getBranchId(), k -> new BranchIndex());
+			if (event.getType() == ChangeEvent.Type.BOOK_REMOVED) {
+				index.remove(event.getIsbn());
+			} else {
+				index.put(event.getBook());
+			}
+		}
+		eventsApplied.addAndGet(events.size());
+	}
+
+	/**
+	 * One branch's titles with lookup indexes
+	 */
+	private static final class BranchIndex {
+		private final Map<String, BookSnapshot> byIsbn = new LinkedHashMap<>();
+		private final Map<Integer, Set<String>> isbnsByYear = new HashMap<>();
+		private final TrigramIndex titles = new TrigramIndex();
+		private final TrigramIndex authors = new TrigramIndex();
+
+		void put(BookSnapshot book) {
+			BookSnapshot previous = byIsbn.put(book.getIsbn(), book);
+			if (previous != null && previous.getPublicationYear() != book.getPublicationYear()) {
+				removeYear(previous);
+			}
+			isbnsByYear.computeIfAbsent(book.getPublicationYear(), k -> new HashSet<>()).add(book.getIsbn());
+			// Most events are status changes; only reindex text that changed
+			if (previous == null || !Objects.equals(previous.getTitle(), book.getTitle())) {
+				if (previous != null) {
+					titles.remove(previous.getIsbn(), previous.getTitle());
+				}
+				titles.add(book.getIsbn(), book.getTitle());
+			}
+			if (previous == null || !Objects.equals(previous.getAuthor(), book.getAuthor())) {
+				if (previous != null) {
+					authors.remove(previous.getIsbn(), previous.getAuthor());
+				}
+				authors.add(book.getIsbn(), book.getAuthor());
+			}
+		}
+
+		void remove(String isbn) {
+			BookSnapshot removed = byIsbn.remove(isbn);
+			if (removed != null) {
+				removeYear(removed);
+				titles.remove(isbn, removed.getTitle());
+				authors.remove(isbn, removed.getAuthor());
+			}
+		}
+
+		private void removeYear(BookSnapshot book) {
+			Set<String> isbns = isbnsByYear.get(book.getPublicationYear());
+			if (isbns != null) {
+				isbns.remove(book.getIsbn());
+				if (isbns.isEmpty()) {
+					isbnsByYear.remove(book.getPublicationYear());
+				}
+			}
+		}
+
+		List<Book> search(SearchType searchType, String query) {
+			switch (searchType) {
+			case ISBN: {
+				BookSnapshot book = byIsbn.get(query);
+				return book != null ? List.of(book) : List.of();
+			}
+			case YEAR: {
+				int year;
+				try {
+					year = Integer.parseInt(query);
+				} catch (NumberFormatException e) {
+					return List.of();
+				}
+				List<Book> results = new ArrayList<>();
+				for (String isbn : isbnsByYear.getOrDefault(year, Set.of())) {
+					results.add(byIsbn.get(isbn));
+				}
+				return results;
+			}
+			case TITLE:
+				return searchText(titles, query, Book::getTitle);
+			case AUTHOR:
+				return searchText(authors, query, Book::getAuthor);
+			default:
+				return SearchStrategyFactory.createStrategy(searchType).search(new ArrayList<>(byIsbn.values()),
+						query);
+			}
+		}
+
+		/**
+		 * Case-insensitive substring match, checking only trigram candidates
+		 * when the query is long enough
+		 */
+		private List<Book> searchText(TrigramIndex index, String query, Function<Book, String> field) {
+			String lowerQuery = query.toLowerCase();
+			Set<String> candidates = index.candidates(lowerQuery);
+			Iterable<? extends Book> books = byIsbn.values();
+			if (candidates != null) {
+				List<Book> candidateBooks = new ArrayList<>(candidates.size());
+				for (String isbn : candidates) {
+					candidateBooks.add(byIsbn.get(isbn));
+				}
+				books = candidateBooks;
+			}
+			List<Book> results = new ArrayList<>();
+			for (Book book : books) {
+				String value = field.apply(book);
+				if (value != null && value.toLowerCase().contains(lowerQuery)) {
+					results.add(book);
+				}
+			}
+			return results;
+		}
+	}
+}
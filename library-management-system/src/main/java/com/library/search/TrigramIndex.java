@@ -0,0 +1,68 @@
+package com.library.search;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Postings from every three-character substring of a lower-cased text
+ * field to the ISBNs whose field contains it. A substring query of three or
+ * more characters only has to check the ISBNs posted under its rarest
+ * trigram. Not thread-safe
+ */
+final class TrigramIndex {
+	private static final int GRAM = 3;
+
+	private final Map<String, Set<String>> isbnsByTrigram = new HashMap<>();
+
+	void add(String isbn, String text) {
+		for (String trigram : trigrams(text)) {
+			isbnsByTrigram.computeIfAbsent(trigram, k -> new HashSet<>()).add(isbn);
+		}
+	}
+
+	void remove(String isbn, String text) {
+		for (String trigram : trigrams(text)) {
+			Set<String> isbns = isbnsByTrigram.get(trigram);
+			if (isbns != null) {
+				isbns.remove(isbn);
+				if (isbns.isEmpty()) {
+					isbnsByTrigram.remove(trigram);
+				}
+			}
+		}
+	}
+
+	/**
+	 * ISBNs that may contain the lower-cased query, a superset of the
+	 * matches; null if the query is too short to narrow the search
+	 */
+	Set<String> candidates(String lowerQuery) {
+		if (lowerQuery.length() < GRAM) {
+			return null;
+		}
+		Set<String> smallest = null;
+		for (int i = 0; i + GRAM <= lowerQuery.length(); i++) {
+			Set<String> isbns = isbnsByTrigram.get(lowerQuery.substring(i, i + GRAM));
+			if (isbns == null) {
+				return Set.of();
+			}
+			if (smallest == null || isbns.size() < smallest.size()) {
+				smallest = isbns;
+			}
+		}
+		return smallest;
+	}
+
+	private static Set<String> trigrams(String text) {
+		Set<String> trigrams = new HashSet<>();
+		if (text != null) {
+			String lower = text.toLowerCase();
+			for (int i = 0; i + GRAM <= lower.length(); i++) {
+				trigrams.add(lower.substring(i, i + GRAM));
+			}
+		}
+		return trigrams;
+	}
+}
@@ -2,13 +2,16 @@ package com.library.transaction;
 
 import java.util.logging.Logger;
 
+import com.library.audit.AuditEventType;
+import com.library.audit.AuditLog;
 import com.library.model.Book;
-import com.library.model.BookStatus;
 import com.library.model.BorrowingRecord;
 import com.library.model.Patron;
 
 /**
- * Concrete command for checkout operation
+ * Concrete command for checkout operation. Covers the patron's side of the
+ * loan; the branch owns copy and title status and publishes the circulation
+ * event once both have settled
  */
 public class CheckoutCommand implements TransactionCommand {
 	private static final Logger logger = Logger.getLogger(CheckoutCommand.class.getName());
@@ -25,28 +28,26 @@ public class CheckoutCommand implements TransactionCommand {
 
 	@Override
 	public void execute() {
-		if (!book.isAvailable()) {
-			throw new IllegalStateException("Book is not available for checkout");
-		}
-
 		if (!patron.canCheckoutMoreBooks()) {
 			throw new IllegalStateException("Patron has reached checkout limit");
 		}
 
-		book.setStatus(BookStatus.CHECKED_OUT);
 		patron.addCheckout(book.getIsbn());
 
 		BorrowingRecord record = new BorrowingRecord(book.getIsbn(), transaction.getTransactionDate());
 		patron.addToBorrowingHistory(record);
 
-		logger.info("Checkout executed: Book " + book.getIsbn() + " by Patron " + patron.getPatronId());
+		AuditLog.getInstance().record(AuditEventType.CHECKOUT, book.getCurrentBranchId(), book.getIsbn(),
+				patron.getPatronId(), null);
+		logger.fine(() -> "Checkout executed: Book " + book.getIsbn() + " by Patron " + patron.getPatronId());
 	}
 
 	@Override
 	public void undo() {
-		book.setStatus(BookStatus.AVAILABLE);
 		patron.removeCheckout(book.getIsbn());
-		logger.info("Checkout undone for book: " + book.getIsbn());
+		AuditLog.getInstance().record(AuditEventType.CHECKOUT_UNDONE, book.getCurrentBranchId(), book.getIsbn(),
+				patron.getPatronId(), null);
+		logger.fine(() -> "Checkout undone for book: " + book.getIsbn());
 	}
 
 	public Transaction getTransaction() {
@@ -0,0 +1,59 @@
+package com.library.transaction;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * Publishes checkouts and returns to system-wide consumers such as indexes
+ * and recommendation models. A failing listener is logged and never breaks
+ * the circulation operation itself
+ */
+public class CirculationEvents {
+	private static final Logger logger = Logger.getLogger(CirculationEvents.class.getName());
+	private static final CirculationEvents INSTANCE = new CirculationEvents();
+
+	private final List<CirculationListener> listeners;
+
+	private CirculationEvents() {
+		this.listeners = new CopyOnWriteArrayList<>();
+	}
+
+	public static CirculationEvents getInstance() {
+		return INSTANCE;
+	}
+
+	public void addListener(CirculationListener listener) {
+		if (!listeners.contains(listener)) {
+			listeners.add(listener);
+		}
+	}
+
+	public void removeListener(CirculationListener listener) {
+		listeners.remove(listener);
+	}
+
+	public void fireCheckout(Book book, Patron patron) {
+		for (CirculationListener listener : listeners) {
+			try {
+				listener.bookCheckedOut(book, patron);
+			} catch (RuntimeException e) {
+				logger.log(Level.WARNING, "Circulation listener failed on checkout of " + book.getIsbn(), e);
+			}
+		}
+	}
+
+	public void fireReturn(Book book, Patron patron) {
+		for (CirculationListener listener : listeners) {
+			try {
+				listener.bookReturned(book, patron);
+			} catch (RuntimeException e) {
+				logger.log(Level.WARNING, "Circulation listener failed on return of " + book.getIsbn(), e);
+			}
+		}
+	}
+}
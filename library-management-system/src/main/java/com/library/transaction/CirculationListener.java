@@ -0,0 +1,16 @@
+package com.library.transaction;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * Listener for completed circulation operations
+ */
+public interface CirculationListener {
+
+	default void bookCheckedOut(Book book, Patron patron) {
+	}
+
+	default void bookReturned(Book book, Patron patron) {
+	}
+}
@@ -3,12 +3,16 @@ package com.library.transaction;
 import java.util.Date;
 import java.util.logging.Logger;
 
+import com.library.audit.AuditEventType;
+import com.library.audit.AuditLog;
 import com.library.model.Book;
 import com.library.model.BookStatus;
 import com.library.model.Patron;
 
 /**
- * Concrete command for return operation
+ * Concrete command for return operation. Covers the patron's side of the
+ * loan; the branch owns copy and title status and publishes the circulation
+ * event once both have settled
  */
 public class ReturnCommand implements TransactionCommand {
 	private static final Logger logger = Logger.getLogger(ReturnCommand.class.getName());
@@ -25,32 +29,32 @@ public class ReturnCommand implements TransactionCommand {
 
 	@Override
 	public void execute() {
-		if (book.getStatus() != BookStatus.CHECKED_OUT) {
-			throw new IllegalStateException("Book is not checked out");
-		}
-
+		// Other copies of the title may be on the shelf, so the patron's own
+		// checkout is what proves a copy is out
 		if (!patron.getCurrentCheckouts().contains(book.getIsbn())) {
-			throw new IllegalStateException("This patron did not check out this book");
+			throw new IllegalStateException(book.getStatus() != BookStatus.CHECKED_OUT ? "Book is not checked out"
+					: "This patron did not check out this book");
 		}
 
-		book.setStatus(BookStatus.AVAILABLE);
+		Date returnDate = new Date();
 		patron.removeCheckout(book.getIsbn());
-		transaction.setReturnDate(new Date());
+		transaction.setReturnDate(returnDate);
 
-		// Update borrowing history
-		patron.getBorrowingHistory().stream()
-				.filter(record -> record.getIsbn().equals(book.getIsbn()) && !record.isReturned()).findFirst()
-				.ifPresent(record -> record.setReturnDate(new Date()));
+		// Close the open borrowing record by ISBN and archive it
+		patron.closeBorrowingRecord(book.getIsbn(), returnDate);
 
-		logger.info("Return executed: Book " + book.getIsbn() + " by Patron " + patron.getPatronId());
+		AuditLog.getInstance().record(AuditEventType.RETURN, book.getCurrentBranchId(), book.getIsbn(),
+				patron.getPatronId(), null);
+		logger.fine(() -> "Return executed: Book " + book.getIsbn() + " by Patron " + patron.getPatronId());
 	}
 
 	@Override
 	public void undo() {
-		book.setStatus(BookStatus.CHECKED_OUT);
 		patron.addCheckout(book.getIsbn());
 		transaction.setReturnDate(null);
-		logger.info("Return undone for book: " + book.getIsbn());
+		AuditLog.getInstance().record(AuditEventType.RETURN_UNDONE, book.getCurrentBranchId(), book.getIsbn(),
+				patron.getPatronId(), null);
+		logger.fine(() -> "Return undone for book: " + book.getIsbn());
 	}
 
 	public Transaction getTransaction() {
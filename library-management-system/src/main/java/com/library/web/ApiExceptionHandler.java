@@ -0,0 +1,30 @@
+package com.library.web;
+
+import java.util.NoSuchElementException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps the library's exception conventions onto HTTP status codes
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+	@ExceptionHandler(NoSuchElementException.class)
+	public ProblemDetail notFound(NoSuchElementException e) {
+		return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ProblemDetail badRequest(IllegalArgumentException e) {
+		return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+	}
+
+	@ExceptionHandler(IllegalStateException.class)
+	public ProblemDetail conflict(IllegalStateException e) {
+		return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+	}
+}
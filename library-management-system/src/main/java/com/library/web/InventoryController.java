@@ -0,0 +1,148 @@
+package com.library.web;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.library.core.LibraryBranch;
+import com.library.core.LibrarySystem;
+import com.library.model.Book;
+import com.library.model.BookSnapshot;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Read endpoints polled by clients. Each response carries an ETag derived
+ * from the branch, book or consortium version; a matching If-None-Match is
+ * answered with 304 before any data is read, and changed data is serialized
+ * once per version and shared from the rendered-response cache
+ */
+@RestController
+@RequestMapping("/api")
+public class InventoryController {
+	private static final int CACHE_ENTRIES = 10_000;
+
+	private final LibrarySystem system = LibrarySystem.getInstance();
+	private final RenderedResponseCache cache = new RenderedResponseCache(CACHE_ENTRIES);
+	private final JsonMapper jsonMapper;
+
+	public InventoryController(JsonMapper jsonMapper) {
+		this.jsonMapper = jsonMapper;
+	}
+
+	@GetMapping("/branches/{branchId}/books/{isbn}")
+	public ResponseEntity<byte[]> getBook(@PathVariable String branchId, @PathVariable String isbn,
+			WebRequest request) {
+		LibraryBranch branch = system.getBranch(branchId);
+		long version = branch.getBookVersion(isbn);
+		if (version == 0) {
+			throw new NoSuchElementException("Book not found: " + isbn);
+		}
+		return respond("book:" + branchId + "/" + isbn, version, request, () -> {
+			Book book = branch.getBook(isbn);
+			if (book == null) {
+				throw new NoSuchElementException("Book not found: " + isbn);
+			}
+			return BookSnapshot.of(book);
+		});
+	}
+
+	@GetMapping("/branches/{branchId}/availability")
+	public ResponseEntity<byte[]> getAvailability(@PathVariable String branchId, WebRequest request) {
+		LibraryBranch branch = system.getBranch(branchId);
+		return respond("availability:" + branchId, branch.getVersion(), request, () -> {
+			List<Availability> availability = new ArrayList<>();
+			for (Book book : branch.getAllBooks()) {
+				availability.add(new Availability(book.getIsbn(), book.getTitle(), book.getStatus().name(),
+						branch.getAvailableCopyCount(book.getIsbn()), branch.getCopyCount(book.getIsbn()),
+						branch.getReservationWaitlistSize(book.getIsbn())));
+			}
+			return availability;
+		});
+	}
+
+	/**
+	 * Branch-by-branch availability of several titles in one call, e.g.
+	 * /api/availability?isbn=...&isbn=...
+	 */
+	@GetMapping("/availability")
+	public ResponseEntity<byte[]> getAvailability(@RequestParam("isbn") List<String> isbns, WebRequest request) {
+		if (isbns.isEmpty()) {
+			throw new IllegalArgumentException("At least one ISBN is required");
+		}
+		return respond("availability?" + String.join(",", isbns), system.getVersion(), request,
+				() -> system.getAvailability(isbns));
+	}
+
+	@GetMapping("/statistics")
+	public ResponseEntity<byte[]> getStatistics(WebRequest request) {
+		return respond("statistics", system.getVersion(), request, system::getStatistics);
+	}
+
+	private ResponseEntity<byte[]> respond(String key, long version, WebRequest request, Supplier<Object> model) {
+		String eTag = cache.eTag(version);
+		if (request.checkNotModified(eTag)) {
+			return null; // 304 already written
+		}
+		byte[] body = cache.get(key, version, () -> jsonMapper.writeValueAsBytes(model.get()));
+		return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache())
+				.contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+
+	/**
+	 * Copy-level availability of one title at a branch
+	 */
+	public static final class Availability {
+		private final String isbn;
+		private final String title;
+		private final String status;
+		private final int availableCopies;
+		private final int totalCopies;
+		private final int waitlistSize;
+
+		Availability(String isbn, String title, String status, int availableCopies, int totalCopies,
+				int waitlistSize) {
+			this.isbn = isbn;
+			this.title = title;
+			this.status = status;
+			this.availableCopies = availableCopies;
+			this.totalCopies = totalCopies;
+			this.waitlistSize = waitlistSize;
+		}
+
+		public String getIsbn() {
+			return isbn;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public String getStatus() {
+			return status;
+		}
+
+		public int getAvailableCopies() {
+			return availableCopies;
+		}
+
+		public int getTotalCopies() {
+			return totalCopies;
+		}
+
+		public int getWaitlistSize() {
+			return waitlistSize;
+		}
+	}
+}
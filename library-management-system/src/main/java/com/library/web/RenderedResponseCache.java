@@ -0,0 +1,77 @@
+package com.library.web;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized response bodies keyed by resource and tagged with the version
+ * they were rendered from, so unchanged data is never serialized twice.
+ * ETags carry a per-process epoch; tags issued before a restart never match
+ * versions counted after it
+ */
+class RenderedResponseCache {
+	private final String epoch;
+	private final Map<String, Rendered> entries; // Resource key -> latest rendering, in access order
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+
+	RenderedResponseCache(int maxEntries) {
+		this.epoch = Long.toString(System.currentTimeMillis(), 36);
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Rendered> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+
+	String eTag(long version) {
+		return "\"" + epoch + "-" + version + "\"";
+	}
+
+	/**
+	 * Body for a resource at a version, rendering it on a miss. Callers read
+	 * the version before rendering, so a rendering is never filed under a
+	 * newer version than the data it saw
+	 */
+	byte[] get(String key, long version, Supplier<byte[]> renderer) {
+		synchronized (entries) {
+			Rendered cached = entries.get(key);
+			if (cached != null && cached.version == version) {
+				hits.incrementAndGet();
+				return cached.body;
+			}
+		}
+		misses.incrementAndGet();
+		byte[] body = renderer.get();
+		synchronized (entries) {
+			Rendered cached = entries.get(key);
+			if (cached == null || cached.version < version) {
+				entries.put(key, new Rendered(version, body));
+			}
+		}
+		return body;
+	}
+
+	long getHitCount() {
+		return hits.get();
+	}
+
+	long getMissCount() {
+		return misses.get();
+	}
+
+	private static final class Rendered {
+		private final long version;
+		private final byte[] body;
+
+		Rendered(long version, byte[] body) {
+			this.version = version;
+			this.body = body;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.library.web;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.library.core.LibrarySystem;
+import com.library.core.TransactionExporter;
+
+/**
+ * Bulk export of circulation history for the data warehouse. The response
+ * is NDJSON sent with chunked transfer encoding as rows are produced; an
+ * interrupted pull is resumed by passing the last received row's cursor as
+ * after
+ */
+@RestController
+@RequestMapping("/api/transactions")
+public class TransactionExportController {
+	private final TransactionExporter exporter = new TransactionExporter(LibrarySystem.getInstance());
+
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String branch,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+			@RequestParam(required = false) String after) {
+		TransactionExporter.Export export = exporter.export(branch, from != null ? Date.from(from) : null,
+				to != null ? Date.from(to) : null, after);
+		StreamingResponseBody body = export::writeTo;
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+}
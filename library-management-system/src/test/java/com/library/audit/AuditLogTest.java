@@ -0,0 +1,78 @@
+package com.library.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.model.BookStatus;
+
+class AuditLogTest {
+
+	@Test
+	void writesEventsAsJsonLines() throws IOException {
+		Path file = Files.createTempFile("audit", ".log");
+		AuditLog audit = new AuditLog(file, 16);
+		try {
+			audit.record(AuditEventType.COPY_ADDED, "B1", "isbn-1", null, 42L);
+			audit.recordChange(AuditEventType.BOOK_STATUS_CHANGED, "B1", "isbn-1", null, BookStatus.AVAILABLE,
+					BookStatus.CHECKED_OUT);
+			audit.record(AuditEventType.CHECKOUT, "B1", "isbn-1", "p\"1", null);
+			audit.flush();
+
+			List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+			assertEquals(3, lines.size());
+			assertTrue(lines.get(0).contains("\"type\":\"COPY_ADDED\""));
+			assertTrue(lines.get(0).contains("\"detail\":\"42\""));
+			assertTrue(lines.get(1).contains("\"detail\":\"AVAILABLE->CHECKED_OUT\""));
+			assertTrue(lines.get(2).contains("\"patron\":\"p\\\"1\""));
+			assertFalse(lines.get(2).contains("detail"));
+			assertEquals(3, audit.getWrittenCount());
+		} finally {
+			audit.shutdown();
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void countsEventsDroppedWhenTheRingIsFull() throws IOException {
+		Path file = Files.createTempFile("audit", ".log");
+		AuditLog audit = new AuditLog(file, 2);
+		try {
+			// The writer drains every 20ms, so a burst overflows a two-slot ring
+			for (int i = 0; i < 1000; i++) {
+				audit.record(AuditEventType.RETURN, "B1", "isbn", "p", null);
+			}
+			audit.flush();
+			assertEquals(1000, audit.getRecordedCount() + audit.getDroppedCount());
+			assertTrue(audit.getDroppedCount() > 0);
+			assertEquals(audit.getRecordedCount(), audit.getWrittenCount());
+		} finally {
+			audit.shutdown();
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void sharedInstanceKeepsATrailByDefault() {
+		assertSame(AuditLog.getInstance(), AuditLog.getInstance());
+		assertTrue(AuditLog.getInstance().isEnabled()
+				|| "off".equalsIgnoreCase(System.getProperty("library.audit.file")));
+	}
+
+	@Test
+	void disabledLogDiscardsEvents() {
+		AuditLog audit = AuditLog.disabled();
+		audit.record(AuditEventType.CHECKOUT, "B1", "isbn", "p", 1L);
+		assertFalse(audit.isEnabled());
+		assertEquals(0, audit.getRecordedCount());
+	}
+}
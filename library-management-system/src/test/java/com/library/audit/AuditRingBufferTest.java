@@ -0,0 +1,84 @@
+package com.library.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class AuditRingBufferTest {
+
+	private static AuditEvent event(String patronId) {
+		return new AuditEvent(0, AuditEventType.CHECKOUT, "B1", "isbn", patronId, null);
+	}
+
+	@Test
+	void rejectsCapacityThatIsNotAPowerOfTwo() {
+		assertThrows(IllegalArgumentException.class, () -> new AuditRingBuffer(3));
+	}
+
+	@Test
+	void pollsInOfferOrderAndRefusesWhenFull() {
+		AuditRingBuffer ring = new AuditRingBuffer(4);
+		List<AuditEvent> offered = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			offered.add(event("p" + i));
+			assertTrue(ring.offer(offered.get(i)));
+		}
+		assertFalse(ring.offer(event("overflow")));
+
+		assertSame(offered.get(0), ring.poll());
+		assertTrue(ring.offer(event("p4")));
+		for (int i = 1; i < 4; i++) {
+			assertSame(offered.get(i), ring.poll());
+		}
+		assertEquals("p4", ring.poll().getPatronId());
+		assertNull(ring.poll());
+	}
+
+	@Test
+	void concurrentProducersLoseNothingTheRingAccepted() throws InterruptedException {
+		AuditRingBuffer ring = new AuditRingBuffer(1 << 10);
+		int producers = 4;
+		int perProducer = 50_000;
+		int[] accepted = new int[producers];
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					if (ring.offer(event(Integer.toString(producer)))) {
+						accepted[producer]++;
+					}
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+
+		int[] polled = new int[producers];
+		boolean running = true;
+		while (running) {
+			running = threads.stream().anyMatch(Thread::isAlive);
+			AuditEvent event;
+			while ((event = ring.poll()) != null) {
+				polled[Integer.parseInt(event.getPatronId())]++;
+			}
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		AuditEvent event;
+		while ((event = ring.poll()) != null) {
+			polled[Integer.parseInt(event.getPatronId())]++;
+		}
+		for (int p = 0; p < producers; p++) {
+			assertEquals(accepted[p], polled[p]);
+		}
+	}
+}
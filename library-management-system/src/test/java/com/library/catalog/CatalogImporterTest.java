@@ -0,0 +1,63 @@
+package com.library.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.core.LibraryBranch;
+import com.library.model.Book;
+
+class CatalogImporterTest {
+
+	@Test
+	void heldIsbnIsDuplicateInEitherSpelling() throws Exception {
+		LibraryBranch branch = new LibraryBranch("import-" + UUID.randomUUID(), "Import", "");
+		branch.addBook(new Book("9780306406157", "Held", "Author", 1990));
+		Path file = Files.createTempFile("catalog", ".csv");
+		try {
+			Files.writeString(file, "isbn,title,author,year,subjects\n"
+					+ "0-306-40615-2,Same Title As Ten,Author,1990,Physics\n"
+					+ "9780131103627,New Title,Author,1988,Programming;C\n"
+					+ "0131103628,New Title Again,Author,1988,\n", StandardCharsets.UTF_8);
+
+			ImportProgress progress = new CatalogImporter(2).importInto(file, CatalogImporter.Format.CSV, branch);
+
+			assertEquals(1, progress.getBooksLoaded());
+			assertEquals(2, progress.getDuplicates());
+			assertEquals("Held", branch.getBook("9780306406157").getTitle());
+			assertNull(branch.getBook("0-306-40615-2"));
+			assertNotNull(branch.getBook("9780131103627"));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void largeFileIsLoadedInFileOrderAcrossChunks() throws Exception {
+		LibraryBranch branch = new LibraryBranch("import-" + UUID.randomUUID(), "Import", "");
+		Path file = Files.createTempFile("catalog", ".csv");
+		try {
+			StringBuilder csv = new StringBuilder();
+			for (int i = 0; i < 60_000; i++) {
+				// Each ISBN appears twice, the copy in a later chunk
+				csv.append("id-").append(i % 30_000).append(",Title ").append(i).append(",Author,2000,\n");
+			}
+			Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+			ImportProgress progress = new CatalogImporter(2).importInto(file, CatalogImporter.Format.CSV, branch);
+
+			assertEquals(30_000, progress.getBooksLoaded());
+			assertEquals(30_000, progress.getDuplicates());
+			assertEquals("Title 29999", branch.getBook("id-29999").getTitle());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
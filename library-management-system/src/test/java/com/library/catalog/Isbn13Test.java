@@ -0,0 +1,50 @@
+package com.library.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+
+class Isbn13Test {
+
+	@Test
+	void parsesEverySpellingToOneKey() {
+		long key = 9780306406157L;
+		assertEquals(key, Isbn13.parse("9780306406157"));
+		assertEquals(key, Isbn13.parse("978-0-306-40615-7"));
+		assertEquals(key, Isbn13.parse("0-306-40615-2"));
+		assertEquals(key, Isbn13.parse("0306406152"));
+		assertEquals(9780804429573L, Isbn13.parse("080442957X"));
+		assertEquals("9780306406157", Isbn13.format(key));
+	}
+
+	@Test
+	void rejectsMalformedIsbns() {
+		assertEquals(-1, Isbn13.tryParse("9780306406158"));
+		assertEquals(-1, Isbn13.tryParse("0306406153"));
+		assertEquals(-1, Isbn13.tryParse("97803064061570"));
+		assertEquals(-1, Isbn13.tryParse("X306406152"));
+		assertEquals(-1, Isbn13.tryParse("978-0-306-4061a-7"));
+		assertEquals(-1, Isbn13.tryParse(""));
+		assertFalse(Isbn13.isValid(null));
+		assertThrows(IllegalArgumentException.class, () -> Isbn13.parse("isbn-1"));
+	}
+
+	@Test
+	void compactIndexFindsBooksByAnySpelling() {
+		CatalogIndex index = CatalogIndex.compact();
+		Book book = new Book("978-0-306-40615-7", "Title", "Author", 2001);
+		Book other = new Book("not-an-isbn", "Other", "Author", 2002);
+		index.register(book);
+		index.register(other);
+
+		assertSame(book, index.getBook("0306406152"));
+		assertSame(other, index.getBook("not-an-isbn"));
+		assertEquals(2, index.size());
+		assertEquals(2, index.getBooks().size());
+	}
+}
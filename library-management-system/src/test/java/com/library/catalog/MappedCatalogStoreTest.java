@@ -0,0 +1,101 @@
+package com.library.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+import com.library.search.SearchType;
+
+class MappedCatalogStoreTest {
+
+	@Test
+	void overwriteIsNeverSeenHalfWritten() throws Exception {
+		Path file = Files.createTempFile("catalog", ".store");
+		try (MappedCatalogStore store = MappedCatalogStore.create(file, 16)) {
+			String isbn = "9780000000002";
+			store.put(new Book(isbn, "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", "A", 1));
+			Book view = store.getBook(isbn);
+
+			AtomicBoolean done = new AtomicBoolean();
+			AtomicReference<String> torn = new AtomicReference<>();
+			Thread reader = new Thread(() -> {
+				while (!done.get()) {
+					String title = view.getTitle();
+					if (!title.equals("a".repeat(40)) && !title.equals("b".repeat(25))) {
+						torn.set(title);
+					}
+				}
+			});
+			reader.start();
+			for (int i = 0; i < 20_000; i++) {
+				boolean even = i % 2 == 0;
+				store.put(new Book(isbn, even ? "b".repeat(25) : "a".repeat(40), "A", i));
+			}
+			done.set(true);
+			reader.join();
+
+			assertNull(torn.get());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void catalogSearchReachesStoreRecords() throws Exception {
+		Path file = Files.createTempFile("catalog", ".store");
+		try (MappedCatalogStore store = MappedCatalogStore.create(file, 16)) {
+			String word = UUID.randomUUID().toString().substring(0, 8);
+			store.put(new Book("9780000000019", "Stored " + word, "Store Author", 1999));
+			store.put(new Book("9780000000026", "Registered " + word, "Heap Author", 2001));
+
+			CatalogIndex index = new CatalogIndex();
+			index.register(new Book("9780000000026", "Registered " + word, "Heap Author", 2001));
+			index.attachStore(store);
+
+			List<Book> results = index.search(SearchType.TITLE, word);
+			assertEquals(2, results.size());
+			assertEquals("9780000000026", results.get(0).getIsbn());
+			assertEquals("9780000000019", results.get(1).getIsbn());
+			assertEquals(1, index.search(SearchType.ISBN, "9780000000019").size());
+			assertEquals(1, index.search(SearchType.YEAR, "1999").size());
+			assertTrue(index.getBooks().stream().anyMatch(book -> book.getAuthor().equals("Store Author")));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void configuredIndexOpensTheStoreNamedByTheSystemProperty() throws Exception {
+		Path file = Files.createTempFile("catalog", ".store");
+		try {
+			try (MappedCatalogStore store = MappedCatalogStore.create(file, 16)) {
+				store.put(new Book("9780000000033", "Configured", "Store Author", 2005));
+			}
+			System.setProperty("library.catalog.store", file.toString());
+			CatalogIndex index = CatalogIndex.configured();
+
+			assertEquals("Configured", index.getBook("9780000000033").getTitle());
+		} finally {
+			System.clearProperty("library.catalog.store");
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void configuredIndexWithoutAStoreServesOnlyRegisteredBooks() {
+		System.clearProperty("library.catalog.store");
+		CatalogIndex index = CatalogIndex.configured();
+
+		assertNull(index.getBook("9780000000033"));
+	}
+}
@@ -0,0 +1,114 @@
+package com.library.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.core.CopyInventory;
+import com.library.core.LibraryBranch;
+import com.library.model.Book;
+
+class ClusterNodeTest {
+
+	private String isbn;
+	private LibraryBranch source;
+	private LibraryBranch destination;
+	private ClusterNode node;
+	private Socket socket;
+	private DataInputStream in;
+	private DataOutputStream out;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		String id = UUID.randomUUID().toString();
+		isbn = "isbn-" + id;
+		source = new LibraryBranch("S-" + id, "Source", "");
+		destination = new LibraryBranch("D-" + id, "Destination", "");
+		source.addBook(new Book(isbn, "Title", "Author", 2001));
+		source.addCopy(isbn, CopyInventory.nextBarcode());
+		node = new ClusterNode(0, List.of(source, destination));
+		node.start();
+		socket = new Socket("localhost", node.getPort());
+		in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		socket.close();
+		node.stop();
+	}
+
+	private List<String> call(String op, List<String> args) throws IOException {
+		ClusterProtocol.writeRequest(out, op, args);
+		return ClusterProtocol.readResponse(in);
+	}
+
+	private List<String> call(String op, String... args) throws IOException {
+		return call(op, Arrays.asList(args));
+	}
+
+	private List<String> receiveArgs(String transferId, List<String> dispatched) {
+		List<String> args = new ArrayList<>(Arrays.asList(destination.getBranchId(), transferId,
+				dispatched.get(ClusterProtocol.BOOK_FIELDS), dispatched.get(ClusterProtocol.BOOK_FIELDS + 1)));
+		args.addAll(dispatched.subList(0, ClusterProtocol.BOOK_FIELDS));
+		return args;
+	}
+
+	@Test
+	void repeatedDispatchAndReceiveMoveOneCopy() throws IOException {
+		String transferId = UUID.randomUUID().toString();
+		List<String> first = call(ClusterProtocol.DISPATCH, isbn, source.getBranchId(), transferId);
+		List<String> retried = call(ClusterProtocol.DISPATCH, isbn, source.getBranchId(), transferId);
+		assertEquals(first, retried);
+		assertEquals(1, source.getCopyCount(isbn));
+
+		call(ClusterProtocol.RECEIVE, receiveArgs(transferId, first));
+		call(ClusterProtocol.RECEIVE, receiveArgs(transferId, first));
+		assertEquals(List.of("true"), call(ClusterProtocol.RECEIVED, transferId));
+		call(ClusterProtocol.COMMIT, transferId);
+
+		assertEquals(1, destination.getCopyCount(isbn));
+		assertEquals(1, source.getCopyCount(isbn));
+	}
+
+	@Test
+	void abortShelvesTheCopyAgainAndFencesLateReceive() throws IOException {
+		String transferId = UUID.randomUUID().toString();
+		List<String> dispatched = call(ClusterProtocol.DISPATCH, isbn, source.getBranchId(), transferId);
+		assertEquals(1, source.getAvailableCopyCount(isbn));
+
+		call(ClusterProtocol.ABORT, transferId);
+		call(ClusterProtocol.ABORT, transferId);
+		assertEquals(2, source.getAvailableCopyCount(isbn));
+
+		assertThrows(IllegalStateException.class,
+				() -> call(ClusterProtocol.RECEIVE, receiveArgs(transferId, dispatched)));
+		assertEquals(List.of("false"), call(ClusterProtocol.RECEIVED, transferId));
+		assertEquals(0, destination.getCopyCount(isbn));
+	}
+
+	@Test
+	void abortBeforeDispatchRefusesTheDispatch() throws IOException {
+		String transferId = UUID.randomUUID().toString();
+		call(ClusterProtocol.ABORT, transferId);
+
+		assertThrows(IllegalStateException.class,
+				() -> call(ClusterProtocol.DISPATCH, isbn, source.getBranchId(), transferId));
+		assertEquals(2, source.getAvailableCopyCount(isbn));
+	}
+}
@@ -0,0 +1,152 @@
+package com.library.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.core.SystemStatistics;
+import com.library.model.Book;
+import com.library.model.Patron;
+
+/**
+ * Runs each node in its own JVM, as a deployment would
+ */
+class ClusterRouterTest {
+	private static final Pattern LISTENING = Pattern.compile("Cluster node listening on port (\\d+)");
+
+	private final List<Process> processes = new ArrayList<>();
+	private final List<Path> logs = new ArrayList<>();
+	private String isbn;
+	private int firstPort;
+	private int secondPort;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		isbn = "isbn-" + UUID.randomUUID();
+		firstPort = startNode(0, "A:Downtown");
+		secondPort = startNode(0, "B:Uptown");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		for (Process process : processes) {
+			process.destroyForcibly();
+		}
+		for (Path log : logs) {
+			Files.deleteIfExists(log);
+		}
+	}
+
+	private int startNode(int port, String... branches) throws Exception {
+		Path log = Files.createTempFile("cluster-node", ".log");
+		logs.add(log);
+		List<String> command = new ArrayList<>(List.of(
+				System.getProperty("java.home") + File.separator + "bin" + File.separator + "java", "-cp",
+				System.getProperty("java.class.path"), ClusterNode.class.getName(), Integer.toString(port)));
+		command.addAll(List.of(branches));
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile())
+				.start();
+		processes.add(process);
+
+		long deadline = System.currentTimeMillis() + 30_000;
+		while (System.currentTimeMillis() < deadline) {
+			Matcher matcher = LISTENING.matcher(Files.readString(log, StandardCharsets.UTF_8));
+			if (matcher.find()) {
+				return Integer.parseInt(matcher.group(1));
+			}
+			if (!process.isAlive()) {
+				break;
+			}
+			Thread.sleep(50);
+		}
+		throw new IllegalStateException("Cluster node did not start: " + Files.readString(log));
+	}
+
+	private ClusterRouter router() {
+		return new ClusterRouter(
+				List.of(new InetSocketAddress("localhost", firstPort), new InetSocketAddress("localhost", secondPort)),
+				1000, 2000);
+	}
+
+	@Test
+	void routesBranchCallsAndTransfersAcrossNodes() {
+		try (ClusterRouter router = router()) {
+			assertEquals(2, router.getBranchIds().size());
+			router.addBook("A", new Book(isbn, "Title", "Author", 2001));
+			router.addPatron("B", new Patron("P1", "Reader", "reader@example.org"));
+
+			router.transferBook(isbn, "A", "B");
+			assertNull(router.getBook("A", isbn));
+			assertNotNull(router.getBook("B", isbn));
+			assertEquals(0, router.getUnresolvedTransferCount());
+
+			assertNotNull(router.checkoutBook("B", isbn, "P1"));
+			assertTrue(router.findBookAcrossBranches(isbn).containsKey("B"));
+			assertThrows(IllegalStateException.class, () -> router.transferBook(isbn, "B", "A"));
+
+			SystemStatistics stats = router.getStatistics();
+			assertEquals(2, stats.getTotalBranches());
+			assertEquals(1, stats.getTotalBooks());
+			assertEquals(1, stats.getTotalPatrons());
+		}
+	}
+
+	@Test
+	void transferToALostNodeIsHeldInTransitUntilResolved() throws Exception {
+		try (ClusterRouter router = router()) {
+			router.addBook("A", new Book(isbn, "Title", "Author", 2001));
+			processes.get(1).destroyForcibly().waitFor();
+
+			assertThrows(IllegalStateException.class, () -> router.transferBook(isbn, "A", "B"));
+			assertNull(router.getBook("A", isbn));
+			assertEquals(1, router.getUnresolvedTransferCount());
+			assertEquals(1, router.resolveTransfers());
+
+			// The restarted node never received the copy, so it returns to the source
+			startNode(secondPort, "B:Uptown");
+			assertEquals(0, router.resolveTransfers());
+			assertNotNull(router.getBook("A", isbn));
+			assertNull(router.getBook("B", isbn));
+		}
+	}
+
+	@Test
+	void restartedDestinationStartsEmptyAndTakesNewTransfers() throws Exception {
+		try (ClusterRouter router = router()) {
+			router.addBook("A", new Book(isbn, "Title", "Author", 2001));
+			router.addCopy("A", isbn, 7_000_001L);
+			router.transferBook(isbn, "A", "B");
+			assertNotNull(router.getBook("B", isbn));
+		}
+
+		// Node state is in memory only: the restarted node lost the copy it received
+		processes.get(1).destroyForcibly().waitFor();
+		startNode(secondPort, "B:Uptown");
+		try (ClusterRouter router = router()) {
+			assertNull(router.getBook("B", isbn));
+
+			router.transferBook(isbn, "A", "B");
+			assertNull(router.getBook("A", isbn));
+			assertNotNull(router.getBook("B", isbn));
+			assertEquals(0, router.getUnresolvedTransferCount());
+		}
+	}
+}
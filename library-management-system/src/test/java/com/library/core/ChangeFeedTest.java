@@ -0,0 +1,91 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+
+class ChangeFeedTest {
+
+	@Test
+	void concurrentBranchesGetContiguousSequencesInBranchOrder() throws InterruptedException {
+		ChangeFeed feed = new ChangeFeed();
+		List<Thread> threads = new ArrayList<>();
+		int perBranch = 200;
+		for (int t = 0; t < 4; t++) {
+			LibraryBranch branch = new LibraryBranch("F" + t + "-" + UUID.randomUUID(), "Feed", "");
+			branch.addListener(feed);
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < perBranch; i++) {
+					branch.addBook(new Book("feed-" + i, "Title " + i, "Author", 2001));
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		List<ChangeEvent> events = feed.read(0, Integer.MAX_VALUE);
+		assertEquals(4 * perBranch, events.size());
+		Map<String, Integer> nextByBranch = new HashMap<>();
+		for (int i = 0; i < events.size(); i++) {
+			ChangeEvent event = events.get(i);
+			assertEquals(i + 1, event.getSequence());
+			int expected = nextByBranch.merge(event.getBranchId(), 1, Integer::sum) - 1;
+			assertEquals("feed-" + expected, event.getIsbn());
+		}
+		assertEquals(4 * perBranch, feed.snapshot().getEvents().size());
+	}
+
+	@Test
+	void awaitWakesOnAppend() throws InterruptedException {
+		ChangeFeed feed = new ChangeFeed();
+		LibraryBranch branch = new LibraryBranch("W-" + UUID.randomUUID(), "Feed", "");
+		branch.addListener(feed);
+		List<ChangeEvent> received = new ArrayList<>();
+		Thread consumer = new Thread(() -> {
+			try {
+				received.addAll(feed.await(0, 10, 10_000));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		consumer.start();
+		while (consumer.getState() != Thread.State.TIMED_WAITING && consumer.isAlive()) {
+			Thread.sleep(1);
+		}
+
+		long start = System.currentTimeMillis();
+		branch.addBook(new Book("await-1", "Title", "Author", 2001));
+		consumer.join();
+		assertTrue(System.currentTimeMillis() - start < 5_000);
+		assertEquals(1, received.size());
+		assertTrue(feed.await(1, 10, 10).isEmpty());
+	}
+
+	@Test
+	void readingPastTheRingIsRejected() {
+		ChangeFeed feed = new ChangeFeed(2);
+		LibraryBranch branch = new LibraryBranch("T-" + UUID.randomUUID(), "Feed", "");
+		branch.addListener(feed);
+		for (int i = 0; i < 3; i++) {
+			branch.addBook(new Book("ring-" + i, "Title", "Author", 2001));
+		}
+
+		assertThrows(IllegalStateException.class, () -> feed.read(0, 10));
+		assertEquals(2, feed.read(1, 10).size());
+		assertEquals(3, feed.snapshot().getSequence());
+	}
+}
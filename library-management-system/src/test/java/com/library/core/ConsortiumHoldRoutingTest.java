@@ -0,0 +1,102 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+import com.library.model.BookStatus;
+import com.library.model.Patron;
+
+class ConsortiumHoldRoutingTest {
+
+	private final LibrarySystem system = LibrarySystem.getInstance();
+	private String id;
+	private String isbn;
+	private LibraryBranch branchA;
+	private LibraryBranch branchB;
+
+	@BeforeEach
+	void setUp() {
+		id = UUID.randomUUID().toString();
+		isbn = "isbn-" + id;
+		branchA = new LibraryBranch("A-" + id, "A", "");
+		branchB = new LibraryBranch("B-" + id, "B", "");
+		system.addBranch(branchA);
+		system.addBranch(branchB);
+	}
+
+	private Patron patron(LibraryBranch branch, String name) {
+		Patron patron = new Patron(name + "-" + id, name, name + "-" + id + "@example.org");
+		branch.addPatron(patron);
+		return patron;
+	}
+
+	@Test
+	void severalHoldsCanWaitAtTheReturningBranch() {
+		branchA.addBook(new Book(isbn, "Title", "Author", 2001));
+		branchA.addCopy(isbn, CopyInventory.nextBarcode());
+		Patron reader1 = patron(branchA, "r1");
+		Patron reader2 = patron(branchA, "r2");
+		Patron hold1 = patron(branchA, "h1");
+		Patron hold2 = patron(branchA, "h2");
+		branchA.checkoutBook(isbn, reader1.getPatronId());
+		branchA.checkoutBook(isbn, reader2.getPatronId());
+		system.placeHold(isbn, hold1.getPatronId(), branchA.getBranchId());
+		system.placeHold(isbn, hold2.getPatronId(), branchA.getBranchId());
+
+		branchA.returnBook(isbn, reader1.getPatronId());
+		branchA.returnBook(isbn, reader2.getPatronId());
+
+		assertEquals(0, system.getHoldQueueLength(isbn));
+		assertTrue(branchA.isHeldForPickup(isbn, hold1.getPatronId()));
+		assertTrue(branchA.isHeldForPickup(isbn, hold2.getPatronId()));
+		assertEquals(BookStatus.RESERVED, branchA.getBook(isbn).getStatus());
+
+		branchA.checkoutBook(isbn, hold2.getPatronId());
+		branchA.checkoutBook(isbn, hold1.getPatronId());
+		assertEquals(0, branchA.getPickupPatronIds(isbn).size());
+	}
+
+	@Test
+	void returnedCopyIsTransferredToPickupBranch() {
+		branchA.addBook(new Book(isbn, "Title", "Author", 2001));
+		Patron reader = patron(branchA, "r1");
+		Patron holder = patron(branchB, "h1");
+		branchA.checkoutBook(isbn, reader.getPatronId());
+		system.placeHold(isbn, holder.getPatronId(), branchB.getBranchId());
+
+		branchA.returnBook(isbn, reader.getPatronId());
+
+		assertEquals(1, branchB.getCopyCount(isbn));
+		assertTrue(branchB.isHeldForPickup(isbn, holder.getPatronId()));
+		branchB.checkoutBook(isbn, holder.getPatronId());
+		assertEquals(BookStatus.CHECKED_OUT, branchB.getBook(isbn).getStatus());
+	}
+
+	@Test
+	void blockedHoldDoesNotStarveTheQueue() {
+		branchA.addBook(new Book(isbn, "Title", "Author", 2001));
+		branchA.addCopy(isbn, CopyInventory.nextBarcode());
+		Patron reader = patron(branchA, "r1");
+		Patron blocked = patron(branchB, "h1");
+		Patron next = patron(branchA, "h2");
+		branchA.checkoutBook(isbn, reader.getPatronId());
+
+		// The first hold's copy is already waiting at B; a later hold for the
+		// same patron cannot be routed until it is collected
+		system.placeHold(isbn, blocked.getPatronId(), branchB.getBranchId());
+		assertTrue(branchB.isHeldForPickup(isbn, blocked.getPatronId()));
+		system.placeHold(isbn, blocked.getPatronId(), branchB.getBranchId());
+		system.placeHold(isbn, next.getPatronId(), branchA.getBranchId());
+
+		branchA.returnBook(isbn, reader.getPatronId());
+
+		assertTrue(branchA.isHeldForPickup(isbn, next.getPatronId()));
+		assertEquals(1, system.getHoldQueueLength(isbn));
+	}
+}
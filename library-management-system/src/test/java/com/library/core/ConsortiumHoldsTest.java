@@ -0,0 +1,53 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ConsortiumHoldsTest {
+
+	@Test
+	void holdsAreClaimedInPlacementOrder() {
+		ConsortiumHolds holds = new ConsortiumHolds(4);
+		holds.placeHold("isbn", "p1", "A");
+		holds.placeHold("isbn", "p2", "A");
+		assertFalse(holds.placeHold("isbn", "p1", "B"));
+
+		assertEquals("p1", holds.claimNext("isbn", Set.of()).getPatronId());
+		assertEquals("p2", holds.claimNext("isbn", Set.of()).getPatronId());
+		assertNull(holds.claimNext("isbn", Set.of()));
+		assertFalse(holds.hasHolds("isbn"));
+	}
+
+	@Test
+	void restoredHoldKeepsItsPlace() {
+		ConsortiumHolds holds = new ConsortiumHolds(4);
+		holds.placeHold("isbn", "p1", "A");
+		holds.placeHold("isbn", "p2", "A");
+		holds.placeHold("isbn", "p3", "A");
+
+		ConsortiumHolds.Hold first = holds.claimNext("isbn", Set.of());
+		ConsortiumHolds.Hold second = holds.claimNext("isbn", Set.of());
+		holds.restore(second);
+		holds.restore(first);
+
+		assertEquals(3, holds.getQueueLength("isbn"));
+		assertEquals("p1", holds.claimNext("isbn", Set.of()).getPatronId());
+	}
+
+	@Test
+	void skippedHoldsStayQueued() {
+		ConsortiumHolds holds = new ConsortiumHolds(4);
+		holds.placeHold("isbn", "p1", "A");
+		holds.placeHold("isbn", "p2", "B");
+
+		assertEquals("p2", holds.claimNext("isbn", Set.of("p1")).getPatronId());
+		assertTrue(holds.hasHolds("isbn"));
+		assertNull(holds.claimNext("isbn", Set.of("p1")));
+	}
+}
@@ -0,0 +1,62 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+import com.library.model.BookStatus;
+
+class CopyInventoryTest {
+
+	@Test
+	void rejectsDuplicateBarcodes() {
+		CopyInventory copies = new CopyInventory();
+		long barcode = CopyInventory.nextBarcode();
+		copies.addCopy("isbn-a", barcode, "home", BookStatus.AVAILABLE);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> copies.addCopy("isbn-b", barcode, "home", BookStatus.AVAILABLE));
+		assertEquals(0, copies.getCopyCount("isbn-b"));
+		assertEquals("home", copies.getCopy(barcode).getHomeBranchId());
+	}
+
+	@Test
+	void barcodeIsFreedWhenTheCopyLeaves() {
+		CopyInventory copies = new CopyInventory();
+		long first = CopyInventory.nextBarcode();
+		long second = CopyInventory.nextBarcode();
+		copies.addCopy("isbn-a", first, "home", BookStatus.AVAILABLE);
+		copies.addCopy("isbn-a", second, "home", BookStatus.AVAILABLE);
+
+		long removed = copies.removeCopy("isbn-a", BookStatus.AVAILABLE).getBarcode();
+		long kept = removed == first ? second : first;
+		assertFalse(copies.containsBarcode(removed));
+		assertEquals(kept, copies.getCopy(kept).getBarcode());
+
+		copies.removeTitle("isbn-a");
+		assertNull(copies.getCopy(kept));
+		copies.addCopy("isbn-b", kept, "home", BookStatus.AVAILABLE);
+		assertTrue(copies.containsBarcode(kept));
+	}
+
+	@Test
+	void branchRejectsDuplicateBarcodeWithoutAddingTheTitle() {
+		String id = UUID.randomUUID().toString();
+		LibraryBranch branch = new LibraryBranch("C-" + id, "C", "");
+		long barcode = CopyInventory.nextBarcode();
+		branch.addBook(new Book("isbn-1-" + id, "Title", "Author", 2001), barcode);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> branch.addBook(new Book("isbn-2-" + id, "Other", "Author", 2001), barcode));
+		assertNull(branch.getBook("isbn-2-" + id));
+		assertThrows(IllegalArgumentException.class, () -> branch.addCopy("isbn-1-" + id, barcode));
+		assertEquals(1, branch.getCopyCount("isbn-1-" + id));
+	}
+}
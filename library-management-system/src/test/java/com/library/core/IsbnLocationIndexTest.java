@@ -0,0 +1,138 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+import com.library.model.BookStatus;
+import com.library.model.Patron;
+
+class IsbnLocationIndexTest {
+
+	private final LibrarySystem system = LibrarySystem.getInstance();
+	private String id;
+	private LibraryBranch branchA;
+	private LibraryBranch branchB;
+
+	@BeforeEach
+	void setUp() {
+		id = UUID.randomUUID().toString();
+		branchA = new LibraryBranch("A-" + id, "A", "");
+		branchB = new LibraryBranch("B-" + id, "B", "");
+		system.addBranch(branchA);
+		system.addBranch(branchB);
+	}
+
+	private String isbn(String name) {
+		return name + "-" + id;
+	}
+
+	private Set<String> holders(String isbn) {
+		return system.getLocationIndex().getBranchIds(isbn);
+	}
+
+	@Test
+	void registersAndUnregistersBranches() {
+		IsbnLocationIndex index = new IsbnLocationIndex();
+		index.register("a", "x");
+		index.register("b", "x");
+		index.register("a", "x");
+		assertEquals(Set.of("a", "b"), index.getBranchIds("x"));
+
+		index.unregister("a", "x");
+		assertEquals(Set.of("b"), index.getBranchIds("x"));
+		index.unregister("b", "x");
+		assertTrue(index.getBranchIds("x").isEmpty());
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void addAndRemoveKeepTheIndexCurrent() {
+		String single = isbn("single");
+		String bulk = isbn("bulk");
+		branchA.addBook(new Book(single, "Single", "Author", 2001));
+		branchB.addBooks(List.of(new Book(bulk, "Bulk", "Author", 2002)));
+		assertEquals(Set.of(branchA.getBranchId()), holders(single));
+		assertEquals(Set.of(branchB.getBranchId()), holders(bulk));
+
+		branchA.removeBook(single);
+		assertTrue(holders(single).isEmpty());
+	}
+
+	@Test
+	void branchesAddedWithStockAreIndexed() {
+		String isbn = isbn("stocked");
+		LibraryBranch stocked = new LibraryBranch("C-" + id, "C", "");
+		stocked.addBook(new Book(isbn, "Title", "Author", 2001));
+		system.addBranch(stocked);
+
+		assertEquals(Set.of(stocked.getBranchId()), holders(isbn));
+	}
+
+	@Test
+	void transferMovesTheTitleWithItsLastCopy() {
+		String isbn = isbn("transfer");
+		branchA.addBook(new Book(isbn, "Title", "Author", 2001));
+		branchA.addCopy(isbn, CopyInventory.nextBarcode());
+
+		system.transferBook(isbn, branchA.getBranchId(), branchB.getBranchId());
+		assertEquals(Set.of(branchA.getBranchId(), branchB.getBranchId()), holders(isbn));
+
+		system.transferBook(isbn, branchA.getBranchId(), branchB.getBranchId());
+		assertEquals(Set.of(branchB.getBranchId()), holders(isbn));
+		assertEquals(2, branchB.getCopyCount(isbn));
+	}
+
+	@Test
+	void availabilityFollowsRequestOrderAndSkipsDuplicates() {
+		String first = isbn("first");
+		String second = isbn("second");
+		String missing = isbn("missing");
+		branchA.addBook(new Book(first, "First", "Author", 2001));
+		branchB.addBook(new Book(second, "Second", "Author", 2002));
+
+		Map<String, List<BranchAvailability>> availability = system
+				.getAvailability(Arrays.asList(second, missing, first, second));
+
+		assertEquals(Arrays.asList(second, missing, first), new ArrayList<>(availability.keySet()));
+		assertTrue(availability.get(missing).isEmpty());
+		assertEquals(1, availability.get(second).size());
+		assertEquals(branchB.getBranchId(), availability.get(second).get(0).getBranchId());
+	}
+
+	@Test
+	void availabilityReportsEachHoldingBranch() {
+		String isbn = isbn("shared");
+		branchA.addBook(new Book(isbn, "Title", "Author", 2001));
+		branchA.addCopy(isbn, CopyInventory.nextBarcode());
+		branchB.addBook(new Book(isbn, "Title", "Author", 2001));
+		Patron patron = new Patron("p-" + id, "Patron", "p-" + id + "@example.org");
+		branchB.addPatron(patron);
+		branchB.checkoutBook(isbn, patron.getPatronId());
+
+		List<BranchAvailability> holdings = system.getAvailability(List.of(isbn)).get(isbn);
+		assertEquals(2, holdings.size());
+		for (BranchAvailability holding : holdings) {
+			if (holding.getBranchId().equals(branchA.getBranchId())) {
+				assertEquals(2, holding.getAvailableCopies());
+				assertEquals(2, holding.getTotalCopies());
+				assertTrue(holding.isAvailable());
+			} else {
+				assertEquals(branchB.getBranchId(), holding.getBranchId());
+				assertEquals(0, holding.getAvailableCopies());
+				assertEquals(1, holding.getTotalCopies());
+				assertEquals(BookStatus.CHECKED_OUT, holding.getStatus());
+			}
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+import com.library.model.BookStatus;
+import com.library.model.Patron;
+import com.library.recommendation.BookPool;
+import com.library.transaction.CirculationEvents;
+import com.library.transaction.CirculationListener;
+
+class LibraryBranchCirculationTest {
+
+	private String isbn;
+	private LibraryBranch branchA;
+	private LibraryBranch branchB;
+	private Patron borrower;
+	private Patron other;
+
+	@BeforeEach
+	void setUp() {
+		String id = UUID.randomUUID().toString();
+		isbn = "isbn-" + id;
+		branchA = new LibraryBranch("A-" + id, "A", "");
+		branchB = new LibraryBranch("B-" + id, "B", "");
+		branchA.addBook(new Book(isbn, "Title", "Author", 2001));
+		branchB.addBook(new Book(isbn, "Title", "Author", 2001));
+		borrower = new Patron("p1-" + id, "Borrower", "p1-" + id + "@example.org");
+		other = new Patron("p3-" + id, "Other", "p3-" + id + "@example.org");
+		branchA.addPatron(borrower);
+		branchB.addPatron(borrower);
+		branchB.addPatron(other);
+	}
+
+	@Test
+	void returnAtOtherBranchIsRejectedWithoutSideEffects() {
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		branchB.checkoutBook(isbn, other.getPatronId());
+		int transactionsB = branchB.getTransactions().size();
+
+		assertThrows(IllegalStateException.class, () -> branchB.returnBook(isbn, borrower.getPatronId()));
+
+		assertTrue(borrower.getCurrentCheckouts().contains(isbn));
+		assertEquals(BookStatus.CHECKED_OUT, branchA.getBook(isbn).getStatus());
+		assertEquals(BookStatus.CHECKED_OUT, branchB.getBook(isbn).getStatus());
+		assertEquals(0, branchB.getAvailableCopyCount(isbn));
+		assertEquals(transactionsB, branchB.getTransactions().size());
+
+		// The loan at A is still intact and can be returned there
+		branchA.returnBook(isbn, borrower.getPatronId());
+		assertFalse(borrower.getCurrentCheckouts().contains(isbn));
+		assertEquals(1, branchA.getAvailableCopyCount(isbn));
+	}
+
+	@Test
+	void checkoutWithoutAvailableCopyLeavesPatronUntouched() {
+		branchB.checkoutBook(isbn, borrower.getPatronId());
+		int history = other.getBorrowingHistorySize();
+
+		assertThrows(IllegalStateException.class, () -> branchB.checkoutBook(isbn, other.getPatronId()));
+
+		assertTrue(other.getCurrentCheckouts().isEmpty());
+		assertEquals(history, other.getBorrowingHistorySize());
+	}
+
+	@Test
+	void copiesAreLentIndividually() {
+		branchA.addCopy(isbn, CopyInventory.nextBarcode());
+		Patron second = new Patron("p2-" + isbn, "Second", "p2-" + isbn + "@example.org");
+		branchA.addPatron(second);
+
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		assertEquals(BookStatus.AVAILABLE, branchA.getBook(isbn).getStatus());
+		branchA.checkoutBook(isbn, second.getPatronId());
+		assertEquals(BookStatus.CHECKED_OUT, branchA.getBook(isbn).getStatus());
+		assertEquals(0, branchA.getAvailableCopyCount(isbn));
+
+		branchA.returnBook(isbn, second.getPatronId());
+		assertEquals(1, branchA.getAvailableCopyCount(isbn));
+		assertEquals(BookStatus.AVAILABLE, branchA.getBook(isbn).getStatus());
+	}
+
+	@Test
+	void eachReturnedCopyIsSetAsideForTheNextUnservedWaiter() {
+		branchA.addCopy(isbn, CopyInventory.nextBarcode());
+		Patron second = new Patron("p2-" + isbn, "Second", "p2-" + isbn + "@example.org");
+		Patron third = new Patron("p4-" + isbn, "Third", "p4-" + isbn + "@example.org");
+		Patron walkIn = new Patron("p5-" + isbn, "Walk-in", "p5-" + isbn + "@example.org");
+		branchA.addPatron(second);
+		branchA.addPatron(other);
+		branchA.addPatron(third);
+		branchA.addPatron(walkIn);
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		branchA.checkoutBook(isbn, second.getPatronId());
+		branchA.reserveBook(isbn, other.getPatronId());
+		branchA.reserveBook(isbn, third.getPatronId());
+
+		branchA.returnBook(isbn, borrower.getPatronId());
+		branchA.returnBook(isbn, second.getPatronId());
+		assertEquals(0, branchA.getAvailableCopyCount(isbn));
+		assertEquals(BookStatus.RESERVED, branchA.getBook(isbn).getStatus());
+		assertThrows(IllegalStateException.class, () -> branchA.checkoutBook(isbn, walkIn.getPatronId()));
+
+		// Either waiter may pick up first; each takes one of the two copies
+		branchA.checkoutBook(isbn, third.getPatronId());
+		assertEquals(1, branchA.getReservationWaitlistSize(isbn));
+		assertEquals(BookStatus.RESERVED, branchA.getBook(isbn).getStatus());
+		branchA.checkoutBook(isbn, other.getPatronId());
+		assertEquals(0, branchA.getReservationWaitlistSize(isbn));
+		assertEquals(BookStatus.CHECKED_OUT, branchA.getBook(isbn).getStatus());
+	}
+
+	@Test
+	void returnWithEveryWaiterServedStaysOnTheShelf() {
+		branchA.addCopy(isbn, CopyInventory.nextBarcode());
+		Patron second = new Patron("p2-" + isbn, "Second", "p2-" + isbn + "@example.org");
+		branchA.addPatron(second);
+		branchA.addPatron(other);
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		branchA.checkoutBook(isbn, second.getPatronId());
+		branchA.reserveBook(isbn, other.getPatronId());
+
+		branchA.returnBook(isbn, borrower.getPatronId());
+		branchA.returnBook(isbn, second.getPatronId());
+
+		assertEquals(1, branchA.getAvailableCopyCount(isbn));
+		assertEquals(BookStatus.AVAILABLE, branchA.getBook(isbn).getStatus());
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		branchA.checkoutBook(isbn, other.getPatronId());
+		assertEquals(0, branchA.getReservationWaitlistSize(isbn));
+	}
+
+	@Test
+	void circulationEventsSeeTheSettledTitleStatus() {
+		branchA.addCopy(isbn, CopyInventory.nextBarcode());
+		List<BookStatus> seen = new ArrayList<>();
+		CirculationListener listener = new CirculationListener() {
+			@Override
+			public void bookCheckedOut(Book book, Patron patron) {
+				if (book.getIsbn().equals(isbn)) {
+					seen.add(book.getStatus());
+				}
+			}
+
+			@Override
+			public void bookReturned(Book book, Patron patron) {
+				if (book.getIsbn().equals(isbn)) {
+					seen.add(book.getStatus());
+				}
+			}
+		};
+		Patron waiter = new Patron("p2-" + isbn, "Waiter", "p2-" + isbn + "@example.org");
+		branchA.addPatron(other);
+		branchA.addPatron(waiter);
+		CirculationEvents.getInstance().addListener(listener);
+		try {
+			branchA.checkoutBook(isbn, borrower.getPatronId());
+			branchA.checkoutBook(isbn, other.getPatronId());
+			branchA.reserveBook(isbn, waiter.getPatronId());
+			branchA.returnBook(isbn, borrower.getPatronId());
+		} finally {
+			CirculationEvents.getInstance().removeListener(listener);
+		}
+		assertEquals(List.of(BookStatus.AVAILABLE, BookStatus.CHECKED_OUT, BookStatus.RESERVED), seen);
+	}
+
+	@Test
+	void cancellingAServedReservationPassesTheCopyOn() {
+		Patron waiter = new Patron("p2-" + isbn, "Waiter", "p2-" + isbn + "@example.org");
+		branchA.addPatron(other);
+		branchA.addPatron(waiter);
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		branchA.reserveBook(isbn, other.getPatronId());
+		branchA.reserveBook(isbn, waiter.getPatronId());
+		branchA.returnBook(isbn, borrower.getPatronId());
+		assertThrows(IllegalStateException.class, () -> branchA.checkoutBook(isbn, waiter.getPatronId()));
+
+		branchA.cancelReservation(isbn, other.getPatronId());
+		assertEquals(BookStatus.RESERVED, branchA.getBook(isbn).getStatus());
+		branchA.checkoutBook(isbn, waiter.getPatronId());
+		assertEquals(BookStatus.CHECKED_OUT, branchA.getBook(isbn).getStatus());
+	}
+
+	@Test
+	void cancellingTheLastServedReservationReturnsTheCopyToTheShelf() {
+		branchA.addPatron(other);
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		branchA.reserveBook(isbn, other.getPatronId());
+		branchA.returnBook(isbn, borrower.getPatronId());
+		assertEquals(BookStatus.RESERVED, branchA.getBook(isbn).getStatus());
+
+		branchA.cancelReservation(isbn, other.getPatronId());
+
+		assertEquals(BookStatus.AVAILABLE, branchA.getBook(isbn).getStatus());
+		assertEquals(1, branchA.getAvailableCopyCount(isbn));
+		assertEquals(0, branchA.getReservationWaitlistSize(isbn));
+	}
+
+	@Test
+	void cancellingAnUnservedReservationLeavesTheHeldCopy() {
+		Patron waiter = new Patron("p2-" + isbn, "Waiter", "p2-" + isbn + "@example.org");
+		branchA.addPatron(other);
+		branchA.addPatron(waiter);
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		branchA.reserveBook(isbn, other.getPatronId());
+		branchA.reserveBook(isbn, waiter.getPatronId());
+		branchA.returnBook(isbn, borrower.getPatronId());
+
+		branchA.cancelReservation(isbn, waiter.getPatronId());
+
+		assertEquals(BookStatus.RESERVED, branchA.getBook(isbn).getStatus());
+		branchA.checkoutBook(isbn, other.getPatronId());
+		assertEquals(BookStatus.CHECKED_OUT, branchA.getBook(isbn).getStatus());
+	}
+
+	@Test
+	void availableBookPoolIsSharedUntilTheBranchChanges() {
+		BookPool pool = branchA.getAvailableBookPool();
+		assertSame(pool, branchA.getAvailableBookPool());
+		assertEquals(branchA.getBranchId(), pool.getKey());
+		assertEquals(1, pool.size());
+
+		branchA.checkoutBook(isbn, borrower.getPatronId());
+		BookPool after = branchA.getAvailableBookPool();
+		assertNotSame(pool, after);
+		assertEquals(branchA.getVersion(), after.getVersion());
+		assertEquals(0, after.size());
+	}
+}
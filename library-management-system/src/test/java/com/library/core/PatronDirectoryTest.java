@@ -0,0 +1,75 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Patron;
+
+class PatronDirectoryTest {
+
+	private String id;
+	private PatronDirectory directory;
+	private LibraryBranch branchA;
+	private LibraryBranch branchB;
+
+	@BeforeEach
+	void setUp() {
+		id = UUID.randomUUID().toString();
+		directory = new PatronDirectory();
+		branchA = new LibraryBranch("A-" + id, "A", "");
+		branchB = new LibraryBranch("B-" + id, "B", "");
+		branchA.addListener(directory);
+		branchB.addListener(directory);
+	}
+
+	@Test
+	void settersReindexContactDetails() {
+		Patron patron = new Patron("p-" + id, "Reader", "old-" + id + "@example.org");
+		branchA.addPatron(patron);
+
+		patron.setEmail("new-" + id + "@example.org");
+		patron.setPhoneNumber("555-" + id.substring(0, 4));
+
+		assertNull(directory.findByEmail("old-" + id + "@example.org"));
+		assertSame(patron, directory.findByEmail("NEW-" + id + "@example.org"));
+		assertSame(patron, directory.findByPhone("555-" + id.substring(0, 4)));
+	}
+
+	@Test
+	void anotherPatronUnderSameIdIsRejected() {
+		Patron patron = new Patron("p-" + id, "Reader", null);
+		branchA.addPatron(patron);
+		branchB.addPatron(patron);
+		Patron impostor = new Patron("p-" + id, "Someone Else", null);
+
+		assertThrows(IllegalArgumentException.class, () -> directory.register("C-" + id, impostor));
+		LibraryBranch branchC = new LibraryBranch("C-" + id, "C", "");
+		branchC.addListener(directory);
+		assertThrows(IllegalArgumentException.class, () -> branchC.addPatron(impostor));
+		assertNull(branchC.getPatron(impostor.getPatronId()));
+		// Held at two branches, so neither may swap in a different object
+		assertThrows(IllegalArgumentException.class, () -> branchA.updatePatron(impostor));
+		assertSame(patron, branchA.getPatron(patron.getPatronId()));
+		assertSame(patron, directory.findById(patron.getPatronId()));
+	}
+
+	@Test
+	void soleBranchMayReplaceItsPatron() {
+		Patron patron = new Patron("p-" + id, "Reader", "a-" + id + "@example.org");
+		branchA.addPatron(patron);
+		Patron replacement = new Patron("p-" + id, "Reader", "b-" + id + "@example.org");
+
+		branchA.updatePatron(replacement);
+		patron.setEmail("stale-" + id + "@example.org");
+
+		assertSame(replacement, directory.findById(patron.getPatronId()));
+		assertSame(replacement, directory.findByEmail("b-" + id + "@example.org"));
+		assertNull(directory.findByEmail("stale-" + id + "@example.org"));
+	}
+}
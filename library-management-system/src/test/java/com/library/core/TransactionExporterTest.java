@@ -0,0 +1,87 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+
+class TransactionExporterTest {
+
+	private final TransactionExporter exporter = new TransactionExporter(LibrarySystem.getInstance());
+	private String isbn;
+	private LibraryBranch branch;
+	private Patron patron;
+
+	@BeforeEach
+	void setUp() {
+		String id = UUID.randomUUID().toString();
+		isbn = "isbn-" + id;
+		branch = new LibraryBranch("E-" + id, "Export", "");
+		LibrarySystem.getInstance().addBranch(branch);
+		branch.addBook(new Book(isbn, "Title", "Author", 2001));
+		patron = new Patron("p-" + id, "Reader", "p-" + id + "@example.org");
+		branch.addPatron(patron);
+	}
+
+	private void circulate(int loans) {
+		for (int i = 0; i < loans; i++) {
+			branch.checkoutBook(isbn, patron.getPatronId());
+			branch.returnBook(isbn, patron.getPatronId());
+		}
+	}
+
+	private String[] write(TransactionExporter.Export export) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		export.writeTo(out);
+		String text = out.toString(StandardCharsets.UTF_8);
+		return text.isEmpty() ? new String[0] : text.split("\n");
+	}
+
+	@Test
+	void resumesAfterACursor() throws IOException {
+		circulate(3);
+		TransactionExporter.Export first = exporter.export(branch.getBranchId(), null, null, null);
+		String[] rows = write(first);
+		assertEquals(6, rows.length);
+		assertEquals(branch.getBranchId() + ":6", first.getLastCursor());
+		assertTrue(rows[1].contains("\"cursor\":\"" + branch.getBranchId() + ":2\""));
+
+		String[] rest = write(exporter.export(branch.getBranchId(), null, null, branch.getBranchId() + ":2"));
+		assertEquals(4, rest.length);
+		assertEquals(rows[2], rest[0]);
+		assertEquals(rows[5], rest[3]);
+	}
+
+	@Test
+	void resumingAtTheEndIncludesLaterTransactions() throws IOException {
+		circulate(1);
+		TransactionExporter.Export done = exporter.export(branch.getBranchId(), null, null, null);
+		write(done);
+		TransactionExporter.Export resumed = exporter.export(branch.getBranchId(), null, null, done.getLastCursor());
+		circulate(1);
+
+		assertEquals(2, write(resumed).length);
+	}
+
+	@Test
+	void rejectsUnknownCursors() {
+		circulate(1);
+		String branchId = branch.getBranchId();
+		assertThrows(IllegalArgumentException.class, () -> exporter.export(branchId, null, null, branchId + ":3"));
+		assertThrows(IllegalArgumentException.class, () -> exporter.export(branchId, null, null, branchId + ":0"));
+		assertThrows(IllegalArgumentException.class, () -> exporter.export(branchId, null, null, "nope:1"));
+		assertThrows(IllegalArgumentException.class, () -> exporter.export(branchId, null, null, branchId));
+		assertNull(exporter.export(branchId, null, null, null).getLastCursor());
+	}
+}
@@ -0,0 +1,69 @@
+package com.library.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.transaction.Transaction;
+import com.library.transaction.TransactionType;
+
+class TransactionLogTest {
+
+	@Test
+	void appendsAcrossChunksKeepPositions() {
+		TransactionLog log = new TransactionLog();
+		Transaction[] appended = new Transaction[5000];
+		for (int i = 0; i < appended.length; i++) {
+			appended[i] = new Transaction("isbn", "p" + i, TransactionType.CHECKOUT);
+			assertEquals(i, log.append(appended[i]));
+		}
+		assertEquals(appended.length, log.size());
+		for (int i = 0; i < appended.length; i++) {
+			assertSame(appended[i], log.get(i));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> log.get(appended.length));
+	}
+
+	@Test
+	void snapshotIgnoresLaterAppends() {
+		TransactionLog log = new TransactionLog();
+		log.append(new Transaction("isbn", "p1", TransactionType.CHECKOUT));
+		List<Transaction> snapshot = log.snapshot();
+		log.append(new Transaction("isbn", "p1", TransactionType.RETURN));
+
+		assertEquals(1, snapshot.size());
+		assertEquals(2, log.size());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.add(null));
+	}
+
+	@Test
+	void readersSeeEveryPublishedEntryWhileAppending() throws InterruptedException {
+		TransactionLog log = new TransactionLog();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < 200_000; i++) {
+				log.append(new Transaction("isbn", "p", TransactionType.CHECKOUT));
+			}
+		});
+		writer.start();
+		while (writer.isAlive() && failure.get() == null) {
+			int size = log.size();
+			try {
+				for (int i = Math.max(0, size - 64); i < size; i++) {
+					assertNotNull(log.get(i));
+				}
+			} catch (Throwable t) {
+				failure.set(t);
+			}
+		}
+		writer.join();
+		assertEquals(null, failure.get());
+		assertEquals(200_000, log.size());
+	}
+}
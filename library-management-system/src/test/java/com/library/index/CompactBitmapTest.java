@@ -0,0 +1,66 @@
+package com.library.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CompactBitmapTest {
+
+	@Test
+	void matchesBitSetAcrossSparseAndDenseContainers() {
+		Random random = new Random(7);
+		CompactBitmap bitmap = new CompactBitmap();
+		BitSet expected = new BitSet();
+		for (int i = 0; i < 20_000; i++) {
+			// Dense in the first container, sparse across the others
+			int value = i % 2 == 0 ? random.nextInt(1 << 16) : random.nextInt(1 << 22);
+			assertEquals(!expected.get(value), bitmap.add(value));
+			expected.set(value);
+		}
+		for (int i = 0; i < 5_000; i++) {
+			int value = random.nextInt(1 << 16);
+			assertEquals(expected.get(value), bitmap.remove(value));
+			expected.clear(value);
+		}
+
+		assertEquals(expected.cardinality(), bitmap.cardinality());
+		assertArrayEquals(expected.stream().toArray(), bitmap.toArray());
+		assertFalse(bitmap.contains(-1));
+	}
+
+	@Test
+	void setOperations() {
+		CompactBitmap a = CompactBitmap.of(1, 2, 70_000, 140_000);
+		CompactBitmap b = CompactBitmap.of(2, 3, 140_000);
+
+		assertArrayEquals(new int[] { 2, 140_000 }, a.and(b).toArray());
+		assertArrayEquals(new int[] { 1, 2, 3, 70_000, 140_000 }, a.or(b).toArray());
+		assertEquals(2, a.andCardinality(b));
+	}
+
+	@Test
+	void frozenBitmapIsImmutableAndWithSharesIt() {
+		CompactBitmap frozen = CompactBitmap.of(1, 5, 70_000).freeze();
+
+		assertThrows(UnsupportedOperationException.class, () -> frozen.add(2));
+		assertThrows(UnsupportedOperationException.class, () -> frozen.remove(1));
+		assertSame(frozen, frozen.with(5));
+
+		CompactBitmap next = frozen.with(2);
+		assertTrue(next.isFrozen());
+		assertArrayEquals(new int[] { 1, 2, 5, 70_000 }, next.toArray());
+		assertArrayEquals(new int[] { 1, 5, 70_000 }, frozen.toArray());
+
+		CompactBitmap writable = next.copy();
+		writable.add(3);
+		assertFalse(next.contains(3));
+	}
+}
@@ -0,0 +1,66 @@
+package com.library.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StringPoolTest {
+
+	@Test
+	void equalStringsShareOneInstance() {
+		StringPool pool = new StringPool();
+		String first = pool.intern(new String("Ursula K. Le Guin"));
+
+		assertSame(first, pool.intern(new String("Ursula K. Le Guin")));
+		assertEquals(1, pool.size());
+	}
+
+	@Test
+	void unreferencedStringsAreReleased() throws InterruptedException {
+		StringPool pool = new StringPool();
+		for (int i = 0; i < 1000; i++) {
+			pool.intern("author-" + i);
+		}
+		String kept = pool.intern(new String("kept"));
+
+		for (int attempt = 0; attempt < 50 && pool.size() > 1; attempt++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertEquals(1, pool.size());
+		assertSame(kept, pool.intern(new String("kept")));
+	}
+
+	@Test
+	void concurrentInternsAgreeOnOneInstance() throws InterruptedException {
+		StringPool pool = new StringPool();
+		String[][] seen = new String[4][200];
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < seen.length; t++) {
+			String[] results = seen[t];
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < results.length; i++) {
+					results[i] = pool.intern(new String("subject-" + i));
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		for (int i = 0; i < seen[0].length; i++) {
+			for (String[] results : seen) {
+				assertSame(seen[0][i], results[i]);
+			}
+		}
+		assertEquals(seen[0].length, pool.size());
+	}
+}
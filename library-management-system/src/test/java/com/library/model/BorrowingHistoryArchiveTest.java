@@ -0,0 +1,80 @@
+package com.library.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class BorrowingHistoryArchiveTest {
+
+	private final String id = UUID.randomUUID().toString();
+
+	private static BorrowingRecord returned(String isbn, long checkout) {
+		BorrowingRecord record = new BorrowingRecord(isbn, new Date(checkout));
+		record.setReturnDate(new Date(checkout + 1000));
+		return record;
+	}
+
+	@Test
+	void archivesAcrossTheChunkBoundary() {
+		BorrowingHistoryArchive archive = new BorrowingHistoryArchive();
+		for (int i = 0; i < 130; i++) {
+			archive.add(returned(id + "-" + i, i * 10_000L));
+			assertEquals(i + 1, archive.size());
+		}
+
+		List<BorrowingRecord> records = archive.load();
+		assertEquals(130, records.size());
+		for (int i = 0; i < 130; i++) {
+			BorrowingRecord record = records.get(i);
+			assertEquals(id + "-" + i, record.getIsbn());
+			assertEquals(i * 10_000L, record.getCheckoutDate().getTime());
+			assertEquals(i * 10_000L + 1000, record.getReturnDate().getTime());
+		}
+	}
+
+	@Test
+	void exactlyOneChunkLoadsWithNothingPending() {
+		BorrowingHistoryArchive archive = new BorrowingHistoryArchive();
+		for (int i = 0; i < 64; i++) {
+			archive.add(returned(id + "-" + i, i));
+		}
+
+		List<BorrowingRecord> records = archive.load();
+		assertEquals(64, records.size());
+		assertEquals(id + "-63", records.get(63).getIsbn());
+	}
+
+	@Test
+	void rejectsOpenRecords() {
+		BorrowingHistoryArchive archive = new BorrowingHistoryArchive();
+		assertThrows(IllegalArgumentException.class, () -> archive.add(new BorrowingRecord(id, new Date())));
+	}
+
+	@Test
+	void historyStaysInCheckoutOrderAfterInflate() {
+		Patron patron = new Patron("p-" + id, "Reader", null);
+		// Open a record early and close the rest first, so archive order differs from checkout order
+		patron.addToBorrowingHistory(new BorrowingRecord(id + "-open", new Date(5)));
+		for (int i = 99; i >= 0; i--) {
+			BorrowingRecord record = new BorrowingRecord(id + "-" + i, new Date(10 + i));
+			patron.addToBorrowingHistory(record);
+			patron.closeBorrowingRecord(record.getIsbn(), new Date(1000 + i));
+		}
+
+		List<BorrowingRecord> history = patron.getBorrowingHistory();
+		assertEquals(101, history.size());
+		assertEquals(101, patron.getBorrowingHistorySize());
+		assertEquals(id + "-open", history.get(0).getIsbn());
+		assertNotNull(patron.getOpenRecord(id + "-open"));
+		for (int i = 0; i < 100; i++) {
+			assertEquals(id + "-" + i, history.get(i + 1).getIsbn());
+			assertEquals(1000 + i, history.get(i + 1).getReturnDate().getTime());
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.library.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.index.CompactBitmap;
+
+class PatronTest {
+
+	private final String id = UUID.randomUUID().toString();
+
+	@Test
+	void borrowedIsbnsSnapshotNeverChanges() {
+		Patron patron = new Patron("p-" + id, "Reader", null);
+		patron.addToBorrowingHistory(new BorrowingRecord(id + "-1", new Date()));
+		CompactBitmap before = patron.getBorrowedIsbns();
+
+		assertSame(before, patron.getBorrowedIsbns());
+		patron.addToBorrowingHistory(new BorrowingRecord(id + "-2", new Date()));
+
+		assertTrue(before.isFrozen());
+		assertEquals(1, before.cardinality());
+		assertEquals(2, patron.getBorrowedIsbns().cardinality());
+		assertTrue(patron.hasBorrowed(id + "-2"));
+		assertFalse(patron.hasBorrowed(id + "-3"));
+	}
+
+	@Test
+	void readersSeeConsistentSnapshotsWhileBorrowing() throws InterruptedException {
+		Patron patron = new Patron("p-" + id, "Reader", null);
+		int[] maxSeen = new int[1];
+		Thread reader = new Thread(() -> {
+			while (maxSeen[0] < 5000) {
+				CompactBitmap snapshot = patron.getBorrowedIsbns();
+				int cardinality = snapshot.cardinality();
+				if (snapshot.toArray().length != cardinality) {
+					throw new AssertionError("Snapshot changed while read");
+				}
+				maxSeen[0] = Math.max(maxSeen[0], cardinality);
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 5000; i++) {
+			patron.addToBorrowingHistory(new BorrowingRecord(id + "-" + i, new Date()));
+		}
+		reader.join(10_000);
+
+		assertFalse(reader.isAlive());
+		assertEquals(5000, maxSeen[0]);
+		assertEquals(5000, patron.getBorrowedIsbns().cardinality());
+		assertEquals(32, patron.getRecentIsbnOrdinals().length);
+	}
+}
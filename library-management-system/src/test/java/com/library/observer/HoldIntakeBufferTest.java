@@ -0,0 +1,36 @@
+package com.library.observer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class HoldIntakeBufferTest {
+
+	private static final BookObserver IGNORE = book -> {
+	};
+
+	@Test
+	void drainedBatchIsInArrivalOrderAcrossThreads() throws InterruptedException {
+		HoldIntakeBuffer buffer = new HoldIntakeBuffer();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			String patronId = "p" + i;
+			Thread thread = new Thread(() -> buffer.offer(patronId, IGNORE));
+			thread.start();
+			thread.join();
+			expected.add(patronId);
+		}
+
+		List<String> drained = new ArrayList<>();
+		for (HoldIntakeBuffer.Request request : buffer.drain()) {
+			drained.add(request.getPatronId());
+		}
+		assertEquals(expected, drained);
+		assertTrue(buffer.isEmpty());
+		assertTrue(buffer.drain().isEmpty());
+	}
+}
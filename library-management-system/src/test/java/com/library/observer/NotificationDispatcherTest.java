@@ -0,0 +1,124 @@
+package com.library.observer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Patron;
+
+class NotificationDispatcherTest {
+
+	private final Patron first = new Patron("notify-p1", "First", "notify-p1@example.org");
+	private final Patron second = new Patron("notify-p2", "Second", "notify-p2@example.org");
+
+	/**
+	 * Records deliveries; the first send to the gated patron waits for the
+	 * gate, holding up the worker
+	 */
+	private static final class GatedSender implements NotificationSender {
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch gate = new CountDownLatch(1);
+		private final List<List<String>> sent = new ArrayList<>();
+		private final Patron gated;
+
+		GatedSender(Patron gated) {
+			this.gated = gated;
+		}
+
+		@Override
+		public void send(Patron patron, List<String> messages) {
+			if (patron == gated && entered.getCount() > 0) {
+				entered.countDown();
+				try {
+					gate.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			synchronized (sent) {
+				sent.add(List.copyOf(messages));
+			}
+		}
+	}
+
+	@Test
+	void retriesWithBackoffAndFlushWaitsForThem() {
+		List<Long> attempts = new ArrayList<>();
+		NotificationDispatcher dispatcher = new NotificationDispatcher((patron, messages) -> {
+			attempts.add(System.nanoTime());
+			if (attempts.size() < 3) {
+				throw new IllegalStateException("mail server down");
+			}
+		}, 16, 16, 5, Duration.ofMillis(20));
+
+		assertTrue(dispatcher.submit(first, "ready"));
+		dispatcher.flush();
+
+		assertEquals(3, attempts.size());
+		assertEquals(1, dispatcher.getDeliveredCount());
+		assertEquals(2, dispatcher.getRetryCount());
+		assertTrue(attempts.get(1) - attempts.get(0) >= Duration.ofMillis(20).toNanos());
+		assertTrue(attempts.get(2) - attempts.get(1) >= Duration.ofMillis(40).toNanos());
+		dispatcher.shutdown();
+	}
+
+	@Test
+	void givesUpAfterMaxAttempts() {
+		NotificationDispatcher dispatcher = new NotificationDispatcher((patron, messages) -> {
+			throw new IllegalStateException("mail server down");
+		}, 16, 16, 3, Duration.ofMillis(5));
+
+		dispatcher.submit(first, "ready");
+		dispatcher.flush();
+
+		assertEquals(0, dispatcher.getDeliveredCount());
+		assertEquals(2, dispatcher.getRetryCount());
+		assertEquals(1, dispatcher.getFailedCount());
+		dispatcher.shutdown();
+	}
+
+	@Test
+	void coalescesMessagesPerPatronWithinABatch() throws InterruptedException {
+		GatedSender sender = new GatedSender(first);
+		NotificationDispatcher dispatcher = new NotificationDispatcher(sender, 16, 16, 1, Duration.ofMillis(5));
+		dispatcher.submit(first, "hold");
+		sender.entered.await();
+
+		// Queued while the worker is busy, so they drain as one batch
+		dispatcher.submit(second, "a");
+		dispatcher.submit(second, "b");
+		dispatcher.submit(second, "a");
+		sender.gate.countDown();
+		dispatcher.flush();
+
+		assertEquals(List.of(List.of("hold"), List.of("a", "b")), sender.sent);
+		assertEquals(2, dispatcher.getCoalescedCount());
+		assertEquals(3, dispatcher.getDeliveredCount());
+		dispatcher.shutdown();
+	}
+
+	@Test
+	void dropsNewNotificationsWhenTheQueueIsFull() throws InterruptedException {
+		GatedSender sender = new GatedSender(first);
+		NotificationDispatcher dispatcher = new NotificationDispatcher(sender, 1, 16, 1, Duration.ofMillis(5));
+		dispatcher.submit(first, "hold");
+		sender.entered.await();
+
+		assertTrue(dispatcher.submit(second, "kept"));
+		assertFalse(dispatcher.submit(second, "dropped"));
+		sender.gate.countDown();
+		dispatcher.flush();
+
+		assertEquals(1, dispatcher.getDroppedCount());
+		assertEquals(2, dispatcher.getDeliveredCount());
+		assertEquals(List.of(List.of("hold"), List.of("kept")), sender.sent);
+		dispatcher.shutdown();
+	}
+}
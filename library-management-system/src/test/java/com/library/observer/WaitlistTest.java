@@ -0,0 +1,75 @@
+package com.library.observer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class WaitlistTest {
+
+	private static final BookObserver IGNORE = book -> {
+	};
+
+	@Test
+	void keepsFifoOrderAndPositions() {
+		Waitlist waitlist = new Waitlist();
+		BookObserver first = book -> {
+		};
+		assertTrue(waitlist.enqueue("a", first));
+		assertTrue(waitlist.enqueue("b", IGNORE));
+		assertTrue(waitlist.enqueue("c", IGNORE));
+		assertFalse(waitlist.enqueue("a", IGNORE));
+
+		assertEquals(2, waitlist.positionOf("b"));
+		assertSame(IGNORE, waitlist.remove("b"));
+		assertEquals(2, waitlist.positionOf("c"));
+		assertEquals(0, waitlist.positionOf("b"));
+		assertEquals("a", waitlist.peekPatronId());
+		assertSame(first, waitlist.poll());
+		assertEquals(1, waitlist.positionOf("c"));
+		assertEquals(1, waitlist.size());
+	}
+
+	@Test
+	void positionsMatchListModelThroughRenumbering() {
+		Waitlist waitlist = new Waitlist();
+		List<String> model = new ArrayList<>();
+		Random random = new Random(37);
+		int next = 0;
+		for (int step = 0; step < 5000; step++) {
+			int action = random.nextInt(10);
+			if (action < 6 || model.isEmpty()) {
+				String patronId = "p" + next++;
+				waitlist.enqueue(patronId, IGNORE);
+				model.add(patronId);
+			} else if (action < 8) {
+				String patronId = model.remove(random.nextInt(model.size()));
+				waitlist.remove(patronId);
+			} else {
+				assertEquals(model.remove(0), waitlist.peekPatronId());
+				waitlist.poll();
+			}
+			if (step % 97 == 0) {
+				for (int i = 0; i < model.size(); i++) {
+					assertEquals(i + 1, waitlist.positionOf(model.get(i)));
+					assertEquals(model.get(i), waitlist.patronIdAt(i + 1));
+				}
+			}
+		}
+		assertEquals(model.size(), waitlist.size());
+		assertNull(waitlist.patronIdAt(model.size() + 1));
+		while (!model.isEmpty()) {
+			assertEquals(model.remove(0), waitlist.peekPatronId());
+			waitlist.poll();
+		}
+		assertTrue(waitlist.isEmpty());
+		assertNull(waitlist.poll());
+	}
+}
@@ -0,0 +1,155 @@
+package com.library.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.core.LibraryBranch;
+import com.library.model.Book;
+import com.library.model.Patron;
+
+class CachingRecommendationEngineTest {
+
+	private final Patron patron = new Patron("cache-p1", "Reader", "cache-p1@example.org");
+
+	private static Book shelved(String isbn, String branchId) {
+		Book book = new Book(isbn, "Title " + isbn, "Author", 2001);
+		book.setCurrentBranchId(branchId);
+		return book;
+	}
+
+	/**
+	 * Recommends the first book of whatever pool it is given
+	 */
+	private static final class FirstOfPool implements RecommendationEngine {
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public List<Book> getRecommendations(Patron patron, List<Book> availableBooks, int limit) {
+			calls.incrementAndGet();
+			return availableBooks.subList(0, 1);
+		}
+	}
+
+	@Test
+	void resultsAreCachedPerBranchPool() {
+		FirstOfPool delegate = new FirstOfPool();
+		CachingRecommendationEngine engine = new CachingRecommendationEngine(delegate);
+		List<Book> branchA = BookPool.of("A", 1, List.of(shelved("cache-a1", "A"), shelved("cache-a2", "A")));
+		List<Book> branchB = BookPool.of("B", 1, List.of(shelved("cache-b1", "B")));
+
+		assertEquals("cache-a1", engine.getRecommendations(patron, branchA, 1).get(0).getIsbn());
+		assertEquals("cache-b1", engine.getRecommendations(patron, branchB, 1).get(0).getIsbn());
+		assertEquals("cache-a1", engine.getRecommendations(patron, branchA, 1).get(0).getIsbn());
+		assertEquals("cache-b1", engine.getRecommendations(patron, branchB, 1).get(0).getIsbn());
+		assertEquals(2, delegate.calls.get());
+		assertEquals(2, engine.getHitCount());
+	}
+
+	@Test
+	void invalidationDuringComputeIsNotOverwritten() throws InterruptedException {
+		CountDownLatch computing = new CountDownLatch(1);
+		CountDownLatch invalidated = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		List<Book> pool = BookPool.of("A", 1, List.of(shelved("cache-s1", "A")));
+		CachingRecommendationEngine engine = new CachingRecommendationEngine((patron, books, limit) -> {
+			if (calls.incrementAndGet() == 1) {
+				computing.countDown();
+				try {
+					invalidated.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return books;
+		});
+
+		Thread request = new Thread(() -> engine.getRecommendations(patron, pool, 1));
+		request.start();
+		computing.await();
+		engine.invalidatePatron(patron.getPatronId());
+		invalidated.countDown();
+		request.join();
+
+		engine.getRecommendations(patron, pool, 1);
+		assertEquals(2, calls.get());
+		assertEquals(0, engine.getHitCount());
+	}
+
+	@Test
+	void closeUnregistersFromCirculationEvents() {
+		String id = UUID.randomUUID().toString();
+		LibraryBranch branch = new LibraryBranch("cache-" + id, "Cache", "");
+		Book book = new Book("cache-isbn-" + id, "Title", "Author", 2001);
+		branch.addBook(book);
+		Patron reader = new Patron("cache-r-" + id, "Reader", "cache-r-" + id + "@example.org");
+		branch.addPatron(reader);
+		List<Book> pool = BookPool.of(branch.getBranchId(), 1,
+				List.of(shelved("cache-pool-" + id, branch.getBranchId())));
+		CachingRecommendationEngine engine = RecommendationEngineFactory
+				.createCachingEngine(RecommendationType.POPULARITY_BASED);
+
+		engine.getRecommendations(reader, pool, 3);
+		branch.checkoutBook(book.getIsbn(), reader.getPatronId());
+		engine.getRecommendations(reader, pool, 3);
+		assertEquals(0, engine.getHitCount());
+
+		engine.close();
+		engine.getRecommendations(reader, pool, 3);
+		branch.returnBook(book.getIsbn(), reader.getPatronId());
+		engine.getRecommendations(reader, pool, 3);
+		assertEquals(1, engine.getHitCount());
+	}
+
+	@Test
+	void filteredSubsetIsNotServedFromTheFullPool() {
+		FirstOfPool delegate = new FirstOfPool();
+		CachingRecommendationEngine engine = new CachingRecommendationEngine(delegate);
+		List<Book> full = List.of(shelved("cache-f1", "A"), shelved("cache-f2", "A"));
+
+		assertEquals("cache-f1", engine.getRecommendations(patron, BookPool.of("A", 1, full), 1).get(0).getIsbn());
+		assertEquals("cache-f2", engine.getRecommendations(patron, full.subList(1, 2), 1).get(0).getIsbn());
+		assertEquals("cache-f2",
+				engine.getRecommendations(patron, BookPool.of("A?filtered", 1, full.subList(1, 2)), 1).get(0)
+						.getIsbn());
+		assertEquals(0, engine.getHitCount());
+	}
+
+	@Test
+	void newerPoolVersionIsRecomputed() {
+		FirstOfPool delegate = new FirstOfPool();
+		CachingRecommendationEngine engine = new CachingRecommendationEngine(delegate);
+		List<Book> books = List.of(shelved("cache-v1", "A"));
+
+		engine.getRecommendations(patron, BookPool.of("A", 1, books), 1);
+		engine.getRecommendations(patron, BookPool.of("A", 1, books), 1);
+		engine.getRecommendations(patron, BookPool.of("A", 2, books), 1);
+		assertEquals(2, delegate.calls.get());
+		assertEquals(1, engine.getHitCount());
+	}
+
+	@Test
+	void leastRecentlyServedPatronsAreEvicted() {
+		FirstOfPool delegate = new FirstOfPool();
+		CachingRecommendationEngine engine = new CachingRecommendationEngine(delegate, 2);
+		List<Book> pool = BookPool.of("A", 1, List.of(shelved("cache-e1", "A")));
+		Patron second = new Patron("cache-p2", "Second", "cache-p2@example.org");
+		Patron third = new Patron("cache-p3", "Third", "cache-p3@example.org");
+
+		engine.getRecommendations(patron, pool, 1);
+		engine.getRecommendations(second, pool, 1);
+		engine.getRecommendations(patron, pool, 1);
+		engine.getRecommendations(third, pool, 1);
+		assertEquals(2, engine.size());
+
+		engine.getRecommendations(patron, pool, 1);
+		engine.getRecommendations(second, pool, 1);
+		assertEquals(2, engine.getHitCount());
+		assertEquals(4, delegate.calls.get());
+	}
+}
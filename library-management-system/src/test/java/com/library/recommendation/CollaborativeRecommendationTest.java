@@ -0,0 +1,63 @@
+package com.library.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.index.OrdinalDictionary;
+import com.library.model.Book;
+import com.library.model.BorrowingRecord;
+import com.library.model.Patron;
+
+class CollaborativeRecommendationTest {
+
+	private final String id = UUID.randomUUID().toString();
+
+	private static void borrow(CoBorrowingModel model, Patron patron, String isbn) {
+		patron.addToBorrowingHistory(new BorrowingRecord(isbn, new Date()));
+		model.recordCheckout(isbn, patron.getRecentIsbnOrdinals());
+	}
+
+	@Test
+	void checkoutOnlyPairsWithRecentWindow() {
+		CoBorrowingModel model = new CoBorrowingModel(OrdinalDictionary.isbns());
+		Patron patron = new Patron("p-" + id, "Reader", null);
+		for (int i = 0; i < 40; i++) {
+			borrow(model, patron, id + "-" + i);
+		}
+
+		assertEquals(32, patron.getRecentIsbnOrdinals().length);
+		assertEquals(1, model.getCoBorrowCount(id + "-39", id + "-8"));
+		assertEquals(0, model.getCoBorrowCount(id + "-39", id + "-7"));
+		assertEquals(31, model.getCoBorrowed(OrdinalDictionary.isbns().lookup(id + "-0")).size());
+	}
+
+	@Test
+	void recommendsCoBorrowedBooksFromThePool() {
+		CoBorrowingModel model = new CoBorrowingModel(OrdinalDictionary.isbns());
+		Patron earlier = new Patron("e-" + id, "Earlier", null);
+		borrow(model, earlier, id + "-a");
+		borrow(model, earlier, id + "-b");
+		borrow(model, earlier, id + "-c");
+		Patron reader = new Patron("r-" + id, "Reader", null);
+		borrow(model, reader, id + "-a");
+
+		List<Book> shelf = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			shelf.add(new Book(id + "-shelf-" + i, "Filler", "Author", 2001));
+		}
+		shelf.add(new Book(id + "-c", "C", "Author", 2001));
+		BookPool pool = BookPool.of(shelf);
+
+		List<Book> recommendations = new CollaborativeRecommendation(model).getRecommendations(reader, pool, 5);
+		assertEquals(1, recommendations.size());
+		assertEquals(id + "-c", recommendations.get(0).getIsbn());
+		assertSame(pool, BookPool.of(pool));
+	}
+}
@@ -0,0 +1,98 @@
+package com.library.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.catalog.CatalogIndex;
+import com.library.model.Book;
+import com.library.model.BorrowingRecord;
+import com.library.model.Patron;
+
+class ContentBasedRecommendationTest {
+
+	private final String id = UUID.randomUUID().toString();
+	private final CatalogIndex catalog = new CatalogIndex();
+	private final ContentBasedRecommendation engine = new ContentBasedRecommendation(catalog);
+	private final List<Book> available = new ArrayList<>();
+	private Patron patron;
+
+	@BeforeEach
+	void setUp() {
+		patron = new Patron("p-" + id, "Reader", null);
+		// Affinities: author X twice, author Y once; subject s1 twice, subject s2 once
+		borrow(book("b1", "X", "s1"));
+		borrow(book("b2", "X", "s2"));
+		borrow(book("b3", "Y", "s1"));
+	}
+
+	private Book book(String name, String author, String... subjects) {
+		List<String> tagged = new ArrayList<>();
+		for (String subject : subjects) {
+			tagged.add(subject + "-" + id);
+		}
+		Book book = new Book(name + "-" + id, name, author + "-" + id, 2001, tagged);
+		catalog.register(book);
+		return book;
+	}
+
+	private void borrow(Book book) {
+		patron.addToBorrowingHistory(new BorrowingRecord(book.getIsbn(), new Date()));
+		available.add(book);
+	}
+
+	private Book availableBook(String name, String author, String... subjects) {
+		Book book = book(name, author, subjects);
+		available.add(book);
+		return book;
+	}
+
+	@Test
+	void ranksByAuthorAndSubjectPostings() {
+		Book authorAndSubject = availableBook("c1", "X", "s1"); // 2*2 + 2*1 = 6
+		Book authorOnly = availableBook("c2", "X"); // 2*2 = 4
+		Book subjectsOnly = availableBook("c3", "Z", "s1", "s2"); // 2 + 1 = 3
+		Book lesserAuthor = availableBook("c4", "Y"); // 1*2 = 2
+		Book lesserSubject = availableBook("c5", "Z", "s2"); // 1
+		availableBook("c6", "Z", "s3"); // unrelated
+
+		assertEquals(List.of(authorAndSubject, authorOnly, subjectsOnly, lesserAuthor, lesserSubject),
+				engine.getRecommendations(patron, available, 10));
+		assertEquals(List.of(authorAndSubject, authorOnly), engine.getRecommendations(patron, available, 2));
+	}
+
+	@Test
+	void neverRecommendsBorrowedBooks() {
+		Book candidate = availableBook("c1", "Y", "s2");
+
+		List<Book> recommendations = engine.getRecommendations(patron, available, 10);
+		assertEquals(List.of(candidate), recommendations);
+		for (Book book : recommendations) {
+			assertFalse(patron.hasBorrowed(book.getIsbn()));
+		}
+	}
+
+	@Test
+	void onlyRecommendsBooksInTheAvailablePool() {
+		book("c1", "X", "s1"); // catalogued but not on the shelf
+		Book onShelf = availableBook("c2", "Y");
+
+		assertEquals(List.of(onShelf), engine.getRecommendations(patron, available, 10));
+	}
+
+	@Test
+	void patronWithoutHistoryGetsNothing() {
+		availableBook("c1", "X", "s1");
+		Patron newcomer = new Patron("new-" + id, "Newcomer", null);
+
+		assertTrue(engine.getRecommendations(newcomer, available, 10).isEmpty());
+	}
+}
@@ -0,0 +1,68 @@
+package com.library.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.model.Book;
+import com.library.model.Patron;
+
+class HybridRecommendationTest {
+
+	private final Patron patron = new Patron("hybrid-p1", "Reader", "hybrid-p1@example.org");
+	private final Book fastPick = new Book("hybrid-fast", "Fast", "Author", 2001);
+	private final List<Book> available = List.of(fastPick);
+	private final RecommendationEngine fast = (patron, books, limit) -> List.of(fastPick);
+
+	@Test
+	void lateEngineIsInterrupted() throws InterruptedException {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		RecommendationEngine slow = (patron, books, limit) -> {
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return List.of();
+		};
+		HybridRecommendation hybrid = new HybridRecommendation(List.of(fast, slow), List.of(1.0, 1.0),
+				Duration.ofMillis(50));
+
+		assertEquals(List.of(fastPick), hybrid.getRecommendations(patron, available, 5));
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertEquals(0, hybrid.getTimeoutCount(0));
+		assertEquals(1, hybrid.getTimeoutCount(1));
+	}
+
+	@Test
+	void stuckEngineOnlyExhaustsItsOwnPool() {
+		CountDownLatch release = new CountDownLatch(1);
+		RecommendationEngine stuck = (patron, books, limit) -> {
+			// Ignores interrupts, like an engine in a tight loop
+			while (release.getCount() > 0) {
+				Thread.onSpinWait();
+			}
+			return List.of();
+		};
+		HybridRecommendation hybrid = new HybridRecommendation(List.of(fast, stuck), List.of(1.0, 1.0),
+				Duration.ofMillis(20));
+		try {
+			int requests = 3 * Runtime.getRuntime().availableProcessors();
+			for (int i = 0; i < requests; i++) {
+				long start = System.nanoTime();
+				assertEquals(List.of(fastPick), hybrid.getRecommendations(patron, available, 5));
+				assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+			}
+			assertEquals(requests, hybrid.getTimeoutCount(1));
+			assertEquals(0, hybrid.getTimeoutCount(0));
+		} finally {
+			release.countDown();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.library.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+class PopularityTrackerTest {
+
+	@Test
+	void scoresHalveEveryHalfLife() {
+		PopularityTracker tracker = PopularityTracker.exact(Duration.ofDays(1));
+		long start = System.currentTimeMillis();
+		tracker.recordBorrow("a", start);
+		tracker.recordBorrow("a", start);
+		tracker.recordBorrow("b", start);
+
+		assertEquals(2.0, tracker.getScore("a", start), 1e-9);
+		assertEquals(1.0, tracker.getScore("a", start + Duration.ofDays(1).toMillis()), 1e-9);
+		assertEquals(List.of("a", "b"), tracker.getTopIsbns(5));
+	}
+
+	@Test
+	void propertiesSelectSketchMode() {
+		Properties properties = new Properties();
+		assertEquals(PopularityTracker.Mode.EXACT, PopularityTracker.configured(properties).getMode());
+
+		properties.setProperty("library.popularity.mode", "sketch");
+		properties.setProperty("library.popularity.sketch.heavyHitters", "2");
+		PopularityTracker tracker = PopularityTracker.configured(properties);
+		assertEquals(PopularityTracker.Mode.SKETCH, tracker.getMode());
+		for (String isbn : new String[] { "a", "b", "c" }) {
+			tracker.recordBorrow(isbn);
+		}
+		assertEquals(2, tracker.getTopIsbns(10).size());
+
+		properties.setProperty("library.popularity.mode", "fuzzy");
+		assertThrows(IllegalArgumentException.class, () -> PopularityTracker.configured(properties));
+	}
+
+	@Test
+	void heavyHittersStayWithinCapacityUnderContention() throws InterruptedException {
+		PopularityTracker tracker = PopularityTracker.sketch(Duration.ofDays(30), 1 << 12, 4, 8);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int offset = t;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					tracker.recordBorrow("isbn-" + ((i * 7 + offset) % 64));
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		List<String> top = tracker.getTopIsbns(100);
+		assertTrue(top.size() <= 8, "heavy hitters: " + top.size());
+	}
+
+	@Test
+	void topIsbnsAreRankedBestFirst() {
+		PopularityTracker tracker = PopularityTracker.exact(Duration.ofDays(30));
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 5; i++) {
+			for (int borrows = 0; borrows <= i; borrows++) {
+				tracker.recordBorrow("rank-" + i, now);
+			}
+		}
+
+		assertEquals(List.of("rank-4", "rank-3", "rank-2"), tracker.getTopIsbns(3));
+		assertEquals(5, tracker.getTopIsbns(10).size());
+	}
+
+	@Test
+	void sketchRowsDoNotShareHashCollisions() {
+		// "Aa" and "BB" have the same String.hashCode
+		PopularityTracker tracker = PopularityTracker.sketch(Duration.ofDays(30), 1 << 12, 4, 8);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 10; i++) {
+			tracker.recordBorrow("Aa", now);
+		}
+
+		assertEquals(10.0, tracker.getScore("Aa", now), 1e-6);
+		assertEquals(0.0, tracker.getScore("BB", now), 1e-6);
+	}
+}
@@ -0,0 +1,47 @@
+package com.library.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class PrecomputedRecommendationsTest {
+
+	@Test
+	void writtenListsReadBackPerBranchAndPatron() throws IOException {
+		Map<String, List<String>> results = new HashMap<>();
+		results.put(PrecomputedRecommendations.key("BR1", "P1"), List.of("isbn-1", "isbn-2", "isbn-3"));
+		results.put(PrecomputedRecommendations.key("BR2", "P1"), List.of("isbn-3"));
+		results.put(PrecomputedRecommendations.key("a/b", "c"), List.of("isbn-ab"));
+		results.put(PrecomputedRecommendations.key("a", "b/c"), List.of("isbn-a"));
+		Path file = Files.createTempFile("recommendations", ".bin");
+		try {
+			PrecomputedRecommendations.write(file, results, 2);
+			PrecomputedRecommendations recommendations = PrecomputedRecommendations.open(file);
+
+			assertEquals(4, recommendations.size());
+			assertEquals(2, recommendations.getTopK());
+			assertEquals(List.of("isbn-1", "isbn-2"), recommendations.getRecommendedIsbns("BR1", "P1"));
+			assertEquals(List.of("isbn-3"), recommendations.getRecommendedIsbns("BR2", "P1"));
+			assertEquals(List.of("isbn-ab"), recommendations.getRecommendedIsbns("a/b", "c"));
+			assertEquals(List.of("isbn-a"), recommendations.getRecommendedIsbns("a", "b/c"));
+			assertTrue(recommendations.getRecommendedIsbns("BR1", "missing").isEmpty());
+			assertTrue(recommendations.getRecommendedIsbns("BR3", "P1").isEmpty());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void keysOfDifferentSplitsDiffer() {
+		assertNotEquals(PrecomputedRecommendations.key("a/b", "c"), PrecomputedRecommendations.key("a", "b/c"));
+	}
+}
@@ -0,0 +1,79 @@
+package com.library.recommendation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.library.index.OrdinalDictionary;
+
+class SimilarBooksIndexTest {
+
+	private final SimilarBooksIndex index = new SimilarBooksIndex(new OrdinalDictionary(), new OrdinalDictionary(),
+			16, 4);
+
+	@Test
+	void booksWithSameBorrowersAreSimilar() {
+		for (int patron = 0; patron < 20; patron++) {
+			index.recordBorrow("a", "p" + patron);
+			index.recordBorrow("b", "p" + patron);
+		}
+		for (int patron = 100; patron < 120; patron++) {
+			index.recordBorrow("c", "p" + patron);
+		}
+
+		assertEquals(1.0, index.estimateSimilarity("a", "b"), 0.0);
+		assertEquals(List.of("b"), index.findSimilarIsbns("a", 5));
+		assertTrue(index.estimateSimilarity("a", "c") < 0.2);
+	}
+
+	@Test
+	void unknownBooksHaveNoSimilarTitles() {
+		assertTrue(index.findSimilarIsbns("missing", 5).isEmpty());
+		assertEquals(0.0, index.estimateSimilarity("missing", "other"), 0.0);
+	}
+
+	@Test
+	void opposingLookupsDoNotDeadlock() {
+		index.recordBorrow("a", "p1");
+		index.recordBorrow("b", "p1");
+
+		assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Thread> threads = new ArrayList<>();
+			String[][] pairs = { { "a", "b" }, { "b", "a" } };
+			for (String[] pair : pairs) {
+				Thread thread = new Thread(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < 200_000; i++) {
+						index.estimateSimilarity(pair[0], pair[1]);
+						index.findSimilarIsbns(pair[0], 3);
+					}
+				});
+				thread.start();
+				threads.add(thread);
+			}
+			Thread writer = new Thread(() -> {
+				for (int i = 0; i < 200_000; i++) {
+					index.recordBorrow(i % 2 == 0 ? "a" : "b", "w" + i);
+				}
+			});
+			writer.start();
+			threads.add(writer);
+			start.countDown();
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		});
+	}
+}
@@ -0,0 +1,86 @@
+package com.library.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.library.core.ChangeFeed;
+import com.library.core.LibraryBranch;
+import com.library.model.Book;
+
+class SearchReplicaTest {
+
+	private ChangeFeed feed;
+	private LibraryBranch branch;
+	private SearchReplica replica;
+
+	@BeforeEach
+	void setUp() {
+		feed = new ChangeFeed();
+		branch = new LibraryBranch("R-" + UUID.randomUUID(), "Replica", "");
+		branch.addListener(feed);
+		branch.addBook(new Book("r1", "The Left Hand of Darkness", "Ursula K. Le Guin", 1969));
+		branch.addBook(new Book("r2", "A Wizard of Earthsea", "Ursula K. Le Guin", 1968));
+		branch.addBook(new Book("r3", "Dune", "Frank Herbert", 1965));
+		replica = new SearchReplica(feed, 60_000);
+	}
+
+	private static Set<String> isbns(List<Book> books) {
+		Set<String> isbns = new TreeSet<>();
+		books.forEach(book -> isbns.add(book.getIsbn()));
+		return isbns;
+	}
+
+	@Test
+	void titleAndAuthorSearchMatchSubstringsCaseInsensitively() {
+		String branchId = branch.getBranchId();
+		assertEquals(Set.of("r1", "r2"), isbns(replica.search(branchId, SearchType.AUTHOR, "le guin")));
+		assertEquals(Set.of("r1"), isbns(replica.search(branchId, SearchType.TITLE, "DARK")));
+		assertEquals(Set.of("r2"), isbns(replica.search(branchId, SearchType.TITLE, "Wi")));
+		assertTrue(replica.search(branchId, SearchType.TITLE, "darkest").isEmpty());
+	}
+
+	@Test
+	void renamedAndRemovedTitlesLeaveThePostings() {
+		String branchId = branch.getBranchId();
+		branch.updateBook("r3", new Book("r3", "Children of Dune", "Frank Herbert", 1976));
+		branch.removeBook("r1");
+		replica.catchUp();
+
+		assertEquals(Set.of("r3"), isbns(replica.search(branchId, SearchType.TITLE, "children")));
+		assertTrue(replica.search(branchId, SearchType.TITLE, "darkness").isEmpty());
+		assertEquals(Set.of("r2"), isbns(replica.search(branchId, SearchType.AUTHOR, "ursula")));
+	}
+
+	@Test
+	void lagIsMeasuredFromTheOldestUnappliedEvent() throws InterruptedException {
+		assertEquals(0, replica.getLagMillis());
+		branch.addBook(new Book("r4", "Solaris", "Stanislaw Lem", 1961));
+		Thread.sleep(20);
+
+		assertTrue(replica.getLagMillis() >= 20);
+		assertEquals(1, replica.getLagEvents());
+		replica.catchUp();
+		assertEquals(0, replica.getLagMillis());
+	}
+
+	@Test
+	void feedReportsTimestampsOnlyForRetainedEvents() {
+		ChangeFeed small = new ChangeFeed(2);
+		branch.addListener(small);
+		branch.addBook(new Book("r5", "Ubik", "Philip K. Dick", 1969));
+		branch.addBook(new Book("r6", "Valis", "Philip K. Dick", 1981));
+		branch.addBook(new Book("r7", "Emma", "Jane Austen", 1815));
+
+		assertEquals(-1, small.getTimestampMillis(1));
+		assertTrue(small.getTimestampMillis(3) > 0);
+		assertEquals(-1, small.getTimestampMillis(4));
+	}
+}
@@ -0,0 +1,86 @@
+package com.library.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.library.core.LibraryBranch;
+import com.library.core.LibrarySystem;
+import com.library.model.Book;
+import com.library.model.Patron;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class InventoryControllerTest {
+
+	private MockMvc mvc;
+	private LibraryBranch branch;
+	private String isbn;
+	private Patron patron;
+
+	@BeforeEach
+	void setUp() {
+		String id = UUID.randomUUID().toString();
+		isbn = "isbn-" + id;
+		branch = new LibraryBranch("web-" + id, "Web", "");
+		branch.addBook(new Book(isbn, "Title", "Author", 2001));
+		patron = new Patron("p-" + id, "Patron", "p-" + id + "@example.org");
+		branch.addPatron(patron);
+		LibrarySystem.getInstance().addBranch(branch);
+		mvc = MockMvcBuilders.standaloneSetup(new InventoryController(JsonMapper.builder().build()))
+				.setControllerAdvice(new ApiExceptionHandler()).build();
+	}
+
+	@Test
+	void matchingETagIsAnsweredWithNotModified() throws Exception {
+		String path = "/api/branches/" + branch.getBranchId() + "/books/" + isbn;
+		MvcResult first = mvc.perform(get(path)).andExpect(status().isOk()).andReturn();
+		String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+		MvcResult notModified = mvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified()).andReturn();
+		assertEquals(0, notModified.getResponse().getContentLength());
+	}
+
+	@Test
+	void unchangedDataKeepsItsETagAndBody() throws Exception {
+		String path = "/api/branches/" + branch.getBranchId() + "/availability";
+		MvcResult first = mvc.perform(get(path)).andExpect(status().isOk()).andReturn();
+		MvcResult second = mvc.perform(get(path)).andExpect(status().isOk()).andReturn();
+
+		assertEquals(first.getResponse().getHeader(HttpHeaders.ETAG), second.getResponse().getHeader(HttpHeaders.ETAG));
+		assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+	}
+
+	@Test
+	void checkoutBumpsTheVersionAndReRenders() throws Exception {
+		String path = "/api/branches/" + branch.getBranchId() + "/books/" + isbn;
+		MvcResult before = mvc.perform(get(path)).andExpect(status().isOk()).andReturn();
+		String eTag = before.getResponse().getHeader(HttpHeaders.ETAG);
+		assertTrue(before.getResponse().getContentAsString().contains("AVAILABLE"));
+
+		branch.checkoutBook(isbn, patron.getPatronId());
+
+		MvcResult after = mvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isOk()).andReturn();
+		assertNotEquals(eTag, after.getResponse().getHeader(HttpHeaders.ETAG));
+		assertTrue(after.getResponse().getContentAsString().contains("CHECKED_OUT"));
+	}
+
+	@Test
+	void unknownBookIsNotFound() throws Exception {
+		mvc.perform(get("/api/branches/" + branch.getBranchId() + "/books/missing-" + isbn))
+				.andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,62 @@
+package com.library.web;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+class RenderedResponseCacheTest {
+
+	@Test
+	void rendersOncePerVersion() {
+		RenderedResponseCache cache = new RenderedResponseCache(16);
+		AtomicInteger renders = new AtomicInteger();
+		Supplier<byte[]> renderer = () -> ("body-" + renders.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+
+		byte[] first = cache.get("book:a/1", 3, renderer);
+		assertArrayEquals(first, cache.get("book:a/1", 3, renderer));
+		assertEquals(1, renders.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// A version bump re-renders and replaces the entry
+		byte[] bumped = cache.get("book:a/1", 4, renderer);
+		assertEquals("body-2", new String(bumped, StandardCharsets.UTF_8));
+		assertArrayEquals(bumped, cache.get("book:a/1", 4, renderer));
+		assertEquals(2, renders.get());
+	}
+
+	@Test
+	void olderRenderingNeverReplacesANewerOne() {
+		RenderedResponseCache cache = new RenderedResponseCache(16);
+		cache.get("statistics", 5, () -> new byte[] { 5 });
+		cache.get("statistics", 4, () -> new byte[] { 4 });
+
+		assertArrayEquals(new byte[] { 5 }, cache.get("statistics", 5, () -> new byte[] { 0 }));
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedEntry() {
+		RenderedResponseCache cache = new RenderedResponseCache(2);
+		cache.get("a", 1, () -> new byte[] { 1 });
+		cache.get("b", 1, () -> new byte[] { 2 });
+		cache.get("a", 1, () -> new byte[] { 0 });
+		cache.get("c", 1, () -> new byte[] { 3 });
+
+		assertArrayEquals(new byte[] { 1 }, cache.get("a", 1, () -> new byte[] { 0 }));
+		assertArrayEquals(new byte[] { 0 }, cache.get("b", 1, () -> new byte[] { 0 }));
+	}
+
+	@Test
+	void eTagsDifferByVersion() {
+		RenderedResponseCache cache = new RenderedResponseCache(16);
+		assertEquals(cache.eTag(7), cache.eTag(7));
+		assertNotEquals(cache.eTag(7), cache.eTag(8));
+	}
+}